@@ -0,0 +1,50 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.PatientType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Biaya {@link QueueService#issueTicket(PatientType)} murni. Penerbitan selalu menambah antrean, jadi
+ * setiap iterasi memakai layanan baru dan mengukur satu batch berisi {@value #BATCH} tiket; skor dibagi
+ * {@value #BATCH} untuk mendapat biaya per tiket.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = IssueTicketBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = IssueTicketBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Thread)
+public class IssueTicketBenchmark {
+
+    static final int BATCH = 10_000;
+
+    @Param({"0", "10000"})
+    int depth;
+
+    private QueueService queueService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queueService = QueueBenchmarkSupport.newQueueService();
+        QueueBenchmarkSupport.fill(queueService, depth, PatientType.LAMA);
+    }
+
+    @Benchmark
+    public void issueTicket(Blackhole blackhole) {
+        blackhole.consume(queueService.issueTicket(PatientType.LAMA));
+    }
+}
@@ -0,0 +1,93 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Beban campuran seperti di lapangan: mesin tiket menerbitkan nomor, tiap loket dilayani satu thread yang
+ * memanggil lalu menyelesaikan tiket (A -> B -> C), dan layar memantau snapshot. Jumlah tiket yang
+ * belum selesai dibatasi agar antrean tidak tumbuh tanpa batas saat penerbit lebih cepat dari loket.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class MixedWorkloadBenchmark {
+
+    private static final int MAX_OUTSTANDING = 2_000;
+
+    private QueueService queueService;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger issued = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queueService = QueueBenchmarkSupport.newQueueService();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void issue(Blackhole blackhole) {
+        if (outstanding.get() >= MAX_OUTSTANDING) {
+            Thread.onSpinWait();
+            return;
+        }
+        outstanding.incrementAndGet();
+        PatientType type = (issued.incrementAndGet() & 3) == 0 ? PatientType.BARU : PatientType.LAMA;
+        blackhole.consume(queueService.issueTicket(type));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    public void serveA() {
+        serve("A");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    public void serveB() {
+        serve("B");
+    }
+
+    @Benchmark
+    @Group("mixed")
+    public void serveC() {
+        if (serve("C")) {
+            // Loket terakhir tidak meneruskan tiket, jadi di sinilah tiket keluar dari sistem.
+            outstanding.decrementAndGet();
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    public void display(Blackhole blackhole) {
+        blackhole.consume(queueService.getSnapshot());
+    }
+
+    private boolean serve(String counterId) {
+        Optional<Ticket> ticket = queueService.callNext(counterId);
+        ticket.ifPresent(called -> queueService.complete(counterId, called.getId()));
+        return ticket.isPresent();
+    }
+}
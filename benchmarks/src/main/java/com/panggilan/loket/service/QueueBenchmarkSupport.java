@@ -0,0 +1,42 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.model.PatientType;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Menyiapkan {@link QueueService} tanpa Spring untuk benchmark: printer dan audit noop, tanpa jurnal,
+ * serta jam tetap agar reset harian tidak pernah terpicu di tengah pengukuran.
+ */
+final class QueueBenchmarkSupport {
+
+    static final Clock FIXED_CLOCK = Clock.fixed(Instant.parse("2024-01-15T02:00:00Z"), ZoneId.of("Asia/Jakarta"));
+
+    private QueueBenchmarkSupport() {
+    }
+
+    static QueueService newQueueService() {
+        CounterProperties properties = new CounterProperties();
+        properties.setCounters(List.of(counter("A", "Loket A"), counter("B", "Loket B"), counter("C", "Loket C")));
+        QueueService queueService = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(), FIXED_CLOCK);
+        queueService.initializeCounters();
+        return queueService;
+    }
+
+    static void fill(QueueService queueService, int count, PatientType patientType) {
+        for (int i = 0; i < count; i++) {
+            queueService.issueTicket(patientType);
+        }
+    }
+
+    private static CounterProperties.CounterDefinition counter(String id, String name) {
+        CounterProperties.CounterDefinition definition = new CounterProperties.CounterDefinition();
+        definition.setId(id);
+        definition.setName(name);
+        return definition;
+    }
+}
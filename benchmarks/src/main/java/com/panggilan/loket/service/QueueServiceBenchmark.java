@@ -0,0 +1,92 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Biaya operasi tunggal {@link QueueService} dengan antrean sedalam {@code depth}.
+ * <p>
+ * Loket hanya boleh memegang tiga tiket aktif, sehingga benchmark pemanggilan menghentikan tiket yang baru
+ * dipanggil dan menerbitkan pengganti agar kedalaman antrean tetap; {@link IssueTicketBenchmark} dapat
+ * dipakai sebagai pembanding untuk memisahkan porsi penerbitan tersebut.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueServiceBenchmark {
+
+    @Param({"100", "10000"})
+    int depth;
+
+    private QueueService queueService;
+    private String activeTicketId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queueService = QueueBenchmarkSupport.newQueueService();
+        // Pasien Lama di depan Pasien Baru: kasus terburuk Loket A sebelum antrean dipisah per jenis pasien.
+        QueueBenchmarkSupport.fill(queueService, depth, PatientType.LAMA);
+        QueueBenchmarkSupport.fill(queueService, depth, PatientType.BARU);
+        activeTicketId = queueService.callNext("C").map(Ticket::getId).orElseThrow();
+    }
+
+    @Benchmark
+    public Ticket callNextLoketA() {
+        Ticket ticket = queueService.callNext("A").orElseThrow();
+        queueService.stop("A", ticket.getId());
+        queueService.issueTicket(PatientType.BARU);
+        return ticket;
+    }
+
+    @Benchmark
+    public Ticket callNextStealFromFirstCounter() {
+        Ticket ticket = queueService.callNext("B").orElseThrow();
+        queueService.stop("B", ticket.getId());
+        queueService.issueTicket(PatientType.LAMA);
+        return ticket;
+    }
+
+    @Benchmark
+    public void completeChainsToNextCounter(Blackhole blackhole) {
+        // Satu perjalanan penuh: Loket A -> B -> C -> selesai.
+        queueService.issueTicket(PatientType.BARU);
+        Ticket atA = queueService.callNext("A").orElseThrow();
+        queueService.complete("A", atA.getId());
+        Ticket atB = queueService.callNext("B").orElseThrow();
+        queueService.complete("B", atB.getId());
+        Ticket atC = queueService.callNext("C").orElseThrow();
+        queueService.complete("C", atC.getId());
+        blackhole.consume(atC);
+    }
+
+    @Benchmark
+    public List<?> snapshotCached() {
+        return queueService.getSnapshot();
+    }
+
+    @Benchmark
+    public List<?> snapshotRebuild() {
+        // Panggil ulang menaikkan versi keadaan tanpa mengubah isi antrean, sehingga snapshot dibangun ulang.
+        queueService.recall("C", activeTicketId);
+        return queueService.getSnapshot();
+    }
+}
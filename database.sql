@@ -1,13 +1,80 @@
 USE your_schema;
 
 CREATE TABLE ticket_events (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     ticket_id VARCHAR(64) NOT NULL,
     ticket_number VARCHAR(16) NOT NULL,
     event_type VARCHAR(16) NOT NULL,
     counter_id VARCHAR(32),
     counter_name VARCHAR(128),
     event_time DATETIME NOT NULL,
+    patient_type VARCHAR(16),
     INDEX idx_ticket_events_ticket (ticket_id),
     INDEX idx_ticket_events_type_time (event_type, event_time)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
\ No newline at end of file
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Id riwayat dialokasikan per blok 50 oleh Hibernate (sequence pooled yang diemulasikan dengan tabel di MySQL)
+-- agar penyimpanan write-behind dapat memakai JDBC batch insert.
+CREATE TABLE ticket_events_seq (
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO ticket_events_seq (next_val) VALUES (1);
+
+-- Nomor tiket terakhir per hari; diperbarui bersama batch riwayat agar pemulihan nomor cukup lookup primary key.
+CREATE TABLE ticket_daily_sequences (
+    queue_date DATE PRIMARY KEY,
+    last_number INT NOT NULL
+) ENGINE=InnoDB;
+
+-- Rekap laporan per jam/hari; id = granularitas|awal bucket|loket|jenis pasien.
+CREATE TABLE ticket_rollups (
+    id VARCHAR(96) PRIMARY KEY,
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    counter_id VARCHAR(32) NOT NULL,
+    patient_type VARCHAR(16) NOT NULL,
+    issued_count BIGINT NOT NULL,
+    called_count BIGINT NOT NULL,
+    completed_count BIGINT NOT NULL,
+    stopped_count BIGINT NOT NULL,
+    wait_samples BIGINT NOT NULL,
+    wait_total_ms BIGINT NOT NULL,
+    INDEX idx_ticket_rollups_bucket (granularity, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Mode cluster (queue.cluster.enabled=true): satu baris status bersama yang dikunci per transisi,
+-- serta log transisi yang diikuti setiap instance.
+CREATE TABLE queue_cluster_state (
+    id INT PRIMARY KEY,
+    queue_date DATE,
+    last_number INT NOT NULL,
+    last_transition BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO queue_cluster_state (id, queue_date, last_number, last_transition) VALUES (1, NULL, 0, 0);
+
+CREATE TABLE queue_transitions (
+    id BIGINT PRIMARY KEY,
+    queue_date DATE NOT NULL,
+    node_id VARCHAR(64) NOT NULL,
+    payload VARCHAR(1024) NOT NULL,
+    created_at DATETIME NOT NULL,
+    INDEX idx_queue_transitions_date (queue_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Migrasi dari skema lama (id AUTO_INCREMENT): jalankan sekali sebelum aplikasi versi baru dinyalakan.
+-- ALTER TABLE ticket_events MODIFY id BIGINT NOT NULL;
+-- CREATE TABLE IF NOT EXISTS ticket_events_seq (next_val BIGINT) ENGINE=InnoDB;
+-- DELETE FROM ticket_events_seq;
+-- INSERT INTO ticket_events_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM ticket_events;
+--
+-- Kolom jenis pasien pada riwayat (sudah dipetakan TicketEventEntity): tambahkan bila tabel dibuat dari skema lama.
+-- ALTER TABLE ticket_events ADD COLUMN patient_type VARCHAR(16) AFTER event_time;
+--
+-- Migrasi nomor harian: isi ticket_daily_sequences dari riwayat yang sudah ada (sekali saja).
+-- CREATE TABLE IF NOT EXISTS ticket_daily_sequences (queue_date DATE PRIMARY KEY, last_number INT NOT NULL) ENGINE=InnoDB;
+-- INSERT INTO ticket_daily_sequences (queue_date, last_number)
+--     SELECT DATE(event_time), MAX(CAST(SUBSTRING_INDEX(ticket_number, '-', -1) AS UNSIGNED))
+--     FROM ticket_events WHERE event_type = 'ISSUED' GROUP BY DATE(event_time)
+--     ON DUPLICATE KEY UPDATE last_number = GREATEST(last_number, VALUES(last_number));
@@ -20,6 +20,8 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -28,10 +30,24 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public final class CounterCallerApp {
 
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    // Pemuatan berkala hanya selama stream loket terputus; selama tersambung status dimuat saat ada event.
+    private static final int FALLBACK_REFRESH_MS = 4000;
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String CONNECTION_LOST_MESSAGE = "Koneksi ke server terputus, mencoba menyambung ulang...";
 
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(REQUEST_TIMEOUT)
@@ -47,6 +63,16 @@ public final class CounterCallerApp {
     private JLabel statusMessage;
     private JComboBox<TicketOption> activeTicketCombo;
     private DefaultComboBoxModel<TicketOption> activeTicketsModel;
+    private final List<JButton> actionButtons = new ArrayList<>();
+
+    // Keadaan di bawah ini hanya disentuh dari EDT.
+    private CounterEventStream eventStream;
+    private String watchedServer = "";
+    private String watchedCounter = "";
+    private long watchGeneration;
+    private String counterETag;
+    private boolean refreshing;
+    private boolean refreshPending;
 
     private CounterCallerApp(String presetServer, String presetCounter) {
         this.presetServer = presetServer == null || presetServer.isBlank() ? "http://localhost:8080" : presetServer;
@@ -126,104 +152,203 @@ public final class CounterCallerApp {
         recallButton.addActionListener(this::recallAction);
         completeButton.addActionListener(this::completeAction);
         stopButton.addActionListener(this::stopAction);
+        actionButtons.addAll(List.of(callNextButton, recallButton, completeButton, stopButton));
 
-        Timer refreshTimer = new Timer(4000, e -> SwingUtilities.invokeLater(this::refreshCurrentStatus));
-        refreshTimer.setInitialDelay(0);
-        refreshTimer.start();
+        FocusAdapter watchOnFocusLost = new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent event) {
+                watchCounter();
+            }
+        };
+        serverField.addActionListener(event -> watchCounter());
+        serverField.addFocusListener(watchOnFocusLost);
+        counterField.addActionListener(event -> watchCounter());
+        counterField.addFocusListener(watchOnFocusLost);
+
+        Timer fallbackTimer = new Timer(FALLBACK_REFRESH_MS, event -> {
+            if (eventStream == null || !eventStream.isConnected()) {
+                refreshCurrentStatus();
+            }
+        });
+        fallbackTimer.start();
+        watchCounter();
     }
 
     private void callNextAction(ActionEvent event) {
-        withLoading(() -> {
-            JsonNode response = post(String.format("/api/counters/%s/call-next", counterField.getText().trim()));
+        String counterId = requireCounterId();
+        if (counterId == null) {
+            return;
+        }
+        perform(String.format("/api/counters/%s/call-next", encode(counterId)), response -> {
             if (response != null) {
                 String number = response.path("number").asText("-");
                 currentTicketLabel.setText("Nomor Saat Ini: " + number);
                 setStatus("Memanggil nomor " + number, false);
-                refreshCurrentStatus();
             }
         });
     }
 
     private void recallAction(ActionEvent event) {
-        withLoading(() -> {
-            TicketOption selected = getSelectedTicket();
-            if (selected == null) {
-                setStatus("Pilih nomor aktif terlebih dahulu.", true);
-                return;
-            }
-            JsonNode response = post(String.format("/api/counters/%s/recall?ticketId=%s",
-                    counterField.getText().trim(), encode(selected.id())));
-            if (response != null) {
-                String number = response.path("number").asText("-");
-                currentTicketLabel.setText("Nomor Saat Ini: " + number);
-                setStatus("Panggilan ulang nomor " + number, false);
-                refreshCurrentStatus();
-            }
-        });
+        String counterId = requireCounterId();
+        if (counterId == null) {
+            return;
+        }
+        TicketOption selected = getSelectedTicket();
+        if (selected == null) {
+            setStatus("Pilih nomor aktif terlebih dahulu.", true);
+            return;
+        }
+        perform(String.format("/api/counters/%s/recall?ticketId=%s", encode(counterId), encode(selected.id())),
+                response -> {
+                    if (response != null) {
+                        String number = response.path("number").asText("-");
+                        currentTicketLabel.setText("Nomor Saat Ini: " + number);
+                        setStatus("Panggilan ulang nomor " + number, false);
+                    }
+                });
     }
 
     private void completeAction(ActionEvent event) {
-        withLoading(() -> {
-            TicketOption selected = getSelectedTicket();
-            if (selected == null) {
-                setStatus("Tidak ada nomor aktif untuk diselesaikan.", true);
-                return;
-            }
-            post(String.format("/api/counters/%s/complete?ticketId=%s",
-                    counterField.getText().trim(), encode(selected.id())));
-            setStatus("Selesai melayani nomor " + selected.label() + ".", false);
-            refreshCurrentStatus();
-        });
+        String counterId = requireCounterId();
+        if (counterId == null) {
+            return;
+        }
+        TicketOption selected = getSelectedTicket();
+        if (selected == null) {
+            setStatus("Tidak ada nomor aktif untuk diselesaikan.", true);
+            return;
+        }
+        perform(String.format("/api/counters/%s/complete?ticketId=%s", encode(counterId), encode(selected.id())),
+                response -> setStatus("Selesai melayani nomor " + selected.label() + ".", false));
     }
 
     private void stopAction(ActionEvent event) {
-    int choice = JOptionPane.showConfirmDialog(
-        frame,
-        "apakah anda yakin akan stop antrian?",
-        "Konfirmasi Stop",
+        String counterId = requireCounterId();
+        if (counterId == null) {
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(
+                frame,
+                "apakah anda yakin akan stop antrian?",
+                "Konfirmasi Stop",
                 JOptionPane.YES_NO_OPTION,
                 JOptionPane.WARNING_MESSAGE);
         if (choice != JOptionPane.YES_OPTION) {
             return;
         }
-        withLoading(() -> {
-            TicketOption selected = getSelectedTicket();
-            if (selected == null) {
-                setStatus("Tidak ada nomor aktif untuk dihentikan.", true);
-                return;
-            }
-            JsonNode response = post(String.format("/api/counters/%s/stop?ticketId=%s",
-                    counterField.getText().trim(), encode(selected.id())));
-            String number = selected.label();
-            if (response != null) {
-                number = response.path("number").asText(number);
-            }
-            setStatus("Nomor " + number + " dihentikan dan tidak dilanjutkan.", false);
-            refreshCurrentStatus();
-        });
+        TicketOption selected = getSelectedTicket();
+        if (selected == null) {
+            setStatus("Tidak ada nomor aktif untuk dihentikan.", true);
+            return;
+        }
+        perform(String.format("/api/counters/%s/stop?ticketId=%s", encode(counterId), encode(selected.id())),
+                response -> {
+                    String number = response == null ? selected.label() : response.path("number").asText(selected.label());
+                    setStatus("Nomor " + number + " dihentikan dan tidak dilanjutkan.", false);
+                });
     }
 
-    private void refreshCurrentStatus() {
+    /**
+     * Mengikuti loket dan server pada form: langganan stream loket lama ditutup dan status loket baru dimuat.
+     */
+    private void watchCounter() {
+        String server = baseUrl();
         String counterId = counterField.getText().trim();
+        if (server.equals(watchedServer) && counterId.equals(watchedCounter)) {
+            return;
+        }
+        if (eventStream != null) {
+            eventStream.close();
+            eventStream = null;
+        }
+        watchedServer = server;
+        watchedCounter = counterId;
+        watchGeneration++;
+        counterETag = null;
+        applyCounter(null);
         if (counterId.isEmpty()) {
             return;
         }
         try {
-            JsonNode counters = get("/api/counters");
-            if (counters != null && counters.isArray()) {
-                for (JsonNode counter : counters) {
-                    if (counterId.equalsIgnoreCase(counter.path("id").asText())) {
-                        updateCurrentTicketLabel(counter);
-                        updateActiveSelector(counter);
-                        break;
-                    }
-                }
+            eventStream = new CounterEventStream(httpClient, server, counterId,
+                    () -> SwingUtilities.invokeLater(this::refreshCurrentStatus),
+                    connected -> SwingUtilities.invokeLater(() -> streamConnectionChanged(connected)));
+        } catch (IllegalArgumentException ex) {
+            setStatus("URL server tidak valid: " + server, true);
+            return;
+        }
+        eventStream.start();
+        refreshCurrentStatus();
+    }
+
+    private void streamConnectionChanged(boolean connected) {
+        if (!connected) {
+            setStatus(CONNECTION_LOST_MESSAGE, true);
+        } else if (CONNECTION_LOST_MESSAGE.equals(statusMessage.getText())) {
+            setStatus(" ", false);
+        }
+    }
+
+    /**
+     * Memuat status loket yang diikuti tanpa memblokir EDT. Permintaan yang datang selagi satu permintaan berjalan
+     * digabung menjadi satu pemuatan berikutnya; {@code If-None-Match} membuat server cukup menjawab 304 bila
+     * antrean belum berubah.
+     */
+    private void refreshCurrentStatus() {
+        if (watchedCounter.isEmpty()) {
+            return;
+        }
+        if (refreshing) {
+            refreshPending = true;
+            return;
+        }
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(buildUrl("/api/counters/" + encode(watchedCounter) + "?waitingLimit=0")))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET();
+            if (counterETag != null) {
+                builder.header("If-None-Match", counterETag);
             }
-        } catch (Exception ex) {
+            request = builder.build();
+        } catch (IllegalArgumentException ex) {
+            setStatus("URL server tidak valid: " + watchedServer, true);
+            return;
+        }
+        refreshing = true;
+        long generation = watchGeneration;
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                    refreshing = false;
+                    if (generation == watchGeneration) {
+                        applyStatusResponse(response, error);
+                    }
+                    if (refreshPending) {
+                        refreshPending = false;
+                        refreshCurrentStatus();
+                    }
+                }));
+    }
+
+    private void applyStatusResponse(HttpResponse<String> response, Throwable error) {
+        if (error == null && response.statusCode() == 304) {
+            return;
+        }
+        try {
+            JsonNode counter = readResponse(response, error);
+            counterETag = response.headers().firstValue("ETag").orElse(null);
+            applyCounter(counter);
+        } catch (IOException ex) {
             setStatus("Gagal memuat status: " + ex.getMessage(), true);
         }
     }
 
+    private void applyCounter(JsonNode counterNode) {
+        updateCurrentTicketLabel(counterNode);
+        updateActiveSelector(counterNode);
+    }
+
     private void updateCurrentTicketLabel(JsonNode counterNode) {
         if (counterNode == null || counterNode.isMissingNode()) {
             currentTicketLabel.setText("Nomor Saat Ini: -");
@@ -272,93 +397,159 @@ public final class CounterCallerApp {
         return patientType;
     }
 
+    /**
+     * Menyamakan dropdown dengan nomor aktif terbaru: hanya nomor yang hilang, baru, atau berubah label yang
+     * disentuh, dan pilihan operator dipertahankan selama nomornya masih aktif.
+     */
     private void updateActiveSelector(JsonNode counterNode) {
         if (activeTicketsModel == null || activeTicketCombo == null) {
             return;
         }
-        activeTicketsModel.removeAllElements();
-        JsonNode active = counterNode.path("activeTickets");
-        if (active.isArray()) {
+        List<TicketOption> options = new ArrayList<>();
+        JsonNode active = counterNode == null ? null : counterNode.path("activeTickets");
+        if (active != null && active.isArray()) {
             for (JsonNode node : active) {
                 String id = node.path("id").asText();
                 String number = node.path("number").asText("-");
                 String patientType = formatPatientType(node.path("patientType").asText());
                 String label = patientType.isEmpty() ? number : number + " (" + patientType + ")";
                 if (id != null && !id.isBlank()) {
-                    activeTicketsModel.addElement(new TicketOption(id, label));
+                    options.add(new TicketOption(id, label));
                 }
             }
         }
+        TicketOption selected = getSelectedTicket();
+        String selectedId = selected == null ? null : selected.id();
+
+        Set<String> activeIds = options.stream().map(TicketOption::id).collect(Collectors.toSet());
+        for (int i = activeTicketsModel.getSize() - 1; i >= 0; i--) {
+            if (!activeIds.contains(activeTicketsModel.getElementAt(i).id())) {
+                activeTicketsModel.removeElementAt(i);
+            }
+        }
+        for (int i = 0; i < options.size(); i++) {
+            TicketOption option = options.get(i);
+            if (i < activeTicketsModel.getSize() && option.equals(activeTicketsModel.getElementAt(i))) {
+                continue;
+            }
+            int existing = indexOfTicket(option.id());
+            if (existing >= 0) {
+                activeTicketsModel.removeElementAt(existing);
+            }
+            activeTicketsModel.insertElementAt(option, i);
+        }
+
         boolean hasActive = activeTicketsModel.getSize() > 0;
-        activeTicketCombo.setEnabled(hasActive);
-        if (hasActive) {
-            activeTicketCombo.setSelectedIndex(0);
-        } else {
-            activeTicketCombo.setSelectedItem(null);
+        if (activeTicketCombo.isEnabled() != hasActive) {
+            activeTicketCombo.setEnabled(hasActive);
+        }
+        int keep = selectedId == null ? -1 : indexOfTicket(selectedId);
+        TicketOption target = hasActive ? activeTicketsModel.getElementAt(Math.max(keep, 0)) : null;
+        if (activeTicketsModel.getSelectedItem() != target) {
+            activeTicketsModel.setSelectedItem(target);
         }
     }
 
-    private void withLoading(Runnable action) {
-        String counterId = counterField.getText().trim();
-        if (counterId.isEmpty()) {
-            JOptionPane.showMessageDialog(frame, "Masukkan ID loket terlebih dahulu.", "Validasi", JOptionPane.WARNING_MESSAGE);
-            return;
+    private int indexOfTicket(String id) {
+        for (int i = 0; i < activeTicketsModel.getSize(); i++) {
+            if (activeTicketsModel.getElementAt(i).id().equals(id)) {
+                return i;
+            }
         }
-        try {
-            action.run();
-        } catch (Exception ex) {
-            setStatus(ex.getMessage(), true);
+        return -1;
+    }
+
+    private String requireCounterId() {
+        watchCounter();
+        if (watchedCounter.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Masukkan ID loket terlebih dahulu.", "Validasi", JOptionPane.WARNING_MESSAGE);
+            return null;
         }
+        return watchedCounter;
     }
 
-    private JsonNode post(String path) {
+    /**
+     * Menjalankan operasi loket secara asinkron; tombol dinonaktifkan sampai server menjawab dan hasilnya
+     * diterapkan di EDT, lalu status loket dimuat ulang. Setiap operasi membawa {@code Idempotency-Key} sendiri,
+     * sehingga bila koneksi gagal permintaan diulang sekali tanpa risiko memanggil pasien dua kali.
+     */
+    private void perform(String path, Consumer<JsonNode> onSuccess) {
+        HttpRequest request;
         try {
-            HttpRequest request = HttpRequest.newBuilder()
+            request = HttpRequest.newBuilder()
                     .uri(URI.create(buildUrl(path)))
                     .timeout(REQUEST_TIMEOUT)
+                    .header(IDEMPOTENCY_KEY_HEADER, UUID.randomUUID().toString())
                     .POST(HttpRequest.BodyPublishers.noBody())
                     .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 204) {
-                setStatus("Tidak ada data untuk operasi ini.", true);
-                return null;
-            }
-            if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                if (response.body() == null || response.body().isBlank()) {
-                    return null;
+        } catch (IllegalArgumentException ex) {
+            setStatus("URL server tidak valid: " + watchedServer, true);
+            return;
+        }
+        setActionsEnabled(false);
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> error == null
+                        ? CompletableFuture.completedFuture(response)
+                        : httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenCompose(Function.identity())
+                .whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+                    setActionsEnabled(true);
+                    try {
+                        JsonNode body = readResponse(response, error);
+                        if (response.statusCode() == 204) {
+                            setStatus("Tidak ada data untuk operasi ini.", true);
+                        } else {
+                            onSuccess.accept(body);
+                        }
+                    } catch (IOException ex) {
+                        setStatus(ex.getMessage(), true);
+                    }
+                    refreshCurrentStatus();
+                }));
+    }
+
+    /**
+     * @return isi JSON respons 2xx, atau {@code null} bila kosong
+     * @throws IOException berisi pesan yang siap ditampilkan bila koneksi gagal atau server menolak
+     */
+    private JsonNode readResponse(HttpResponse<String> response, Throwable error) throws IOException {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String detail = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+            throw new IOException("Gagal terhubung ke server: " + detail, cause);
+        }
+        String body = response.body();
+        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            return body == null || body.isBlank() ? null : objectMapper.readTree(body);
+        }
+        String message = "Gagal memanggil API (" + response.statusCode() + ")";
+        if (body != null && !body.isBlank()) {
+            try {
+                JsonNode errorNode = objectMapper.readTree(body);
+                if (errorNode.has("error")) {
+                    message = errorNode.get("error").asText();
                 }
-                return objectMapper.readTree(response.body());
+            } catch (IOException ex) {
+                // Bukan JSON; pakai pesan umum.
             }
-            JsonNode error = response.body() == null ? null : objectMapper.readTree(response.body());
-            String message = error != null && error.has("error") ? error.get("error").asText() : "Gagal memanggil API (" + response.statusCode() + ")";
-            throw new IOException(message);
-        } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Operasi dibatalkan.", ex);
-        } catch (IOException ex) {
-            throw new RuntimeException("Gagal terhubung ke server: " + ex.getMessage(), ex);
         }
+        throw new IOException(message);
     }
 
-    private JsonNode get(String path) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(buildUrl(path)))
-                .timeout(REQUEST_TIMEOUT)
-                .GET()
-                .build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() >= 200 && response.statusCode() < 300 && response.body() != null && !response.body().isBlank()) {
-            return objectMapper.readTree(response.body());
-        }
-        return null;
+    private void setActionsEnabled(boolean enabled) {
+        actionButtons.forEach(button -> button.setEnabled(enabled));
     }
 
-    private String buildUrl(String path) {
+    private String baseUrl() {
         String baseUrl = serverField.getText().trim();
         if (baseUrl.endsWith("/")) {
             baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
         }
-        return baseUrl + path;
+        return baseUrl;
+    }
+
+    private String buildUrl(String path) {
+        return watchedServer + path;
     }
 
     private void setStatus(String message, boolean isError) {
@@ -433,6 +624,23 @@ public final class CounterCallerApp {
             return label;
         }
 
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof TicketOption)) {
+                return false;
+            }
+            TicketOption that = (TicketOption) other;
+            return id.equals(that.id) && label.equals(that.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, label);
+        }
+
         @Override
         public String toString() {
             return label;
@@ -0,0 +1,142 @@
+package com.panggilan.desktop;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Langganan {@code /api/stream} untuk satu loket. Berjalan di thread daemon sendiri dan tersambung ulang dengan
+ * {@code Last-Event-ID} bila koneksi putus, sehingga EDT tidak pernah menunggu jaringan. Setiap event (termasuk
+ * {@code resync}) hanya diteruskan sebagai tanda bahwa status loket perlu dimuat ulang.
+ */
+final class CounterEventStream {
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final Runnable onChange;
+    private final Consumer<Boolean> onConnectionChange;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile boolean connected;
+    private volatile Stream<String> lines;
+    private String lastEventId;
+
+    CounterEventStream(HttpClient httpClient, String baseUrl, String counterId,
+                       Runnable onChange, Consumer<Boolean> onConnectionChange) {
+        this.httpClient = httpClient;
+        this.uri = URI.create(baseUrl + "/api/stream?counter=" + URLEncoder.encode(counterId, StandardCharsets.UTF_8));
+        this.onChange = onChange;
+        this.onConnectionChange = onConnectionChange;
+        this.thread = new Thread(this::run, "counter-stream-" + counterId);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    void close() {
+        closed = true;
+        thread.interrupt();
+        Stream<String> current = lines;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void run() {
+        long backoffMillis = MIN_BACKOFF.toMillis();
+        while (!closed) {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                        .header("Accept", "text/event-stream")
+                        .GET();
+                if (lastEventId != null) {
+                    request.header("Last-Event-ID", lastEventId);
+                }
+                HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+                if (response.statusCode() != 200) {
+                    response.body().close();
+                    throw new IOException("Stream antrean menjawab " + response.statusCode());
+                }
+                lines = response.body();
+                if (closed) {
+                    lines.close();
+                    return;
+                }
+                setConnected(true);
+                backoffMillis = MIN_BACKOFF.toMillis();
+                read(response.body());
+            } catch (IOException | UncheckedIOException ex) {
+                // Diulang setelah jeda di bawah.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lines = null;
+                setConnected(false);
+            }
+            if (closed) {
+                return;
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF.toMillis());
+        }
+    }
+
+    private void read(Stream<String> body) {
+        try (body) {
+            Iterator<String> iterator = body.iterator();
+            String id = null;
+            boolean hasData = false;
+            while (!closed && iterator.hasNext()) {
+                String line = iterator.next();
+                if (line.isEmpty()) {
+                    // Baris kosong menutup satu event; komentar heartbeat tidak membawa data.
+                    if (hasData) {
+                        if (id != null) {
+                            lastEventId = id;
+                        }
+                        onChange.run();
+                    }
+                    id = null;
+                    hasData = false;
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("data:")) {
+                    hasData = true;
+                }
+            }
+        }
+    }
+
+    private void setConnected(boolean value) {
+        if (connected != value) {
+            connected = value;
+            if (!closed) {
+                onConnectionChange.accept(value);
+            }
+        }
+    }
+}
@@ -1,17 +1,32 @@
 package com.panggilan.loket;
 
+import com.panggilan.loket.config.AnnouncementAudioProperties;
+import com.panggilan.loket.config.AuditProperties;
 import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.config.QueueClusterProperties;
+import com.panggilan.loket.config.QueueJournalProperties;
 import com.panggilan.loket.config.TicketPrintProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties({CounterProperties.class, TicketPrintProperties.class})
+@EnableConfigurationProperties({
+        CounterProperties.class,
+        TicketPrintProperties.class,
+        QueueJournalProperties.class,
+        QueueClusterProperties.class,
+        AuditProperties.class,
+        AnnouncementAudioProperties.class
+})
 public class PanggilanLoketApplication {
 
     public static void main(String[] args) {
-        System.setProperty("java.awt.headless", "false");
+        // Cetak AWT membutuhkan sesi desktop; server tanpa layar (backend ESC/POS) dapat menjalankan
+        // aplikasi dengan -Djava.awt.headless=true.
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "false");
+        }
         SpringApplication.run(PanggilanLoketApplication.class, args);
     }
 }
@@ -0,0 +1,76 @@
+package com.panggilan.loket.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "announcement.audio")
+public class AnnouncementAudioProperties {
+
+    private boolean enabled = true;
+    // Rekaman WAV per kata/angka/nama loket, mis. nomor-antrean.wav, l.wav, tiga.wav, loket-b.wav.
+    private String segmentsDir = "data/announcement/segments";
+    // Hasil rangkaian; isinya dibuang saat aplikasi mulai karena indeks cache hanya ada di memori.
+    private String cacheDir = "data/announcement/cache";
+    private int cacheMaxEntries = 500;
+    private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+    private Duration wordGap = Duration.ofMillis(80);
+    private Duration phraseGap = Duration.ofMillis(350);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSegmentsDir() {
+        return segmentsDir;
+    }
+
+    public void setSegmentsDir(String segmentsDir) {
+        this.segmentsDir = segmentsDir;
+    }
+
+    public String getCacheDir() {
+        return cacheDir;
+    }
+
+    public void setCacheDir(String cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    public DataSize getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(DataSize cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public Duration getWordGap() {
+        return wordGap;
+    }
+
+    public void setWordGap(Duration wordGap) {
+        this.wordGap = wordGap;
+    }
+
+    public Duration getPhraseGap() {
+        return phraseGap;
+    }
+
+    public void setPhraseGap(Duration phraseGap) {
+        this.phraseGap = phraseGap;
+    }
+}
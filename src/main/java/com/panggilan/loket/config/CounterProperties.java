@@ -1,5 +1,6 @@
 package com.panggilan.loket.config;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,6 +10,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class CounterProperties {
 
     private List<CounterDefinition> counters = new ArrayList<>();
+    private Estimate estimate = new Estimate();
+    private Announcements announcements = new Announcements();
+    private Idempotency idempotency = new Idempotency();
 
     public List<CounterDefinition> getCounters() {
         return counters;
@@ -18,6 +22,30 @@ public class CounterProperties {
         this.counters = counters;
     }
 
+    public Estimate getEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(Estimate estimate) {
+        this.estimate = estimate;
+    }
+
+    public Announcements getAnnouncements() {
+        return announcements;
+    }
+
+    public void setAnnouncements(Announcements announcements) {
+        this.announcements = announcements;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
+
     public static class CounterDefinition {
         private String id;
         private String name;
@@ -38,4 +66,78 @@ public class CounterProperties {
             this.name = name;
         }
     }
+
+    /**
+     * Pengaturan perkiraan waktu tunggu.
+     */
+    public static class Estimate {
+        // Dipakai sampai loket memiliki sampel lama layanan sendiri.
+        private Duration defaultServiceTime = Duration.ofMinutes(3);
+        private double smoothing = 0.2;
+        private int window = 50;
+
+        public Duration getDefaultServiceTime() {
+            return defaultServiceTime;
+        }
+
+        public void setDefaultServiceTime(Duration defaultServiceTime) {
+            this.defaultServiceTime = defaultServiceTime;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+    }
+
+    /**
+     * Log pengumuman panggilan yang dibaca display dari kursornya masing-masing.
+     */
+    public static class Announcements {
+        private int capacity = 500;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Hasil terakhir permintaan yang membawa header {@code Idempotency-Key}, untuk menjawab klik ganda dan
+     * pengulangan klien tanpa menjalankan operasi antrean lagi.
+     */
+    public static class Idempotency {
+        private int capacity = 1000;
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.panggilan.loket.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "printer.ticket")
@@ -11,6 +15,12 @@ public class TicketPrintProperties {
     private int headerFontSize = 16;
     private int ticketFontSize = 48;
     private int footerFontSize = 12;
+    private Backend backend = Backend.AWT;
+    private EscPos escpos = new EscPos();
+    private Queue queue = new Queue();
+    // Printer bernama, mis. satu per kiosk; kosong berarti satu printer "default".
+    private List<PrinterDefinition> printers = new ArrayList<>();
+    private Duration discoveryRefresh = Duration.ofMinutes(1);
 
     public boolean isEnabled() {
         return enabled;
@@ -59,4 +69,276 @@ public class TicketPrintProperties {
     public void setFooterFontSize(int footerFontSize) {
         this.footerFontSize = footerFontSize;
     }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    public EscPos getEscpos() {
+        return escpos;
+    }
+
+    public void setEscpos(EscPos escpos) {
+        this.escpos = escpos;
+    }
+
+    public Queue getQueue() {
+        return queue;
+    }
+
+    public void setQueue(Queue queue) {
+        this.queue = queue;
+    }
+
+    public List<PrinterDefinition> getPrinters() {
+        return printers;
+    }
+
+    public void setPrinters(List<PrinterDefinition> printers) {
+        this.printers = printers;
+    }
+
+    public Duration getDiscoveryRefresh() {
+        return discoveryRefresh;
+    }
+
+    public void setDiscoveryRefresh(Duration discoveryRefresh) {
+        this.discoveryRefresh = discoveryRefresh;
+    }
+
+    /**
+     * Jalur cetak tiket: {@code AWT} melalui printer default sistem (butuh sesi desktop), atau {@code ESCPOS}
+     * yang mengirim perintah mentah langsung ke printer thermal.
+     */
+    public enum Backend {
+        AWT,
+        ESCPOS
+    }
+
+    /**
+     * Tujuan pengiriman byte ESC/POS.
+     */
+    public enum Transport {
+        DEVICE,
+        TCP,
+        CUPS
+    }
+
+    /**
+     * Pengaturan printer thermal ESC/POS.
+     */
+    public static class EscPos {
+        private Transport transport = Transport.DEVICE;
+        private String device = "/dev/usb/lp0";
+        private String host;
+        private int port = 9100;
+        // Nama antrean CUPS; pekerjaan dikirim dengan "lp -o raw".
+        private String cupsQueue;
+        private Duration timeout = Duration.ofSeconds(5);
+        // 576 titik untuk kertas 80 mm, 384 titik untuk kertas 58 mm.
+        private int paperWidthDots = 576;
+        private int charactersPerLine = 48;
+        // Gambar logo (PNG/JPG) opsional yang dicetak di atas nama instansi.
+        private String logo;
+        private boolean cut = true;
+
+        public Transport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public void setDevice(String device) {
+            this.device = device;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public String getCupsQueue() {
+            return cupsQueue;
+        }
+
+        public void setCupsQueue(String cupsQueue) {
+            this.cupsQueue = cupsQueue;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getPaperWidthDots() {
+            return paperWidthDots;
+        }
+
+        public void setPaperWidthDots(int paperWidthDots) {
+            this.paperWidthDots = paperWidthDots;
+        }
+
+        public int getCharactersPerLine() {
+            return charactersPerLine;
+        }
+
+        public void setCharactersPerLine(int charactersPerLine) {
+            this.charactersPerLine = charactersPerLine;
+        }
+
+        public String getLogo() {
+            return logo;
+        }
+
+        public void setLogo(String logo) {
+            this.logo = logo;
+        }
+
+        public boolean isCut() {
+            return cut;
+        }
+
+        public void setCut(boolean cut) {
+            this.cut = cut;
+        }
+    }
+
+    /**
+     * Satu printer bernama dengan pekerja dan antrean cetaknya sendiri.
+     */
+    public static class PrinterDefinition {
+        private String id;
+        // Nama print service sistem untuk backend AWT; kosong berarti printer default sistem.
+        private String serviceName;
+        // Tujuan ESC/POS khusus printer ini; kosong berarti memakai printer.ticket.escpos.
+        private EscPos escpos;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        public void setServiceName(String serviceName) {
+            this.serviceName = serviceName;
+        }
+
+        public EscPos getEscpos() {
+            return escpos;
+        }
+
+        public void setEscpos(EscPos escpos) {
+            this.escpos = escpos;
+        }
+    }
+
+    /**
+     * Pengaturan antrean cetak di depan setiap printer.
+     */
+    public static class Queue {
+        // Jumlah tiket tertunda maksimum; tiket berikutnya ditolak dan tercatat gagal.
+        private int capacity = 200;
+        private int maxRetries = 5;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        // Lama menunggu tiket lain agar lonjakan dicetak sebagai satu pekerjaan.
+        private Duration coalesceWindow = Duration.ofMillis(100);
+        private int maxJobTickets = 20;
+        private Duration drainTimeout = Duration.ofSeconds(10);
+        private int history = 50;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getCoalesceWindow() {
+            return coalesceWindow;
+        }
+
+        public void setCoalesceWindow(Duration coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+        }
+
+        public int getMaxJobTickets() {
+            return maxJobTickets;
+        }
+
+        public void setMaxJobTickets(int maxJobTickets) {
+            this.maxJobTickets = maxJobTickets;
+        }
+
+        public Duration getDrainTimeout() {
+            return drainTimeout;
+        }
+
+        public void setDrainTimeout(Duration drainTimeout) {
+            this.drainTimeout = drainTimeout;
+        }
+
+        public int getHistory() {
+            return history;
+        }
+
+        public void setHistory(int history) {
+            this.history = history;
+        }
+    }
 }
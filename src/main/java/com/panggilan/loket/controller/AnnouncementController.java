@@ -0,0 +1,143 @@
+package com.panggilan.loket.controller;
+
+import com.panggilan.loket.model.AnnouncementFeed;
+import com.panggilan.loket.model.CounterSnapshot;
+import com.panggilan.loket.service.AnnouncementAudioService;
+import com.panggilan.loket.service.QueueService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Log pengumuman panggilan untuk display dan suara pengumuman yang dirangkai server, agar layar cukup
+ * memutar sebuah URL.
+ */
+@RestController
+@RequestMapping("/api/announcements")
+public class AnnouncementController {
+
+    private final AnnouncementAudioService audioService;
+    private final QueueService queueService;
+
+    public AnnouncementController(AnnouncementAudioService audioService, QueueService queueService) {
+        this.audioService = audioService;
+        this.queueService = queueService;
+    }
+
+    /**
+     * Pengumuman setelah kursor {@code after}; display menyimpan {@code cursor} dari respons untuk permintaan
+     * berikutnya sehingga panggilan yang berdekatan tetap diputar semuanya.
+     */
+    @GetMapping
+    public AnnouncementFeed announcements(@RequestParam(value = "after", required = false) String after,
+                                          @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return queueService.getAnnouncements(after, limit);
+    }
+
+    /**
+     * WAV pengumuman untuk nomor tiket dan loket. Mendukung satu rentang {@code Range: bytes=...}; permintaan
+     * beberapa rentang sekaligus dijawab dengan file utuh.
+     * <p>
+     * Isi dikirim dari kanal yang dibuka saat klip diambil, bukan lewat sendfile Tomcat yang baru membuka file
+     * setelah servlet selesai, karena saat itu file bisa sudah dibuang dari cache oleh perenderan lain. Browser
+     * diminta selalu memvalidasi ulang ETag agar rekaman segmen yang diganti langsung terdengar.
+     */
+    @GetMapping("/audio")
+    public void audio(@RequestParam("number") String number,
+                      @RequestParam("counter") String counterId,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        String counterName = queueService.getSnapshot().stream()
+                .filter(counter -> counter.getId().equalsIgnoreCase(counterId.trim()))
+                .map(CounterSnapshot::getName)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Loket " + counterId + " tidak ditemukan"));
+        try (AnnouncementAudioService.Clip clip = audioService.clip(number, counterName)) {
+            send(clip, request, response);
+        }
+    }
+
+    private static void send(AnnouncementAudioService.Clip clip, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        String etag = "\"" + clip.getTag() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = clip.getLength();
+        long start = 0;
+        long end = length;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        long[] range = ifRange == null || ifRange.equals(etag)
+                ? parseRange(request.getHeader(HttpHeaders.RANGE), length)
+                : null;
+        if (range != null) {
+            if (range.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentType("audio/wav");
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        FileChannel channel = clip.getChannel();
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, out);
+            if (sent <= 0) {
+                break;
+            }
+            position += sent;
+        }
+    }
+
+    /**
+     * @return {@code null} bila tidak ada rentang tunggal yang dapat dipakai (kirim file utuh), larik kosong
+     * bila rentang di luar file, atau {awal, akhir eksklusif}
+     */
+    static long[] parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                return suffix <= 0 || length == 0 ? new long[0] : new long[]{Math.max(length - suffix, 0), length};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length : Math.min(Long.parseLong(last) + 1, length);
+            return start >= length || end <= start ? new long[0] : new long[]{start, end};
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
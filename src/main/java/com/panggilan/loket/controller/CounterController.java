@@ -1,130 +1,354 @@
 package com.panggilan.loket.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.dto.BatchTicketRequest;
 import com.panggilan.loket.dto.CreateCounterRequest;
 import com.panggilan.loket.model.CounterSnapshot;
 import com.panggilan.loket.model.PatientType;
-import com.panggilan.loket.model.QueueStatus;
 import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketStatus;
 import com.panggilan.loket.service.QueueService;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
 public class CounterController {
 
     private final QueueService queueService;
+    private final ObjectMapper objectMapper;
+    private final VersionedJsonCache countersJson;
+    private final VersionedJsonCache queueStatusJson;
+    private final IdempotencyCache idempotencyCache;
 
-    public CounterController(QueueService queueService) {
+    public CounterController(QueueService queueService, ObjectMapper objectMapper, CounterProperties properties) {
         this.queueService = queueService;
+        this.objectMapper = objectMapper;
+        this.countersJson = new VersionedJsonCache(objectMapper);
+        this.queueStatusJson = new VersionedJsonCache(objectMapper);
+        this.idempotencyCache = new IdempotencyCache(properties.getIdempotency());
     }
 
+    /**
+     * Tanpa parameter, seluruh daftar tunggu setiap loket ikut dikirim. {@code waitingLimit} membatasi jumlah
+     * tiket menunggu per loket dan {@code fields} memilih properti loket yang dikirim (mis. {@code id,name,waitingCount}).
+     */
     @GetMapping("/counters")
-    public List<CounterSnapshot> listCounters() {
-        return queueService.getSnapshot();
+    public ResponseEntity<byte[]> listCounters(
+            @RequestParam(value = "waitingLimit", required = false) Integer waitingLimit,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (waitingLimit == null && fields == null) {
+            return versionedResponse(ifNoneMatch, version -> countersJson.get(version, queueService::getSnapshot));
+        }
+        return versionedResponse(ifNoneMatch, version -> {
+            JsonNode counters = objectMapper.valueToTree(waitingLimit == null
+                    ? queueService.getSnapshot()
+                    : queueService.getSnapshot(waitingLimit));
+            Set<String> names = fieldNames(fields);
+            counters.forEach(counter -> select(counter, names));
+            return toJson(counters);
+        });
+    }
+
+    /**
+     * Status satu loket; klien desktop memakainya agar tidak mengunduh seluruh loket untuk mencari loketnya.
+     */
+    @GetMapping("/counters/{counterId}")
+    public ResponseEntity<byte[]> counter(
+            @PathVariable String counterId,
+            @RequestParam(value = "waitingLimit", required = false) Integer waitingLimit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return versionedResponse(ifNoneMatch, version -> toJson(queueService.getCounter(counterId,
+                waitingLimit == null ? Integer.MAX_VALUE : waitingLimit)));
     }
 
     @PostMapping("/counters")
-    public ResponseEntity<CounterSnapshot> createCounter(@Valid @RequestBody CreateCounterRequest request) {
-        CounterSnapshot snapshot = queueService.createCounter(request.getId(), request.getName());
-        return ResponseEntity.status(HttpStatus.CREATED).body(snapshot);
+    public ResponseEntity<?> createCounter(
+            @Valid @RequestBody CreateCounterRequest request,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, request, () -> {
+            CounterSnapshot snapshot = queueService.createCounter(request.getId(), request.getName());
+            return ResponseEntity.status(HttpStatus.CREATED).body(snapshot);
+        });
     }
 
     @PostMapping("/tickets")
-    public ResponseEntity<Ticket> issueTicket(
-            @RequestParam(value = "patientType", required = false) String patientTypeParam) {
-        PatientType patientType = PatientType.fromString(patientTypeParam);
-        Ticket ticket = queueService.issueTicket(patientType);
-        return ResponseEntity.status(HttpStatus.CREATED).body(ticket);
+    public ResponseEntity<?> issueTicket(
+            @RequestParam(value = "patientType", required = false) String patientTypeParam,
+            @RequestParam(value = "printer", required = false) String printer,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            PatientType patientType = PatientType.fromString(patientTypeParam);
+            Ticket ticket = queueService.issueTicket(patientType, printer);
+            return ResponseEntity.status(HttpStatus.CREATED).body(ticket);
+        });
+    }
+
+    @PostMapping("/tickets/batch")
+    public ResponseEntity<?> issueTickets(
+            @Valid @RequestBody BatchTicketRequest request,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        // Satu nilai salah ketik tidak boleh mengubah seluruh kelompok menjadi LAMA.
+        List<PatientType> patientTypes = request.getPatientTypes().stream()
+                .map(value -> PatientType.find(value).orElseThrow(() -> new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "Jenis pasien " + value + " tidak dikenal, gunakan "
+                        + Arrays.toString(PatientType.values()))))
+                .collect(Collectors.toList());
+        return idempotent(idempotencyKey, httpRequest, request, () ->
+                ResponseEntity.status(HttpStatus.CREATED).body(queueService.issueTickets(patientTypes, request.getPrinter())));
+    }
+
+    @GetMapping("/tickets/{idOrNumber}")
+    public ResponseEntity<TicketStatus> ticketStatus(@PathVariable String idOrNumber) {
+        TicketStatus status = queueService.findTicket(idOrNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Tiket " + idOrNumber + " tidak ditemukan"));
+        return ResponseEntity.ok(status);
     }
 
     @PostMapping("/queue/call-next")
-    public ResponseEntity<?> callNext() {
-        try {
-            return queueService.callNextFirstCounter()
-                    .map(ResponseEntity::ok)
-                    .orElseGet(() -> ResponseEntity.noContent().build());
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("error", ex.getMessage()));
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", ex.getMessage()));
-        }
+    public ResponseEntity<?> callNext(
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            try {
+                return queueService.callNextFirstCounter()
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.noContent().build());
+            } catch (IllegalStateException ex) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", ex.getMessage()));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/counters/{counterId}/call-next")
-    public ResponseEntity<?> callNextForCounter(@PathVariable String counterId) {
-        try {
-            return queueService.callNext(counterId)
-                    .map(ResponseEntity::ok)
-                    .orElseGet(() -> ResponseEntity.noContent().build());
-        } catch (IllegalStateException ex) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("error", ex.getMessage()));
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", ex.getMessage()));
-        }
+    public ResponseEntity<?> callNextForCounter(
+            @PathVariable String counterId,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            try {
+                return queueService.callNext(counterId)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.noContent().build());
+            } catch (IllegalStateException ex) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", ex.getMessage()));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/counters/{counterId}/recall")
-    public ResponseEntity<?> recall(@PathVariable String counterId,
-                                    @RequestParam(value = "ticketId", required = false) String ticketId) {
-        try {
-            return queueService.recall(counterId, ticketId)
-                    .map(ResponseEntity::ok)
-                    .orElseGet(() -> ResponseEntity.noContent().build());
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", ex.getMessage()));
-        }
+    public ResponseEntity<?> recall(
+            @PathVariable String counterId,
+            @RequestParam(value = "ticketId", required = false) String ticketId,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            try {
+                return queueService.recall(counterId, ticketId)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.noContent().build());
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/counters/{counterId}/complete")
-    public ResponseEntity<?> complete(@PathVariable String counterId,
-                                      @RequestParam(value = "ticketId", required = false) String ticketId) {
-        try {
-            queueService.complete(counterId, ticketId);
-            return ResponseEntity.accepted().build();
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", ex.getMessage()));
-        }
+    public ResponseEntity<?> complete(
+            @PathVariable String counterId,
+            @RequestParam(value = "ticketId", required = false) String ticketId,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            try {
+                queueService.complete(counterId, ticketId);
+                return ResponseEntity.accepted().build();
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
     @PostMapping("/counters/{counterId}/stop")
-    public ResponseEntity<?> stop(@PathVariable String counterId,
-                                  @RequestParam(value = "ticketId", required = false) String ticketId) {
-        try {
-            return queueService.stop(counterId, ticketId)
-                    .map(ResponseEntity::ok)
-                    .orElseGet(() -> ResponseEntity.noContent().build());
-        } catch (IllegalArgumentException ex) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(Map.of("error", ex.getMessage()));
-        }
+    public ResponseEntity<?> stop(
+            @PathVariable String counterId,
+            @RequestParam(value = "ticketId", required = false) String ticketId,
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            try {
+                return queueService.stop(counterId, ticketId)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.noContent().build());
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", ex.getMessage()));
+            }
+        });
     }
 
+    /**
+     * Tanpa parameter, seluruh daftar tunggu ikut dikirim. {@code offset}/{@code limit} mengirim sebagian daftar
+     * tunggu ({@code limit=0} hanya jumlah per jenis pasien) dan {@code fields} memilih properti tiket di
+     * {@code waitingQueue} (mis. {@code number,patientType}).
+     */
     @GetMapping("/queue/status")
-    public QueueStatus queueStatus() {
-        return queueService.getQueueStatus();
+    public ResponseEntity<byte[]> queueStatus(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (offset == 0 && limit == null && fields == null) {
+            return versionedResponse(ifNoneMatch, version -> queueStatusJson.get(version, queueService::getQueueStatus));
+        }
+        return versionedResponse(ifNoneMatch, version -> {
+            JsonNode status = objectMapper.valueToTree(limit == null && offset == 0
+                    ? queueService.getQueueStatus()
+                    : queueService.getQueueStatus(offset, limit == null ? Integer.MAX_VALUE : limit));
+            Set<String> names = fieldNames(fields);
+            status.path("waitingQueue").forEach(ticket -> select(ticket, names));
+            return toJson(status);
+        });
+    }
+
+    /**
+     * Jumlah antrean per loket dan jenis pasien tanpa daftar tiket, untuk kiosk dan dashboard.
+     */
+    @GetMapping("/queue/counts")
+    public ResponseEntity<byte[]> queueCounts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return versionedResponse(ifNoneMatch, version -> toJson(queueService.getQueueCounts()));
     }
 
     @PostMapping("/queue/reset")
-    public ResponseEntity<Void> resetQueue() {
-        queueService.manualReset();
-        return ResponseEntity.accepted().build();
+    public ResponseEntity<?> resetQueue(
+            @RequestHeader(value = IdempotencyCache.KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        return idempotent(idempotencyKey, httpRequest, null, () -> {
+            queueService.manualReset();
+            return ResponseEntity.accepted().build();
+        });
+    }
+
+    /**
+     * Menjalankan operasi perubahan antrean sekali per {@code Idempotency-Key}; permintaan ulang dengan kunci yang
+     * sama (klik ganda, pengulangan klien) menerima respons aslinya tanpa memanggil {@link QueueService} lagi.
+     */
+    private ResponseEntity<?> idempotent(String key, HttpServletRequest request, Object body,
+                                         Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        StringBuilder fingerprint = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            fingerprint.append('?').append(request.getQueryString());
+        }
+        if (body != null) {
+            fingerprint.append(' ').append(new String(toJson(body), StandardCharsets.UTF_8));
+        }
+        return idempotencyCache.execute(key.trim(), fingerprint.toString(), action);
+    }
+
+    /**
+     * Menjawab 304 bila klien sudah memegang versi terbaru; selain itu mengirim JSON yang disimpan per versi.
+     */
+    private ResponseEntity<byte[]> versionedResponse(String ifNoneMatch, LongFunction<byte[]> body) {
+        long version = queueService.getStateVersion();
+        String eTag = "\"" + queueService.getStateTag(version) + "\"";
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.apply(version));
+    }
+
+    /**
+     * Nama properti dari parameter {@code fields} (dipisah koma), atau {@code null} bila tidak diisi.
+     */
+    private static Set<String> fieldNames(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
+    private static void select(JsonNode node, Set<String> names) {
+        if (names != null && node instanceof ObjectNode) {
+            ((ObjectNode) node).retain(names);
+        }
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Gagal menyerialisasi snapshot antrean", ex);
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
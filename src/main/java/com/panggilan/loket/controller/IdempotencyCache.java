@@ -0,0 +1,137 @@
+package com.panggilan.loket.controller;
+
+import com.panggilan.loket.config.CounterProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Menyimpan respons permintaan yang membawa {@code Idempotency-Key} selama waktu terbatas. Permintaan ulang dengan
+ * kunci yang sama mendapat respons aslinya tanpa menjalankan operasi lagi; permintaan yang tiba selagi aslinya
+ * masih berjalan (klik ganda) menunggu hasil tersebut. Operasi yang gagal dengan exception tidak disimpan sehingga
+ * boleh diulang.
+ */
+final class IdempotencyCache {
+
+    static final String KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    // Urutan sisip sama dengan urutan kedaluwarsa, jadi entri tertua selalu di depan.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    IdempotencyCache(CounterProperties.Idempotency settings) {
+        this(settings.getCapacity(), settings.getTtl(), System::nanoTime);
+    }
+
+    IdempotencyCache(int capacity, Duration ttl, LongSupplier nanoTime) {
+        this.capacity = Math.max(capacity, 1);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @param key         nilai header {@code Idempotency-Key}; tanpa kunci operasi langsung dijalankan
+     * @param fingerprint identitas permintaan (path, parameter, body); kunci yang dipakai ulang untuk permintaan
+     *                    lain ditolak dengan 422
+     */
+    ResponseEntity<?> execute(String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", KEY_HEADER + " maksimal " + MAX_KEY_LENGTH + " karakter"));
+        }
+        Entry entry;
+        boolean owner;
+        synchronized (entries) {
+            long now = nanoTime.getAsLong();
+            evictExpired(now);
+            entry = entries.get(key);
+            owner = entry == null;
+            if (owner) {
+                entry = new Entry(fingerprint, now);
+                entries.put(key, entry);
+                Iterator<Entry> eldest = entries.values().iterator();
+                while (entries.size() > capacity) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", KEY_HEADER + " " + key + " sudah dipakai untuk permintaan lain"));
+        }
+        if (!owner) {
+            return replay(entry.result);
+        }
+        try {
+            ResponseEntity<?> response = action.get();
+            entry.result.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().createdAt < ttlNanos) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static ResponseEntity<?> replay(CompletableFuture<ResponseEntity<?>> result) {
+        ResponseEntity<?> original;
+        try {
+            original = result.join();
+        } catch (CompletionException ex) {
+            // Permintaan asli gagal; laporkan kegagalan yang sama lewat penanganan exception biasa.
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+        return ResponseEntity.status(original.getStatusCodeValue())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long createdAt;
+        private final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.panggilan.loket.controller;
+
+import com.panggilan.loket.model.PrintJob;
+import com.panggilan.loket.model.PrintJobState;
+import com.panggilan.loket.model.PrinterStatus;
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.service.QueueService;
+import com.panggilan.loket.service.TicketPrinter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Status antrean cetak dan cetak ulang tiket.
+ */
+@RestController
+@RequestMapping("/api/printer")
+public class PrinterController {
+
+    private final TicketPrinter ticketPrinter;
+    private final QueueService queueService;
+
+    public PrinterController(TicketPrinter ticketPrinter, QueueService queueService) {
+        this.ticketPrinter = ticketPrinter;
+        this.queueService = queueService;
+    }
+
+    @GetMapping("/status")
+    public List<PrinterStatus> status() {
+        return ticketPrinter.status();
+    }
+
+    @PostMapping("/reprint/{idOrNumber}")
+    public ResponseEntity<?> reprint(@PathVariable String idOrNumber,
+                                     @RequestParam(value = "printer", required = false) String printer) {
+        Ticket ticket = queueService.findTicket(idOrNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Tiket " + idOrNumber + " tidak ditemukan"))
+                .getTicket();
+        if (!ticketPrinter.hasPrinter(printer)) {
+            throw new IllegalArgumentException("Printer " + printer + " tidak dikenal");
+        }
+        Optional<PrintJob> job = ticketPrinter.reprint(ticket, printer);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Cetak tiket tidak aktif"));
+        }
+        // Antrean penuh atau sedang berhenti: pekerjaan langsung tercatat gagal.
+        HttpStatus status = job.get().getState() == PrintJobState.FAILED
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(job.get());
+    }
+}
@@ -0,0 +1,31 @@
+package com.panggilan.loket.controller;
+
+import com.panggilan.loket.service.QueueEventStream;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class QueueStreamController {
+
+    private final QueueEventStream queueEventStream;
+
+    public QueueStreamController(QueueEventStream queueEventStream) {
+        this.queueEventStream = queueEventStream;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(value = "counter", required = false) List<String> counterIds,
+                             @RequestParam(value = "after", required = false) String after,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String cursor = after != null && !after.isBlank() ? after : lastEventId;
+        return queueEventStream.subscribe(counterIds, cursor);
+    }
+}
@@ -0,0 +1,70 @@
+package com.panggilan.loket.controller;
+
+import com.panggilan.loket.dto.ReportRowResponse;
+import com.panggilan.loket.model.RollupGranularity;
+import com.panggilan.loket.service.JpaTicketAuditService;
+import com.panggilan.loket.service.TicketRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Laporan dari tabel rollup; endpoint ini tidak pernah membaca {@code ticket_events} kecuali saat pengisian ulang.
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final TicketRollupService rollupService;
+    private final JpaTicketAuditService auditService;
+
+    public ReportController(TicketRollupService rollupService, JpaTicketAuditService auditService) {
+        this.rollupService = rollupService;
+        this.auditService = auditService;
+    }
+
+    @GetMapping("/hourly")
+    public List<ReportRowResponse> hourly(
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date == null ? LocalDate.now() : date;
+        return rollupService.report(RollupGranularity.HOURLY, day, day);
+    }
+
+    @GetMapping("/daily")
+    public List<ReportRowResponse> daily(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(6) : from;
+        checkRange(start, end);
+        return rollupService.report(RollupGranularity.DAILY, start, end);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkRange(from, to);
+        long processed = auditService.rebuildRollups(from, to);
+        return ResponseEntity.ok(Map.of("from", from, "to", to, "events", processed));
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from) || from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Rentang tanggal laporan tidak valid: " + from + " s.d. " + to);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.panggilan.loket.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.function.Supplier;
+
+/**
+ * Menyimpan hasil serialisasi JSON terakhir beserta versi keadaan antrean asalnya, sehingga polling
+ * berulang pada versi yang sama tidak menyerialisasi ulang snapshot.
+ */
+final class VersionedJsonCache {
+
+    private final ObjectMapper objectMapper;
+    private volatile Entry entry;
+
+    VersionedJsonCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    byte[] get(long version, Supplier<?> producer) {
+        Entry current = entry;
+        if (current != null && current.version == version) {
+            return current.body;
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(producer.get());
+            entry = new Entry(version, body);
+            return body;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Gagal menyerialisasi snapshot antrean", ex);
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final byte[] body;
+
+        private Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
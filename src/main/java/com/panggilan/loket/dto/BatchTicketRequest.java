@@ -0,0 +1,40 @@
+package com.panggilan.loket.dto;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BatchTicketRequest {
+
+    public static final int MAX_TICKETS = 100;
+
+    @NotEmpty(message = "Jenis pasien wajib diisi")
+    @Size(max = MAX_TICKETS, message = "Maksimal " + MAX_TICKETS + " tiket per permintaan")
+    private List<@NotBlank(message = "Jenis pasien tidak boleh kosong") String> patientTypes;
+
+    private String printer;
+
+    /**
+     * Jenis pasien per tiket sesuai urutan nomor, mis. {@code ["LAMA", "BARU", "BARU"]}; nilai yang tidak
+     * dikenal ditolak, tidak dianggap LAMA.
+     */
+    public List<String> getPatientTypes() {
+        return patientTypes;
+    }
+
+    public void setPatientTypes(List<String> patientTypes) {
+        this.patientTypes = patientTypes;
+    }
+
+    /**
+     * Id printer kiosk; kosong berarti printer bawaan.
+     */
+    public String getPrinter() {
+        return printer;
+    }
+
+    public void setPrinter(String printer) {
+        this.printer = printer;
+    }
+}
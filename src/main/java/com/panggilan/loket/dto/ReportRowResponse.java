@@ -0,0 +1,72 @@
+package com.panggilan.loket.dto;
+
+import com.panggilan.loket.entity.TicketRollupEntity;
+import com.panggilan.loket.model.PatientType;
+
+import java.time.LocalDateTime;
+
+public class ReportRowResponse {
+
+    private final LocalDateTime bucketStart;
+    private final String counterId;
+    private final PatientType patientType;
+    private final long issued;
+    private final long called;
+    private final long completed;
+    private final long stopped;
+    private final Double averageWaitSeconds;
+
+    public ReportRowResponse(TicketRollupEntity rollup) {
+        this.bucketStart = rollup.getBucketStart();
+        this.counterId = rollup.getCounterId().isEmpty() ? null : rollup.getCounterId();
+        this.patientType = rollup.getPatientType();
+        this.issued = rollup.getIssued();
+        this.called = rollup.getCalled();
+        this.completed = rollup.getCompleted();
+        this.stopped = rollup.getStopped();
+        this.averageWaitSeconds = rollup.getWaitSamples() == 0
+                ? null
+                : rollup.getWaitTotalMillis() / 1000.0 / rollup.getWaitSamples();
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    /**
+     * Loket terkait; {@code null} untuk baris pengambilan nomor.
+     */
+    public String getCounterId() {
+        return counterId;
+    }
+
+    public PatientType getPatientType() {
+        return patientType;
+    }
+
+    public long getIssued() {
+        return issued;
+    }
+
+    /**
+     * Jumlah panggilan di loket, termasuk panggil ulang.
+     */
+    public long getCalled() {
+        return called;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getStopped() {
+        return stopped;
+    }
+
+    /**
+     * Rata-rata detik sejak tiba di loket sampai dipanggil pertama kali.
+     */
+    public Double getAverageWaitSeconds() {
+        return averageWaitSeconds;
+    }
+}
@@ -0,0 +1,39 @@
+package com.panggilan.loket.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Nomor tiket terakhir yang diterbitkan per hari. Diperbarui dalam transaksi yang sama dengan batch riwayat
+ * tiket sehingga pemulihan nomor saat aplikasi dinyalakan atau di-reset cukup satu pencarian primary key.
+ */
+@Entity
+@Table(name = "ticket_daily_sequences")
+public class DailySequenceEntity {
+
+    @Id
+    @Column(name = "queue_date")
+    private LocalDate queueDate;
+
+    @Column(name = "last_number", nullable = false)
+    private int lastNumber;
+
+    protected DailySequenceEntity() {
+    }
+
+    public DailySequenceEntity(LocalDate queueDate, int lastNumber) {
+        this.queueDate = queueDate;
+        this.lastNumber = lastNumber;
+    }
+
+    public LocalDate getQueueDate() {
+        return queueDate;
+    }
+
+    public int getLastNumber() {
+        return lastNumber;
+    }
+}
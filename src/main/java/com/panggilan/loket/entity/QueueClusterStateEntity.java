@@ -0,0 +1,68 @@
+package com.panggilan.loket.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Satu baris bersama untuk mode cluster. Baris ini dikunci (SELECT ... FOR UPDATE) selama satu transisi
+ * antrean sehingga transisi seluruh instance berurutan total, nomor transisi tanpa celah, dan nomor tiket
+ * harian tidak pernah ganda.
+ */
+@Entity
+@Table(name = "queue_cluster_state")
+public class QueueClusterStateEntity {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "queue_date")
+    private LocalDate queueDate;
+
+    @Column(name = "last_number", nullable = false)
+    private int lastNumber;
+
+    @Column(name = "last_transition", nullable = false)
+    private long lastTransition;
+
+    protected QueueClusterStateEntity() {
+    }
+
+    public static QueueClusterStateEntity initial() {
+        QueueClusterStateEntity state = new QueueClusterStateEntity();
+        state.id = SINGLETON_ID;
+        return state;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LocalDate getQueueDate() {
+        return queueDate;
+    }
+
+    public void setQueueDate(LocalDate queueDate) {
+        this.queueDate = queueDate;
+    }
+
+    public int getLastNumber() {
+        return lastNumber;
+    }
+
+    public void setLastNumber(int lastNumber) {
+        this.lastNumber = lastNumber;
+    }
+
+    public long getLastTransition() {
+        return lastTransition;
+    }
+
+    public void setLastTransition(long lastTransition) {
+        this.lastTransition = lastTransition;
+    }
+}
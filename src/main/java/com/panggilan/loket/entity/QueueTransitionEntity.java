@@ -0,0 +1,81 @@
+package com.panggilan.loket.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Transisi antrean yang direplikasi antar instance. Id diberikan berurutan di bawah kunci
+ * {@link QueueClusterStateEntity}, bukan dibangkitkan database, agar pembaca dapat mengikuti log tanpa celah.
+ */
+@Entity
+@Table(name = "queue_transitions", indexes = @Index(name = "idx_queue_transitions_date", columnList = "queue_date"))
+public class QueueTransitionEntity implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(name = "queue_date", nullable = false)
+    private LocalDate queueDate;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "payload", nullable = false, length = 1024)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Id selalu diisi aplikasi; tanpa penanda ini Spring Data akan melakukan merge (SELECT lalu INSERT).
+    @Transient
+    private boolean fresh;
+
+    protected QueueTransitionEntity() {
+    }
+
+    public static QueueTransitionEntity of(long id, LocalDate queueDate, String nodeId, String payload,
+                                           LocalDateTime createdAt) {
+        QueueTransitionEntity entity = new QueueTransitionEntity();
+        entity.id = id;
+        entity.queueDate = queueDate;
+        entity.nodeId = nodeId;
+        entity.payload = payload;
+        entity.createdAt = createdAt;
+        entity.fresh = true;
+        return entity;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    public LocalDate getQueueDate() {
+        return queueDate;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -10,6 +10,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
 
@@ -17,8 +18,11 @@ import java.time.LocalDateTime;
 @Table(name = "ticket_events")
 public class TicketEventEntity {
 
+    // IDENTITY mematikan JDBC batch insert di Hibernate; sequence pooled (tabel emulasi di MySQL)
+    // mengalokasikan id per blok sehingga penulisan write-behind dapat dikirim dalam satu batch.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_events_seq")
+    @SequenceGenerator(name = "ticket_events_seq", sequenceName = "ticket_events_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "ticket_id", nullable = false, length = 64)
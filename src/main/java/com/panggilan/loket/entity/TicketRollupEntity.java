@@ -0,0 +1,160 @@
+package com.panggilan.loket.entity;
+
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.RollupGranularity;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+/**
+ * Agregat riwayat tiket per jam atau per hari, per loket dan jenis pasien. Diperbarui bertahap oleh penulis
+ * riwayat sehingga laporan tidak perlu menjalankan GROUP BY atas {@code ticket_events}.
+ * <p>
+ * Id berupa gabungan granularitas, awal bucket, loket, dan jenis pasien agar penambahan cukup satu
+ * UPDATE berdasarkan primary key. Event tanpa loket (ambil nomor) memakai loket kosong.
+ */
+@Entity
+@Table(name = "ticket_rollups", indexes = @Index(name = "idx_ticket_rollups_bucket", columnList = "granularity, bucket_start"))
+public class TicketRollupEntity implements Persistable<String> {
+
+    @Id
+    @Column(length = 96)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "counter_id", nullable = false, length = 32)
+    private String counterId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "patient_type", nullable = false, length = 16)
+    private PatientType patientType;
+
+    @Column(name = "issued_count", nullable = false)
+    private long issued;
+
+    @Column(name = "called_count", nullable = false)
+    private long called;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completed;
+
+    @Column(name = "stopped_count", nullable = false)
+    private long stopped;
+
+    @Column(name = "wait_samples", nullable = false)
+    private long waitSamples;
+
+    @Column(name = "wait_total_ms", nullable = false)
+    private long waitTotalMillis;
+
+    @Transient
+    private boolean fresh;
+
+    protected TicketRollupEntity() {
+    }
+
+    /**
+     * Baris kosong untuk satu kunci; dipakai sebagai penampung selisih sebelum ditulis.
+     */
+    public static TicketRollupEntity of(RollupGranularity granularity, LocalDateTime bucketStart, String counterId,
+                                        PatientType patientType) {
+        TicketRollupEntity entity = new TicketRollupEntity();
+        entity.granularity = granularity;
+        entity.bucketStart = bucketStart;
+        entity.counterId = counterId == null ? "" : counterId;
+        entity.patientType = patientType == null ? PatientType.LAMA : patientType;
+        entity.id = keyOf(granularity, entity.bucketStart, entity.counterId, entity.patientType);
+        entity.fresh = true;
+        return entity;
+    }
+
+    public static String keyOf(RollupGranularity granularity, LocalDateTime bucketStart, String counterId,
+                               PatientType patientType) {
+        return granularity.name() + '|' + bucketStart + '|' + (counterId == null ? "" : counterId) + '|'
+                + (patientType == null ? PatientType.LAMA : patientType).name();
+    }
+
+    public void addIssued() {
+        issued++;
+    }
+
+    public void addCalled(long waitMillis) {
+        called++;
+        if (waitMillis >= 0) {
+            waitSamples++;
+            waitTotalMillis += waitMillis;
+        }
+    }
+
+    public void addCompleted() {
+        completed++;
+    }
+
+    public void addStopped() {
+        stopped++;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    public PatientType getPatientType() {
+        return patientType;
+    }
+
+    public long getIssued() {
+        return issued;
+    }
+
+    public long getCalled() {
+        return called;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getStopped() {
+        return stopped;
+    }
+
+    public long getWaitSamples() {
+        return waitSamples;
+    }
+
+    public long getWaitTotalMillis() {
+        return waitTotalMillis;
+    }
+}
@@ -0,0 +1,57 @@
+package com.panggilan.loket.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Satu pengumuman panggilan ({@link QueueEventType#CALLED} atau {@link QueueEventType#RECALLED}) yang harus
+ * diputar display, bernomor urut naik.
+ */
+public final class Announcement {
+
+    private final long sequence;
+    private final QueueEventType type;
+    private final String ticketId;
+    private final String ticketNumber;
+    private final String counterId;
+    private final String counterName;
+    private final LocalDateTime announcedAt;
+
+    public Announcement(long sequence, QueueEventType type, String ticketId, String ticketNumber,
+                        String counterId, String counterName, LocalDateTime announcedAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.ticketId = ticketId;
+        this.ticketNumber = ticketNumber;
+        this.counterId = counterId;
+        this.counterName = counterName;
+        this.announcedAt = announcedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public QueueEventType getType() {
+        return type;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public String getTicketNumber() {
+        return ticketNumber;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    public String getCounterName() {
+        return counterName;
+    }
+
+    public LocalDateTime getAnnouncedAt() {
+        return announcedAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.panggilan.loket.model;
+
+import java.util.List;
+
+/**
+ * Pengumuman setelah kursor sebuah display.
+ */
+public final class AnnouncementFeed {
+
+    private final String cursor;
+    private final long sequence;
+    private final long latestSequence;
+    private final boolean complete;
+    private final List<Announcement> announcements;
+
+    public AnnouncementFeed(String cursor, long sequence, long latestSequence, boolean complete,
+                            List<Announcement> announcements) {
+        this.cursor = cursor;
+        this.sequence = sequence;
+        this.latestSequence = latestSequence;
+        this.complete = complete;
+        this.announcements = List.copyOf(announcements);
+    }
+
+    /**
+     * Kursor untuk permintaan berikutnya ({@code after}), berbentuk {@code <instance>-<nomor>}.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Nomor urut pengumuman terakhir pada halaman ini; lebih kecil dari {@link #getLatestSequence()} bila
+     * masih ada halaman berikutnya.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getLatestSequence() {
+        return latestSequence;
+    }
+
+    /**
+     * {@code false} bila sebagian pengumuman setelah kursor sudah tergeser dari log atau server baru dinyalakan ulang.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public List<Announcement> getAnnouncements() {
+        return announcements;
+    }
+}
@@ -0,0 +1,41 @@
+package com.panggilan.loket.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Jumlah tiket menunggu (per jenis pasien) dan sedang dilayani di satu loket.
+ */
+public final class CounterDepth {
+
+    private final String counterId;
+    private final Map<PatientType, Integer> waitingByType;
+    private final int waiting;
+    private final int active;
+
+    public CounterDepth(String counterId, Map<PatientType, Integer> waitingByType, int active) {
+        this.counterId = counterId;
+        Map<PatientType, Integer> counts = new EnumMap<>(PatientType.class);
+        counts.putAll(waitingByType);
+        this.waitingByType = Collections.unmodifiableMap(counts);
+        this.waiting = counts.values().stream().mapToInt(Integer::intValue).sum();
+        this.active = active;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public Map<PatientType, Integer> getWaitingByType() {
+        return waitingByType;
+    }
+
+    public int getActive() {
+        return active;
+    }
+}
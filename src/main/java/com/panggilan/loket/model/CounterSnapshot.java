@@ -2,7 +2,9 @@ package com.panggilan.loket.model;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 public final class CounterSnapshot {
 
@@ -11,18 +13,36 @@ public final class CounterSnapshot {
         private final Ticket currentTicket;
         private final List<Ticket> activeTickets;
         private final List<Ticket> waitingTickets;
+        private final int waitingCount;
+        private final Map<PatientType, Integer> waitingCountByType;
         private final int nextNumber;
         private final LocalDateTime lastCalledAt;
         private final Ticket lastCalledTicket;
 
         public CounterSnapshot(String id, String name, List<Ticket> activeTickets, List<Ticket> waitingTickets,
                                                    int nextNumber, LocalDateTime lastCalledAt, Ticket lastCalledTicket) {
+                this(id, name, activeTickets, waitingTickets, QueueStatus.countByType(waitingTickets), nextNumber,
+                                lastCalledAt, lastCalledTicket);
+        }
+
+        /**
+         * @param waitingTickets bisa hanya sebagian antrean (jendela); jumlah per jenis pasien tetap menghitung seluruh antrean
+         */
+        public CounterSnapshot(String id, String name, List<Ticket> activeTickets, List<Ticket> waitingTickets,
+                                                   Map<PatientType, Integer> waitingCountByType, int nextNumber,
+                                                   LocalDateTime lastCalledAt, Ticket lastCalledTicket) {
                 this.id = id;
                 this.name = name;
                 List<Ticket> actives = activeTickets == null ? Collections.emptyList() : List.copyOf(activeTickets);
                 this.activeTickets = actives;
                 this.currentTicket = actives.isEmpty() ? null : actives.get(0);
                 this.waitingTickets = waitingTickets == null ? Collections.emptyList() : Collections.unmodifiableList(waitingTickets);
+                Map<PatientType, Integer> counts = new EnumMap<>(PatientType.class);
+                if (waitingCountByType != null) {
+                        counts.putAll(waitingCountByType);
+                }
+                this.waitingCountByType = Collections.unmodifiableMap(counts);
+                this.waitingCount = counts.values().stream().mapToInt(Integer::intValue).sum();
                 this.nextNumber = nextNumber;
                 this.lastCalledAt = lastCalledAt;
                 this.lastCalledTicket = lastCalledTicket;
@@ -48,6 +68,17 @@ public final class CounterSnapshot {
                 return waitingTickets;
         }
 
+        /**
+         * Jumlah seluruh tiket menunggu, termasuk yang tidak ikut dikirim di {@link #getWaitingTickets()}.
+         */
+        public int getWaitingCount() {
+                return waitingCount;
+        }
+
+        public Map<PatientType, Integer> getWaitingCountByType() {
+                return waitingCountByType;
+        }
+
         public int getNextNumber() {
                 return nextNumber;
         }
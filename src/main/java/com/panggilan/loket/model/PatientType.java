@@ -1,5 +1,7 @@
 package com.panggilan.loket.model;
 
+import java.util.Optional;
+
 public enum PatientType {
     LAMA("L", "Pasien Lama"),
     BARU("B", "Pasien Baru");
@@ -21,15 +23,22 @@ public enum PatientType {
     }
 
     public static PatientType fromString(String value) {
+        return find(value).orElse(LAMA);
+    }
+
+    /**
+     * Jenis pasien berdasarkan nama ({@code LAMA}/{@code BARU}) atau prefiksnya, tanpa jatuh ke LAMA.
+     */
+    public static Optional<PatientType> find(String value) {
         if (value == null || value.isBlank()) {
-            return LAMA;
+            return Optional.empty();
         }
         String upper = value.toUpperCase().trim();
         for (PatientType type : values()) {
             if (type.name().equals(upper) || type.prefix.equals(upper)) {
-                return type;
+                return Optional.of(type);
             }
         }
-        return LAMA;
+        return Optional.empty();
     }
 }
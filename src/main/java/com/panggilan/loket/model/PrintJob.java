@@ -0,0 +1,66 @@
+package com.panggilan.loket.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Potret satu pekerjaan cetak di antrean printer.
+ */
+public final class PrintJob {
+
+    private final long id;
+    private final List<String> ticketIds;
+    private final List<String> ticketNumbers;
+    private final PrintJobState state;
+    private final int attempts;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String lastError;
+
+    public PrintJob(long id, List<String> ticketIds, List<String> ticketNumbers, PrintJobState state, int attempts,
+                    LocalDateTime createdAt, LocalDateTime updatedAt, String lastError) {
+        this.id = id;
+        this.ticketIds = List.copyOf(ticketIds);
+        this.ticketNumbers = List.copyOf(ticketNumbers);
+        this.state = state;
+        this.attempts = attempts;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.lastError = lastError;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public List<String> getTicketIds() {
+        return ticketIds;
+    }
+
+    public List<String> getTicketNumbers() {
+        return ticketNumbers;
+    }
+
+    public PrintJobState getState() {
+        return state;
+    }
+
+    /**
+     * Jumlah percobaan kirim ke printer yang sudah dijalankan.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
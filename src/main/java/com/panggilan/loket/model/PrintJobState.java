@@ -0,0 +1,8 @@
+package com.panggilan.loket.model;
+
+public enum PrintJobState {
+    QUEUED,
+    PRINTING,
+    PRINTED,
+    FAILED
+}
@@ -0,0 +1,98 @@
+package com.panggilan.loket.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Kondisi antrean cetak satu printer: kapasitas, pekerjaan yang masih tertunda, dan pekerjaan terakhir beserta statusnya.
+ */
+public final class PrinterStatus {
+
+    private final String printer;
+    private final String backend;
+    private final boolean enabled;
+    private final boolean accepting;
+    private final int queuedTickets;
+    private final int capacity;
+    private final long printedJobs;
+    private final long failedJobs;
+    private final String lastError;
+    private final LocalDateTime lastErrorAt;
+    private final List<PrintJob> jobs;
+
+    public PrinterStatus(String printer, String backend, boolean enabled, boolean accepting, int queuedTickets, int capacity,
+                         long printedJobs, long failedJobs, String lastError, LocalDateTime lastErrorAt,
+                         List<PrintJob> jobs) {
+        this.printer = printer;
+        this.backend = backend;
+        this.enabled = enabled;
+        this.accepting = accepting;
+        this.queuedTickets = queuedTickets;
+        this.capacity = capacity;
+        this.printedJobs = printedJobs;
+        this.failedJobs = failedJobs;
+        this.lastError = lastError;
+        this.lastErrorAt = lastErrorAt;
+        this.jobs = jobs == null ? List.of() : List.copyOf(jobs);
+    }
+
+    /**
+     * Status printer yang tidak memakai antrean cetak, mis. printer uji.
+     */
+    public static PrinterStatus unavailable(String printer, String backend) {
+        return new PrinterStatus(printer, backend, false, false, 0, 0, 0, 0, null, null, List.of());
+    }
+
+    /**
+     * Id printer sesuai {@code printer.ticket.printers}, atau {@code default}.
+     */
+    public String getPrinter() {
+        return printer;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * {@code false} bila antrean penuh atau sedang berhenti, sehingga tiket baru tidak akan tercetak.
+     */
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    public int getQueuedTickets() {
+        return queuedTickets;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getPrintedJobs() {
+        return printedJobs;
+    }
+
+    public long getFailedJobs() {
+        return failedJobs;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getLastErrorAt() {
+        return lastErrorAt;
+    }
+
+    /**
+     * Pekerjaan yang sedang dicetak, masih menunggu, lalu riwayat terbaru.
+     */
+    public List<PrintJob> getJobs() {
+        return jobs;
+    }
+}
@@ -0,0 +1,62 @@
+package com.panggilan.loket.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ringkasan jumlah antrean tanpa daftar tiket. {@code waiting}, {@code waitingByType} dan
+ * {@code estimatedWaitSeconds} menggambarkan antrean loket pertama, seperti {@code /api/queue/status}.
+ */
+public final class QueueCounts {
+
+    private final long version;
+    private final int nextTicketNumber;
+    private final int waiting;
+    private final Map<PatientType, Integer> waitingByType;
+    private final Map<PatientType, Long> estimatedWaitSeconds;
+    private final List<CounterDepth> counters;
+
+    public QueueCounts(long version, int nextTicketNumber, Map<PatientType, Integer> waitingByType,
+                       Map<PatientType, Long> estimatedWaitSeconds, List<CounterDepth> counters) {
+        this.version = version;
+        this.nextTicketNumber = nextTicketNumber;
+        Map<PatientType, Integer> counts = new EnumMap<>(PatientType.class);
+        counts.putAll(waitingByType);
+        this.waitingByType = Collections.unmodifiableMap(counts);
+        this.waiting = counts.values().stream().mapToInt(Integer::intValue).sum();
+        this.estimatedWaitSeconds = Map.copyOf(estimatedWaitSeconds);
+        this.counters = List.copyOf(counters);
+    }
+
+    /**
+     * Versi keadaan antrean saat jumlah dibaca (bagian angka pada ETag respons antrean).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNextTicketNumber() {
+        return nextTicketNumber;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public Map<PatientType, Integer> getWaitingByType() {
+        return waitingByType;
+    }
+
+    /**
+     * Perkiraan detik menunggu bagi tiket yang diambil sekarang, per jenis pasien.
+     */
+    public Map<PatientType, Long> getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    public List<CounterDepth> getCounters() {
+        return counters;
+    }
+}
@@ -0,0 +1,63 @@
+package com.panggilan.loket.model;
+
+import java.time.LocalDateTime;
+
+public final class QueueEvent {
+
+    private final long sequence;
+    private final QueueEventType type;
+    private final String counterId;
+    private final String targetCounterId;
+    private final Ticket ticket;
+    private final LocalDateTime occurredAt;
+
+    public QueueEvent(long sequence, QueueEventType type, String counterId, String targetCounterId,
+                      Ticket ticket, LocalDateTime occurredAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.counterId = counterId;
+        this.targetCounterId = targetCounterId;
+        this.ticket = ticket;
+        this.occurredAt = occurredAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public QueueEventType getType() {
+        return type;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    /**
+     * Loket tujuan ketika tiket selesai dan diteruskan ({@link QueueEventType#COMPLETED}), atau loket
+     * yang antreannya diambil ketika tiket dipanggil ({@link QueueEventType#CALLED}).
+     */
+    public String getTargetCounterId() {
+        return targetCounterId;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    /**
+     * Apakah event ini relevan bagi loket tertentu, baik sebagai loket asal maupun tujuan.
+     */
+    public boolean concernsCounter(String id) {
+        if (id == null) {
+            return false;
+        }
+        return type == QueueEventType.RESET
+                || id.equalsIgnoreCase(counterId)
+                || id.equalsIgnoreCase(targetCounterId);
+    }
+}
@@ -0,0 +1,11 @@
+package com.panggilan.loket.model;
+
+public enum QueueEventType {
+    ISSUED,
+    CALLED,
+    RECALLED,
+    COMPLETED,
+    STOPPED,
+    RESET,
+    COUNTER_ADDED
+}
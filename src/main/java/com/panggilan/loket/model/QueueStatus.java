@@ -1,23 +1,82 @@
 package com.panggilan.loket.model;
 
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 public final class QueueStatus {
 
     private final List<Ticket> waitingQueue;
+    private final int waitingCount;
+    private final Map<PatientType, Integer> waitingCountByType;
     private final int nextTicketNumber;
+    private final Map<PatientType, Long> estimatedWaitSeconds;
 
     public QueueStatus(List<Ticket> waitingQueue, int nextTicketNumber) {
+        this(waitingQueue, nextTicketNumber, Map.of());
+    }
+
+    public QueueStatus(List<Ticket> waitingQueue, int nextTicketNumber, Map<PatientType, Long> estimatedWaitSeconds) {
+        this(waitingQueue, countByType(waitingQueue), nextTicketNumber, estimatedWaitSeconds);
+    }
+
+    /**
+     * @param waitingQueue bisa hanya sebagian antrean (jendela); jumlah per jenis pasien tetap menghitung seluruh antrean
+     */
+    public QueueStatus(List<Ticket> waitingQueue, Map<PatientType, Integer> waitingCountByType, int nextTicketNumber,
+                       Map<PatientType, Long> estimatedWaitSeconds) {
         this.waitingQueue = waitingQueue == null ? Collections.emptyList() : Collections.unmodifiableList(waitingQueue);
+        Map<PatientType, Integer> counts = new EnumMap<>(PatientType.class);
+        if (waitingCountByType != null) {
+            counts.putAll(waitingCountByType);
+        }
+        this.waitingCountByType = Collections.unmodifiableMap(counts);
+        this.waitingCount = counts.values().stream().mapToInt(Integer::intValue).sum();
         this.nextTicketNumber = nextTicketNumber;
+        this.estimatedWaitSeconds = estimatedWaitSeconds == null ? Map.of() : Map.copyOf(estimatedWaitSeconds);
     }
 
     public List<Ticket> getWaitingQueue() {
         return waitingQueue;
     }
 
+    /**
+     * Jumlah seluruh tiket menunggu, termasuk yang tidak ikut dikirim di {@link #getWaitingQueue()}.
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public Map<PatientType, Integer> getWaitingCountByType() {
+        return waitingCountByType;
+    }
+
     public int getNextTicketNumber() {
         return nextTicketNumber;
     }
+
+    /**
+     * Perkiraan detik menunggu bagi tiket yang diambil sekarang, per jenis pasien.
+     */
+    public Map<PatientType, Long> getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    /**
+     * Jumlah tiket per jenis pasien; setiap jenis selalu ada, bernilai 0 bila kosong.
+     */
+    public static Map<PatientType, Integer> countByType(List<Ticket> tickets) {
+        Map<PatientType, Integer> counts = new EnumMap<>(PatientType.class);
+        for (PatientType type : PatientType.values()) {
+            counts.put(type, 0);
+        }
+        if (tickets != null) {
+            for (Ticket ticket : tickets) {
+                PatientType type = ticket.getPatientType() == null ? PatientType.LAMA : ticket.getPatientType();
+                counts.merge(type, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
 }
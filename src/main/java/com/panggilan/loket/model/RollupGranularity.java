@@ -0,0 +1,16 @@
+package com.panggilan.loket.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOURLY,
+    DAILY;
+
+    /**
+     * Awal bucket yang memuat waktu tersebut.
+     */
+    public LocalDateTime bucketOf(LocalDateTime time) {
+        return this == HOURLY ? time.truncatedTo(ChronoUnit.HOURS) : time.toLocalDate().atStartOfDay();
+    }
+}
@@ -1,28 +1,38 @@
 package com.panggilan.loket.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.UUID;
 
 public final class Ticket {
 
     private final String id;
+    private final long key;
     private final String number;
     private final LocalDateTime issuedAt;
     private final String counterId;
     private final String counterName;
     private final LocalDate displayDate;
     private final PatientType patientType;
+    private final Long estimatedWaitSeconds;
 
-    private Ticket(String id, String number, LocalDateTime issuedAt, LocalDate displayDate, String counterId, String counterName, PatientType patientType) {
+    private Ticket(String id, long key, String number, LocalDateTime issuedAt, LocalDate displayDate, String counterId, String counterName, PatientType patientType) {
+        this(id, key, number, issuedAt, displayDate, counterId, counterName, patientType, null);
+    }
+
+    private Ticket(String id, long key, String number, LocalDateTime issuedAt, LocalDate displayDate, String counterId,
+                   String counterName, PatientType patientType, Long estimatedWaitSeconds) {
         this.id = id;
+        this.key = key;
         this.number = number;
         this.issuedAt = issuedAt;
         this.displayDate = displayDate;
         this.counterId = counterId;
         this.counterName = counterName;
         this.patientType = patientType == null ? PatientType.LAMA : patientType;
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
     }
 
     public static Ticket create(String number) {
@@ -31,21 +41,57 @@ public final class Ticket {
 
     public static Ticket create(String number, PatientType patientType) {
         LocalDate today = LocalDate.now();
-        return new Ticket(UUID.randomUUID().toString(), number, LocalDateTime.now(), today, null, null, patientType);
+        long key = TicketId.next();
+        return new Ticket(TicketId.format(key), key, number, LocalDateTime.now(), today, null, null, patientType);
+    }
+
+    /**
+     * Membangun ulang tiket dari jurnal. Id lama berbentuk UUID tetap diterima.
+     */
+    public static Ticket restore(String id, String number, LocalDateTime issuedAt, LocalDate displayDate,
+                                 String counterId, String counterName, PatientType patientType) {
+        long key = TicketId.parse(id);
+        TicketId.observe(key);
+        return new Ticket(id, key, number, issuedAt, displayDate, counterId, counterName, patientType);
     }
 
     public Ticket assignToCounter(String counterId, String counterName) {
-        return new Ticket(id, number, issuedAt, displayDate, counterId, counterName, patientType);
+        return new Ticket(id, key, number, issuedAt, displayDate, counterId, counterName, patientType);
     }
 
     public Ticket resetCounter() {
-        return new Ticket(id, number, issuedAt, displayDate, null, null, patientType);
+        return new Ticket(id, key, number, issuedAt, displayDate, null, null, patientType);
+    }
+
+    /**
+     * Salinan tiket dengan perkiraan waktu tunggu untuk respons API; tidak ikut tersimpan di jurnal.
+     */
+    public Ticket withEstimatedWait(long seconds) {
+        return new Ticket(id, key, number, issuedAt, displayDate, counterId, counterName, patientType, seconds);
     }
 
     public String getId() {
         return id;
     }
 
+    /**
+     * Bentuk angka dari id, atau {@link TicketId#INVALID} untuk id lama.
+     */
+    @JsonIgnore
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Membandingkan dengan id yang sudah diurai sekali oleh pemanggil; id lama dibandingkan sebagai teks.
+     */
+    public boolean hasId(long otherKey, String otherId) {
+        if (key != TicketId.INVALID) {
+            return key == otherKey;
+        }
+        return id.equals(otherId);
+    }
+
     public String getNumber() {
         return number;
     }
@@ -70,6 +116,14 @@ public final class Ticket {
         return patientType;
     }
 
+    /**
+     * Perkiraan detik sampai tiket dipanggil di loketnya; hanya terisi pada respons yang menghitungnya.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -79,11 +133,14 @@ public final class Ticket {
             return false;
         }
         Ticket ticket = (Ticket) o;
+        if (key != TicketId.INVALID) {
+            return key == ticket.key;
+        }
         return Objects.equals(id, ticket.id);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return key != TicketId.INVALID ? Long.hashCode(key) : Objects.hashCode(id);
     }
 }
@@ -0,0 +1,73 @@
+package com.panggilan.loket.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pembangkit id tiket yang naik monoton dan berurutan waktu: {@code (milidetik sejak 2024-01-01) << 12}
+ * ditambah penghitung untuk tiket pada milidetik yang sama. Id dikirim sebagai base36 dengan lebar tetap
+ * {@value #WIDTH} karakter sehingga urutan string sama dengan urutan angka (indeks {@code ticket_id}
+ * terisi berurutan).
+ * <p>
+ * Id yang dibaca dari jurnal atau dari instance lain diteruskan ke {@link #observe(long)} agar id berikutnya
+ * selalu lebih besar, termasuk bila jam mundur atau pada mode cluster.
+ */
+public final class TicketId {
+
+    /** Penanda id lama (UUID) yang tidak berbentuk angka. */
+    public static final long INVALID = -1L;
+
+    static final int WIDTH = 11;
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int COUNTER_BITS = 12;
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TicketId() {
+    }
+
+    public static long next() {
+        long candidate = Math.max(System.currentTimeMillis() - EPOCH_MILLIS, 0) << COUNTER_BITS;
+        while (true) {
+            long last = LAST.get();
+            long next = Math.max(candidate, last + 1);
+            if (LAST.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    public static void observe(long key) {
+        if (key > 0) {
+            LAST.accumulateAndGet(key, Math::max);
+        }
+    }
+
+    public static String format(long key) {
+        String digits = Long.toString(key, 36);
+        if (digits.length() >= WIDTH) {
+            return digits;
+        }
+        StringBuilder padded = new StringBuilder(WIDTH);
+        for (int i = digits.length(); i < WIDTH; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+
+    /**
+     * @return bentuk angka dari {@code id}, atau {@link #INVALID} untuk id lama maupun teks tidak valid
+     */
+    public static long parse(String id) {
+        if (id == null || id.isEmpty() || id.length() > 13) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            int digit = Character.digit(id.charAt(i), 36);
+            if (digit < 0 || value > (Long.MAX_VALUE - digit) / 36) {
+                return INVALID;
+            }
+            value = value * 36 + digit;
+        }
+        return value;
+    }
+}
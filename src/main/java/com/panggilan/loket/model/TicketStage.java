@@ -0,0 +1,8 @@
+package com.panggilan.loket.model;
+
+public enum TicketStage {
+    WAITING,
+    ACTIVE,
+    COMPLETED,
+    STOPPED
+}
@@ -0,0 +1,95 @@
+package com.panggilan.loket.model;
+
+/**
+ * Status terkini satu tiket: tahap, loket terkait, serta posisi dan perkiraan waktunya bila masih menunggu.
+ */
+public final class TicketStatus {
+
+    private final Ticket ticket;
+    private final TicketStage stage;
+    private final String counterId;
+    private final String counterName;
+    private final Integer position;
+    private final Integer positionInType;
+    private final Long estimatedWaitSeconds;
+    private final Long estimatedWaitP90Seconds;
+    private final Long estimatedFinishSeconds;
+
+    public TicketStatus(Ticket ticket, TicketStage stage, String counterId, String counterName,
+                        Integer position, Integer positionInType) {
+        this(ticket, stage, counterId, counterName, position, positionInType, null, null, null);
+    }
+
+    public TicketStatus(Ticket ticket, TicketStage stage, String counterId, String counterName,
+                        Integer position, Integer positionInType, Long estimatedWaitSeconds,
+                        Long estimatedWaitP90Seconds, Long estimatedFinishSeconds) {
+        this.ticket = ticket;
+        this.stage = stage;
+        this.counterId = counterId;
+        this.counterName = counterName;
+        this.position = position;
+        this.positionInType = positionInType;
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+        this.estimatedWaitP90Seconds = estimatedWaitP90Seconds;
+        this.estimatedFinishSeconds = estimatedFinishSeconds;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public TicketStage getStage() {
+        return stage;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    public String getCounterName() {
+        return counterName;
+    }
+
+    /**
+     * Posisi (mulai 1) di antrean loket; {@code null} bila tiket tidak sedang menunggu.
+     */
+    public Integer getPosition() {
+        return position;
+    }
+
+    /**
+     * Posisi (mulai 1) di antara tiket berjenis pasien sama pada antrean loket yang sama.
+     */
+    public Integer getPositionInType() {
+        return positionInType;
+    }
+
+    /**
+     * Jumlah tiket di depan tiket ini pada antrean loketnya.
+     */
+    public Integer getAhead() {
+        return position == null ? null : position - 1;
+    }
+
+    /**
+     * Perkiraan detik sampai tiket dipanggil di loketnya, dari rata-rata lama layanan terkini.
+     */
+    public Long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+
+    /**
+     * Perkiraan atas (persentil 90 lama layanan) untuk waktu sampai dipanggil.
+     */
+    public Long getEstimatedWaitP90Seconds() {
+        return estimatedWaitP90Seconds;
+    }
+
+    /**
+     * Perkiraan detik sampai tiket selesai di loket terakhir, dengan memperhitungkan kedalaman setiap loket
+     * berikutnya di rantai layanan.
+     */
+    public Long getEstimatedFinishSeconds() {
+        return estimatedFinishSeconds;
+    }
+}
@@ -0,0 +1,22 @@
+package com.panggilan.loket.repository;
+
+import com.panggilan.loket.entity.DailySequenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+public interface DailySequenceRepository extends JpaRepository<DailySequenceEntity, LocalDate> {
+
+	/**
+	 * Menaikkan nomor terakhir bila {@code number} lebih besar; tidak pernah menurunkannya, sehingga batch
+	 * yang tiba tidak berurutan (atau dari instance lain) tetap aman.
+	 *
+	 * @return jumlah baris yang berubah
+	 */
+	@Modifying
+	@Query("update DailySequenceEntity s set s.lastNumber = :number where s.queueDate = :date and s.lastNumber < :number")
+	int raiseLastNumber(@Param("date") LocalDate date, @Param("number") int number);
+}
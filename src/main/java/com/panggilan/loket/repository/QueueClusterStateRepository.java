@@ -0,0 +1,17 @@
+package com.panggilan.loket.repository;
+
+import com.panggilan.loket.entity.QueueClusterStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface QueueClusterStateRepository extends JpaRepository<QueueClusterStateEntity, Integer> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select s from QueueClusterStateEntity s where s.id = :id")
+	Optional<QueueClusterStateEntity> lockById(@Param("id") Integer id);
+}
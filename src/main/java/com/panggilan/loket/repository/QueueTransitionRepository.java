@@ -0,0 +1,22 @@
+package com.panggilan.loket.repository;
+
+import com.panggilan.loket.entity.QueueTransitionEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface QueueTransitionRepository extends JpaRepository<QueueTransitionEntity, Long> {
+
+	List<QueueTransitionEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+	List<QueueTransitionEntity> findByQueueDateOrderByIdAsc(LocalDate queueDate);
+
+	@Modifying
+	@Query("delete from QueueTransitionEntity t where t.queueDate < :date")
+	int deleteOlderThan(@Param("date") LocalDate date);
+}
@@ -1,23 +1,27 @@
 package com.panggilan.loket.repository;
 
 import com.panggilan.loket.entity.TicketEventEntity;
-import com.panggilan.loket.model.PatientType;
-import com.panggilan.loket.model.TicketEventType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 public interface TicketEventRepository extends JpaRepository<TicketEventEntity, Long> {
 
-	Optional<TicketEventEntity> findTopByEventTypeAndEventTimeBetweenOrderByEventTimeDesc(
-			TicketEventType eventType,
-			LocalDateTime start,
-			LocalDateTime end);
+	@Query("select max(e.id) from TicketEventEntity e")
+	Long findMaxId();
 
-	Optional<TicketEventEntity> findTopByEventTypeAndPatientTypeAndEventTimeBetweenOrderByEventTimeDesc(
-			TicketEventType eventType,
-			PatientType patientType,
-			LocalDateTime start,
-			LocalDateTime end);
+	/**
+	 * Satu potongan riwayat berurutan id untuk pengisian ulang rollup; lanjutkan dengan id terakhir potongan.
+	 */
+	@Query("select e from TicketEventEntity e where e.id > :afterId and e.id <= :maxId"
+			+ " and e.eventTime >= :from and e.eventTime < :to order by e.id")
+	List<TicketEventEntity> findChunk(@Param("afterId") long afterId,
+									  @Param("maxId") long maxId,
+									  @Param("from") LocalDateTime from,
+									  @Param("to") LocalDateTime to,
+									  Pageable pageable);
 }
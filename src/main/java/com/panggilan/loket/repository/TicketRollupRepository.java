@@ -0,0 +1,40 @@
+package com.panggilan.loket.repository;
+
+import com.panggilan.loket.entity.TicketRollupEntity;
+import com.panggilan.loket.model.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketRollupRepository extends JpaRepository<TicketRollupEntity, String> {
+
+	/**
+	 * Menambahkan selisih ke baris yang sudah ada secara atomik di database.
+	 *
+	 * @return jumlah baris yang berubah; 0 bila baris belum ada
+	 */
+	@Modifying
+	@Query("update TicketRollupEntity r set r.issued = r.issued + :#{#delta.issued},"
+			+ " r.called = r.called + :#{#delta.called},"
+			+ " r.completed = r.completed + :#{#delta.completed},"
+			+ " r.stopped = r.stopped + :#{#delta.stopped},"
+			+ " r.waitSamples = r.waitSamples + :#{#delta.waitSamples},"
+			+ " r.waitTotalMillis = r.waitTotalMillis + :#{#delta.waitTotalMillis}"
+			+ " where r.id = :#{#delta.id}")
+	int increment(@Param("delta") TicketRollupEntity delta);
+
+	@Query("select r from TicketRollupEntity r where r.granularity = :granularity"
+			+ " and r.bucketStart >= :from and r.bucketStart < :to"
+			+ " order by r.bucketStart, r.counterId, r.patientType")
+	List<TicketRollupEntity> findBuckets(@Param("granularity") RollupGranularity granularity,
+										 @Param("from") LocalDateTime from,
+										 @Param("to") LocalDateTime to);
+
+	@Modifying
+	@Query("delete from TicketRollupEntity r where r.bucketStart >= :from and r.bucketStart < :to")
+	int deleteBuckets(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,469 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.AnnouncementAudioProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Menyusun suara pengumuman ("Nomor antrean L, nol nol tiga, menuju Loket B") dari rekaman WAV per kata,
+ * huruf, angka dan nama loket di {@code announcement.audio.segments-dir}. Hasil rangkaian disimpan sebagai
+ * file di {@code cache-dir} dan dibuang dengan urutan paling lama tidak dipakai (LRU) saat jumlah atau
+ * ukurannya melewati batas, sehingga panggilan ulang cukup mengirim file yang sudah ada. File dibuka sebelum
+ * lock cache dilepas, jadi pembuangan oleh perenderan lain tidak memutus respons yang sedang mengirimnya.
+ * <p>
+ * Seluruh segmen harus berupa WAV PCM dengan format yang sama (kanal, sample rate, bit per sampel).
+ */
+@Service
+public class AnnouncementAudioService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnouncementAudioService.class);
+    private static final String[] DIGITS = {
+            "nol", "satu", "dua", "tiga", "empat", "lima", "enam", "tujuh", "delapan", "sembilan"
+    };
+    private static final String OPENING = "nomor-antrean";
+    private static final String DIRECTION = "menuju";
+    // Penanda jeda antarfrasa, setara koma pada kalimat pengumuman.
+    private static final String PAUSE = ",";
+    private static final int MAX_NUMBER_LENGTH = 20;
+
+    private final AnnouncementAudioProperties properties;
+    // Kunci: tag isi klip. Urutan akses: entri pertama adalah yang paling lama tidak dipakai.
+    // Hanya diakses di bawah lock clips.
+    private final LinkedHashMap<String, Clip> clips = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private boolean cacheReady;
+
+    public AnnouncementAudioService(AnnouncementAudioProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * File suara pengumuman untuk nomor tiket dan nama loket, dirangkai bila belum ada di cache. Klip yang
+     * dikembalikan sudah terbuka dan wajib ditutup pemanggil.
+     *
+     * @throws IllegalArgumentException bila fitur tidak aktif, nomor tidak valid, atau segmen belum direkam
+     */
+    public Clip clip(String ticketNumber, String counterName) throws IOException {
+        if (!properties.isEnabled()) {
+            throw new IllegalArgumentException("Suara pengumuman dari server tidak aktif");
+        }
+        String number = normalizeNumber(ticketNumber);
+        if (counterName == null || counterName.isBlank()) {
+            throw new IllegalArgumentException("Nama loket wajib diisi");
+        }
+        List<String> tokens = sentence(number, counterName);
+        String tag = hash(signature(tokens));
+        synchronized (clips) {
+            Clip cached = clips.get(tag);
+            if (cached != null) {
+                try {
+                    return cached.open();
+                } catch (NoSuchFileException ex) {
+                    forget(tag);
+                }
+            }
+        }
+
+        long started = System.nanoTime();
+        Path target = prepareCacheDir().resolve(tag + ".wav");
+        long size = render(tokens, target);
+        Clip opened;
+        synchronized (clips) {
+            Clip clip = clips.get(tag);
+            if (clip == null) {
+                clip = new Clip(target, size, tag);
+                clips.put(tag, clip);
+                cachedBytes += size;
+                evict(tag);
+            }
+            opened = clip.open();
+        }
+        log.debug("Suara pengumuman {} untuk {} dirangkai dari {} segmen ({} byte, {} ms)", number, counterName,
+                tokens.size(), size, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return opened;
+    }
+
+    /**
+     * Urutan segmen untuk satu pengumuman. Nama loket dicari utuh terlebih dahulu (mis. {@code loket-b}),
+     * lalu per kata, lalu dieja per huruf dan angka.
+     */
+    List<String> sentence(String ticketNumber, String counterName) {
+        String number = normalizeNumber(ticketNumber);
+        List<String> tokens = new ArrayList<>();
+        tokens.add(OPENING);
+        int dash = number.indexOf('-');
+        if (dash > 0) {
+            spell(number.substring(0, dash), tokens);
+            tokens.add(PAUSE);
+            spell(number.substring(dash + 1), tokens);
+        } else {
+            spell(number, tokens);
+        }
+        tokens.add(PAUSE);
+        tokens.add(DIRECTION);
+
+        String counter = counterName.trim().toLowerCase(Locale.ROOT);
+        String slug = counter.replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        if (!slug.isEmpty() && hasSegment(slug)) {
+            tokens.add(slug);
+            return tokens;
+        }
+        for (String word : counter.split("[^a-z0-9]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (hasSegment(word)) {
+                tokens.add(word);
+            } else {
+                spell(word, tokens);
+            }
+        }
+        return tokens;
+    }
+
+    int cachedClips() {
+        synchronized (clips) {
+            return clips.size();
+        }
+    }
+
+    /**
+     * Isi kalimat beserta ukuran dan waktu ubah tiap rekaman segmen serta panjang jeda, sehingga tag klip
+     * berubah begitu sebuah segmen direkam ulang.
+     */
+    private String signature(List<String> tokens) throws IOException {
+        StringBuilder signature = new StringBuilder(String.join(" ", tokens))
+                .append('|').append(properties.getWordGap().toMillis())
+                .append('|').append(properties.getPhraseGap().toMillis());
+        Set<String> seen = new HashSet<>();
+        for (String token : tokens) {
+            if (PAUSE.equals(token) || !seen.add(token)) {
+                continue;
+            }
+            BasicFileAttributes segment;
+            try {
+                segment = Files.readAttributes(segmentPath(token), BasicFileAttributes.class);
+            } catch (NoSuchFileException ex) {
+                throw new IllegalArgumentException("Segmen suara " + token + ".wav tidak tersedia");
+            }
+            signature.append('|').append(token).append(':').append(segment.size())
+                    .append(':').append(segment.lastModifiedTime().toMillis());
+        }
+        return signature.toString();
+    }
+
+    private long render(List<String> tokens, Path target) throws IOException {
+        Map<String, Pcm> segments = new LinkedHashMap<>();
+        Pcm format = null;
+        for (String token : tokens) {
+            if (PAUSE.equals(token) || segments.containsKey(token)) {
+                continue;
+            }
+            Path file = segmentPath(token);
+            if (!Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("Segmen suara " + token + ".wav tidak tersedia");
+            }
+            Pcm pcm = Pcm.read(file);
+            if (format == null) {
+                format = pcm;
+            } else if (!format.sameFormat(pcm)) {
+                throw new IOException("Format " + token + ".wav berbeda dengan segmen suara lainnya");
+            }
+            segments.put(token, pcm);
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Pengumuman tidak memiliki segmen suara");
+        }
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        boolean first = true;
+        boolean phrase = false;
+        for (String token : tokens) {
+            if (PAUSE.equals(token)) {
+                phrase = true;
+                continue;
+            }
+            if (!first) {
+                data.writeBytes(format.silence(phrase ? properties.getPhraseGap().toMillis()
+                        : properties.getWordGap().toMillis()));
+            }
+            data.writeBytes(segments.get(token).data);
+            first = false;
+            phrase = false;
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), "render-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(format.header(data.size()));
+                data.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return Pcm.HEADER_SIZE + data.size();
+    }
+
+    /**
+     * Membuat folder cache dan membuang sisa file dari proses sebelumnya, sekali saja sebelum perenderan pertama.
+     */
+    private Path prepareCacheDir() throws IOException {
+        Path cacheDir = Path.of(properties.getCacheDir());
+        synchronized (clips) {
+            if (!cacheReady) {
+                Files.createDirectories(cacheDir);
+                try (DirectoryStream<Path> stale = Files.newDirectoryStream(cacheDir, "*.{wav,tmp}")) {
+                    for (Path file : stale) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                cacheReady = true;
+            }
+        }
+        return cacheDir;
+    }
+
+    private void evict(String keep) {
+        int maxEntries = Math.max(properties.getCacheMaxEntries(), 1);
+        long maxBytes = Math.max(properties.getCacheMaxSize().toBytes(), 0);
+        Iterator<Map.Entry<String, Clip>> eldest = clips.entrySet().iterator();
+        while ((clips.size() > maxEntries || cachedBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Clip> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            Clip clip = entry.getValue();
+            eldest.remove();
+            cachedBytes -= clip.length;
+            delete(clip);
+        }
+    }
+
+    private void forget(String key) {
+        Clip clip = clips.remove(key);
+        if (clip != null) {
+            cachedBytes -= clip.length;
+        }
+    }
+
+    /**
+     * Respons yang sudah membuka file tetap dapat membacanya sampai selesai; yang terhapus hanya namanya.
+     */
+    private void delete(Clip clip) {
+        try {
+            Files.deleteIfExists(clip.path);
+        } catch (IOException ex) {
+            log.warn("Gagal menghapus cache suara {}: {}", clip.path, ex.getMessage());
+        }
+    }
+
+    private boolean hasSegment(String token) {
+        return Files.isRegularFile(segmentPath(token));
+    }
+
+    private Path segmentPath(String token) {
+        return Path.of(properties.getSegmentsDir()).resolve(token + ".wav");
+    }
+
+    private static void spell(String text, List<String> tokens) {
+        for (char c : text.toCharArray()) {
+            if (c >= '0' && c <= '9') {
+                tokens.add(DIGITS[c - '0']);
+            } else if (c >= 'a' && c <= 'z') {
+                tokens.add(String.valueOf(c));
+            }
+        }
+    }
+
+    private static String normalizeNumber(String ticketNumber) {
+        String number = ticketNumber == null ? "" : ticketNumber.trim().toLowerCase(Locale.ROOT);
+        if (number.isEmpty() || number.length() > MAX_NUMBER_LENGTH || !number.matches("[a-z0-9-]+")) {
+            throw new IllegalArgumentException("Nomor tiket " + ticketNumber + " tidak valid");
+        }
+        return number;
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(40);
+            for (int i = 0; i < 20; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 tidak tersedia", ex);
+        }
+    }
+
+    /**
+     * File suara hasil rangkaian; {@code tag} berubah bila isi kalimat atau rekaman segmennya berubah. Klip
+     * dari {@link #clip(String, String)} membawa kanal baca yang sudah terbuka.
+     */
+    public static final class Clip implements Closeable {
+        private final Path path;
+        private final long length;
+        private final String tag;
+        private final FileChannel channel;
+
+        Clip(Path path, long length, String tag) {
+            this(path, length, tag, null);
+        }
+
+        private Clip(Path path, long length, String tag, FileChannel channel) {
+            this.path = path;
+            this.length = length;
+            this.tag = tag;
+            this.channel = channel;
+        }
+
+        private Clip open() throws IOException {
+            return new Clip(path, length, tag, FileChannel.open(path, StandardOpenOption.READ));
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public FileChannel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Isi satu file WAV PCM: format dan sampel mentahnya.
+     */
+    private static final class Pcm {
+        private static final int HEADER_SIZE = 44;
+        private static final int FORMAT_PCM = 1;
+
+        private final int channels;
+        private final int sampleRate;
+        private final int blockAlign;
+        private final int bitsPerSample;
+        private final byte[] data;
+
+        private Pcm(int channels, int sampleRate, int blockAlign, int bitsPerSample, byte[] data) {
+            this.channels = channels;
+            this.sampleRate = sampleRate;
+            this.blockAlign = blockAlign;
+            this.bitsPerSample = bitsPerSample;
+            this.data = data;
+        }
+
+        private static Pcm read(Path file) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < 12 || !"RIFF".equals(chunkId(buffer, 0)) || !"WAVE".equals(chunkId(buffer, 8))) {
+                throw new IOException(file.getFileName() + " bukan file WAV");
+            }
+            int channels = 0;
+            int sampleRate = 0;
+            int blockAlign = 0;
+            int bitsPerSample = 0;
+            byte[] data = null;
+            int offset = 12;
+            while (offset + 8 <= buffer.limit()) {
+                String id = chunkId(buffer, offset);
+                long size = Integer.toUnsignedLong(buffer.getInt(offset + 4));
+                int body = offset + 8;
+                int available = (int) Math.min(size, buffer.limit() - body);
+                if ("fmt ".equals(id) && available >= 16) {
+                    if (buffer.getShort(body) != FORMAT_PCM) {
+                        throw new IOException(file.getFileName() + " bukan WAV PCM");
+                    }
+                    channels = buffer.getShort(body + 2);
+                    sampleRate = buffer.getInt(body + 4);
+                    blockAlign = buffer.getShort(body + 12);
+                    bitsPerSample = buffer.getShort(body + 14);
+                } else if ("data".equals(id)) {
+                    data = Arrays.copyOfRange(buffer.array(), body, body + available);
+                }
+                offset = (int) Math.min(body + size + (size & 1), Integer.MAX_VALUE);
+            }
+            if (blockAlign <= 0 || sampleRate <= 0 || data == null) {
+                throw new IOException(file.getFileName() + " tidak memiliki chunk fmt/data yang lengkap");
+            }
+            // Potongan sampel yang tidak utuh di akhir rekaman dibuang agar kanal tidak bergeser.
+            return new Pcm(channels, sampleRate, blockAlign, bitsPerSample,
+                    data.length % blockAlign == 0 ? data : Arrays.copyOf(data, data.length - data.length % blockAlign));
+        }
+
+        private boolean sameFormat(Pcm other) {
+            return channels == other.channels && sampleRate == other.sampleRate
+                    && blockAlign == other.blockAlign && bitsPerSample == other.bitsPerSample;
+        }
+
+        private byte[] silence(long millis) {
+            byte[] silence = new byte[(int) (sampleRate * Math.max(millis, 0) / 1000) * blockAlign];
+            if (bitsPerSample == 8) {
+                // PCM 8 bit tidak bertanda: titik diamnya 128.
+                Arrays.fill(silence, (byte) 0x80);
+            }
+            return silence;
+        }
+
+        private byte[] header(int dataLength) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(HEADER_SIZE - 8 + dataLength)
+                    .put("WAVE".getBytes(StandardCharsets.US_ASCII))
+                    .put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                    .putShort((short) FORMAT_PCM).putShort((short) channels).putInt(sampleRate)
+                    .putInt(sampleRate * blockAlign).putShort((short) blockAlign).putShort((short) bitsPerSample)
+                    .put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+            return header.array();
+        }
+
+        private static String chunkId(ByteBuffer buffer, int offset) {
+            byte[] id = new byte[4];
+            for (int i = 0; i < 4; i++) {
+                id[i] = buffer.get(offset + i);
+            }
+            return new String(id, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.QueueClusterProperties;
+import com.panggilan.loket.entity.QueueClusterStateEntity;
+import com.panggilan.loket.entity.QueueTransitionEntity;
+import com.panggilan.loket.repository.QueueClusterStateRepository;
+import com.panggilan.loket.repository.QueueTransitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Koordinator mode cluster berbasis datasource JPA yang sudah ada. Setiap transisi dijalankan di dalam
+ * transaksi yang mengunci baris {@code queue_cluster_state}: transisi instance lain yang belum diterapkan
+ * dibaca dari {@code queue_transitions}, transisi lokal dijalankan, lalu hasilnya ditulis dengan nomor urut
+ * berikutnya. Karena nomor urut hanya bertambah di bawah kunci tersebut, log transisi berurutan total dan
+ * tanpa celah, sehingga instance lain cukup mem-polling {@code id > terakhir} untuk mengikuti perubahan.
+ * <p>
+ * Bila {@code queue.cluster.enabled=false} kelas ini berperilaku seperti {@link QueueCoordinator#local()}.
+ */
+@Component
+public class ClusterQueueCoordinator implements QueueCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterQueueCoordinator.class);
+
+    private final QueueClusterProperties properties;
+    private final QueueClusterStateRepository stateRepository;
+    private final QueueTransitionRepository transitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private ScheduledExecutorService poller;
+    private QueueReplica replica;
+    private long appliedTransition;
+    private List<JournalRecord> inFlight;
+    private boolean stale;
+
+    public ClusterQueueCoordinator(QueueClusterProperties properties,
+                                   QueueClusterStateRepository stateRepository,
+                                   QueueTransitionRepository transitionRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.stateRepository = stateRepository;
+        this.transitionRepository = transitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.nodeId = resolveNodeId(properties.getNodeId());
+    }
+
+    @Override
+    public boolean isClustered() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public synchronized void attach(QueueReplica replica) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        this.replica = replica;
+        ensureStateRow();
+        reload(true);
+        log.info("Mode cluster aktif sebagai node {}; transisi terakhir #{}", nodeId, appliedTransition);
+        Duration interval = properties.getPollInterval();
+        if (interval != null && !interval.isZero() && !interval.isNegative() && poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "queue-cluster-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = interval.toMillis();
+            poller.scheduleWithFixedDelay(this::poll, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> transition) {
+        if (!properties.isEnabled()) {
+            return transition.get();
+        }
+        synchronized (this) {
+            if (replica == null) {
+                return transition.get();
+            }
+            List<JournalRecord> produced = new ArrayList<>();
+            try {
+                T result = transactionTemplate.execute(status -> {
+                    QueueClusterStateEntity state = lockState();
+                    if (stale) {
+                        rebuildLocked(state);
+                        stale = false;
+                    } else {
+                        catchUp(state.getLastTransition());
+                    }
+                    inFlight = produced;
+                    T value;
+                    try {
+                        value = transition.get();
+                    } finally {
+                        inFlight = null;
+                    }
+                    store(state, produced);
+                    return value;
+                });
+                appliedTransition += produced.size();
+                return result;
+            } catch (RuntimeException ex) {
+                if (!produced.isEmpty()) {
+                    // Transisi sudah diterapkan di memori tetapi tidak tersimpan: muat ulang dari database.
+                    log.error("Gagal menyimpan transisi antrean cluster, memuat ulang keadaan: {}", ex.getMessage());
+                    stale = true;
+                    tryReload();
+                }
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public void record(JournalRecord record) {
+        // Hanya thread yang sedang menjalankan execute() (pemegang monitor) yang boleh menambah transisi.
+        if (record != null && Thread.holdsLock(this) && inFlight != null) {
+            inFlight.add(record);
+        }
+    }
+
+    /**
+     * Menerapkan transisi baru dari instance lain. Dipanggil berkala oleh thread poller.
+     */
+    synchronized void poll() {
+        if (replica == null) {
+            return;
+        }
+        try {
+            if (stale) {
+                reload(false);
+                return;
+            }
+            List<QueueTransitionEntity> batch;
+            do {
+                batch = transactionTemplate.execute(status -> transitionRepository.findByIdGreaterThanOrderByIdAsc(
+                        appliedTransition, PageRequest.of(0, Math.max(properties.getPollBatchSize(), 1))));
+                applyBatch(batch);
+            } while (batch != null && batch.size() >= Math.max(properties.getPollBatchSize(), 1));
+        } catch (RuntimeException ex) {
+            log.warn("Gagal membaca transisi antrean cluster: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    private void ensureStateRow() {
+        if (stateRepository.existsById(QueueClusterStateEntity.SINGLETON_ID)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    stateRepository.saveAndFlush(QueueClusterStateEntity.initial()));
+        } catch (DataIntegrityViolationException ex) {
+            // Instance lain membuat baris yang sama lebih dulu.
+            log.debug("Baris queue_cluster_state sudah dibuat instance lain");
+        }
+    }
+
+    private QueueClusterStateEntity lockState() {
+        return stateRepository.lockById(QueueClusterStateEntity.SINGLETON_ID)
+                .orElseThrow(() -> new IllegalStateException("Baris queue_cluster_state tidak ditemukan"));
+    }
+
+    private void tryReload() {
+        try {
+            reload(false);
+        } catch (RuntimeException reloadError) {
+            log.error("Gagal memuat ulang keadaan antrean cluster: {}", reloadError.getMessage());
+        }
+    }
+
+    private void reload(boolean purgeOldDays) {
+        transactionTemplate.executeWithoutResult(status -> {
+            QueueClusterStateEntity state = lockState();
+            rebuildLocked(state);
+            if (purgeOldDays) {
+                int purged = transitionRepository.deleteOlderThan(replica.currentDate());
+                if (purged > 0) {
+                    log.info("{} transisi antrean cluster dari hari sebelumnya dihapus", purged);
+                }
+            }
+        });
+        stale = false;
+    }
+
+    private void rebuildLocked(QueueClusterStateEntity state) {
+        LocalDate today = replica.currentDate();
+        List<JournalRecord> records = new ArrayList<>();
+        for (QueueTransitionEntity transition : transitionRepository.findByQueueDateOrderByIdAsc(today)) {
+            JournalRecord record = decode(transition);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        int lastNumber = today.equals(state.getQueueDate()) ? state.getLastNumber() : 0;
+        replica.rebuild(today, lastNumber, records);
+        appliedTransition = state.getLastTransition();
+    }
+
+    private void catchUp(long head) {
+        int batchSize = Math.max(properties.getPollBatchSize(), 1);
+        while (appliedTransition < head) {
+            List<QueueTransitionEntity> batch = transitionRepository.findByIdGreaterThanOrderByIdAsc(
+                    appliedTransition, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                appliedTransition = head;
+                return;
+            }
+            applyBatch(batch);
+        }
+    }
+
+    /**
+     * Menerapkan transisi berurutan, dikelompokkan per tanggal antrean agar pergantian hari diproses tepat.
+     */
+    private void applyBatch(List<QueueTransitionEntity> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        LocalDate groupDate = null;
+        List<JournalRecord> group = new ArrayList<>();
+        for (QueueTransitionEntity transition : batch) {
+            if (transition.getId() != appliedTransition + 1) {
+                log.warn("Transisi antrean cluster melompat dari #{} ke #{}", appliedTransition, transition.getId());
+            }
+            if (groupDate != null && !groupDate.equals(transition.getQueueDate())) {
+                replica.apply(groupDate, group);
+                group = new ArrayList<>();
+            }
+            groupDate = transition.getQueueDate();
+            JournalRecord record = decode(transition);
+            if (record != null) {
+                group.add(record);
+            }
+            appliedTransition = transition.getId();
+        }
+        if (groupDate != null) {
+            replica.apply(groupDate, group);
+        }
+    }
+
+    private void store(QueueClusterStateEntity state, List<JournalRecord> produced) {
+        if (produced.isEmpty()) {
+            return;
+        }
+        LocalDate date = replica.currentDate();
+        if (state.getQueueDate() == null || state.getQueueDate().isBefore(date)) {
+            state.setQueueDate(date);
+            state.setLastNumber(0);
+        }
+        long next = state.getLastTransition();
+        LocalDateTime now = LocalDateTime.now();
+        List<QueueTransitionEntity> entities = new ArrayList<>(produced.size());
+        for (JournalRecord record : produced) {
+            next++;
+            entities.add(QueueTransitionEntity.of(next, date, nodeId, encode(record), now));
+            if (record.getType() == JournalRecord.Type.ISSUE) {
+                state.setLastNumber(Math.max(state.getLastNumber(), record.getSequence()));
+            }
+        }
+        transitionRepository.saveAll(entities);
+        state.setLastTransition(next);
+    }
+
+    private static String encode(JournalRecord record) {
+        String line = FileQueueJournal.encode(record);
+        return line.substring(0, line.length() - 1);
+    }
+
+    private JournalRecord decode(QueueTransitionEntity transition) {
+        JournalRecord record = FileQueueJournal.decode(transition.getPayload());
+        if (record == null) {
+            log.warn("Transisi antrean cluster #{} tidak dapat dibaca, dilewati", transition.getId());
+        }
+        return record;
+    }
+
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -4,14 +4,13 @@ import com.panggilan.loket.config.TicketPrintProperties;
 import com.panggilan.loket.model.Ticket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PreDestroy;
+import javax.annotation.PostConstruct;
 import javax.print.PrintService;
 import javax.print.PrintServiceLookup;
 import java.awt.Color;
-import java.awt.Font;
-import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.GraphicsEnvironment;
 import java.awt.RenderingHints;
@@ -20,86 +19,134 @@ import java.awt.print.Paper;
 import java.awt.print.Printable;
 import java.awt.print.PrinterException;
 import java.awt.print.PrinterJob;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mencetak tiket melalui AWT {@link PrinterJob}. Daftar print service sistem dipindai sekali lalu diperbarui
+ * di latar ({@code printer.ticket.discovery-refresh}), dan setiap printer bernama memakai sesi sendiri
+ * ({@link PrinterJob} dan {@link PageFormat}) yang hanya dibangun ulang bila service-nya berganti atau gagal.
+ */
 @Component
-public class DefaultTicketPrinter implements TicketPrinter {
+@ConditionalOnProperty(prefix = "printer.ticket", name = "backend", havingValue = "awt", matchIfMissing = true)
+public class DefaultTicketPrinter extends QueuedTicketPrinter {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultTicketPrinter.class);
-    private static final DateTimeFormatter DATE_FORMATTER =
-        DateTimeFormatter.ofPattern("dd MMMM yyyy", new Locale("id", "ID"));
     private static final double CM_TO_POINTS = 72d / 2.54d;
-    private static final String REMINDER_MESSAGE = "Simpan nomor ini hingga anda memasuki ruangan poli";
-    private static final String CARD_TITLE = "Nomor Antrian";
-    private static final String SUPPORTING_MESSAGE = "Harap menunggu panggilan petugas.";
 
-    private final TicketPrintProperties properties;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread thread = new Thread(r, "ticket-print-worker");
+    private final ScheduledExecutorService discovery = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "ticket-printer-discovery");
         thread.setDaemon(true);
         return thread;
     });
+    // Sesi per id printer; setiap sesi hanya dipakai oleh thread pekerja printernya.
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private volatile Map<String, PrintService> servicesByName = Map.of();
+    private volatile PrintService defaultService;
+    private volatile boolean discovered;
+    private volatile TicketTemplate template;
 
     public DefaultTicketPrinter(TicketPrintProperties properties) {
-        this.properties = properties;
+        super(properties);
     }
 
-    @Override
-    public void printTicket(Ticket ticket) {
+    @PostConstruct
+    void startDiscovery() {
         if (!properties.isEnabled()) {
             return;
         }
-        if (ticket == null) {
-            return;
-        }
-        executor.execute(() -> {
-            try {
-                doPrint(ticket);
-            } catch (Exception ex) {
-                log.error("Gagal mencetak tiket {}", ticket.getNumber(), ex);
-            }
-        });
+        long period = Math.max(properties.getDiscoveryRefresh().toMillis(), 1000);
+        discovery.scheduleWithFixedDelay(this::refreshServices, 0, period, TimeUnit.MILLISECONDS);
     }
 
-    @PreDestroy
+    @Override
     void shutdown() {
-        executor.shutdownNow();
+        discovery.shutdownNow();
+        super.shutdown();
     }
 
-    private void doPrint(Ticket ticket) {
+    @Override
+    String backend() {
+        return TicketPrintProperties.Backend.AWT.name();
+    }
+
+    /**
+     * Memindai ulang print service sistem; di CUPS pemindaian bisa memakan ratusan milidetik sehingga
+     * tidak dijalankan di jalur cetak.
+     */
+    void refreshServices() {
+        try {
+            Map<String, PrintService> byName = new HashMap<>();
+            for (PrintService service : PrintServiceLookup.lookupPrintServices(null, null)) {
+                byName.put(service.getName().toLowerCase(Locale.ROOT), service);
+            }
+            servicesByName = Map.copyOf(byName);
+            defaultService = PrintServiceLookup.lookupDefaultPrintService();
+            discovered = true;
+        } catch (RuntimeException ex) {
+            log.warn("Gagal memindai printer sistem: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Mengirim tiket ke print service printer bernama. Dijalankan oleh pekerja {@link PrintQueue}; kegagalan
+     * dilempar agar pekerjaan tercatat gagal atau diulang.
+     */
+    @Override
+    void print(TicketPrintProperties.PrinterDefinition printer, List<Ticket> tickets) throws PrinterException {
         if (GraphicsEnvironment.isHeadless()) {
-            log.error("Lingkungan Java berjalan dalam mode headless, cetak tiket {} dibatalkan. Pastikan -Djava.awt.headless=false.", ticket.getNumber());
-            return;
+            throw new IllegalStateException(
+                    "Lingkungan Java berjalan dalam mode headless. Pastikan -Djava.awt.headless=false.");
         }
-        PrintService printService = PrintServiceLookup.lookupDefaultPrintService();
-        if (printService == null) {
-            log.warn("Tidak ada printer default yang terdeteksi. Cetak tiket {} dilewati.", ticket.getNumber());
-            return;
+        PrintService service = serviceFor(printer);
+        if (service == null) {
+            // Printer mungkin baru dipasang: pindai ulang sekali sebelum menyerah.
+            refreshServices();
+            service = serviceFor(printer);
         }
-        PrinterJob job = PrinterJob.getPrinterJob();
-        job.setJobName("Tiket " + ticket.getNumber());
-        try {
-            job.setPrintService(printService);
-        } catch (PrinterException ex) {
-            log.error("Gagal mengikat printer default untuk tiket {}", ticket.getNumber(), ex);
-            return;
+        if (service == null) {
+            throw new PrinterException(printer.getServiceName() == null || printer.getServiceName().isBlank()
+                    ? "Tidak ada printer default yang terdeteksi"
+                    : "Printer " + printer.getServiceName() + " tidak ditemukan");
+        }
+        Session session = sessions.get(printer.getId());
+        if (session == null || !session.service.equals(service)) {
+            session = new Session(service);
+            sessions.put(printer.getId(), session);
         }
-        PageFormat pageFormat = configurePageFormat(job);
-        job.setPrintable(new TicketPrintable(ticket), pageFormat);
         try {
-            job.print();
-        } catch (PrinterException ex) {
-            log.error("Gagal mencetak tiket {}", ticket.getNumber(), ex);
+            session.print(tickets);
+        } catch (PrinterException | RuntimeException ex) {
+            sessions.remove(printer.getId());
+            throw ex;
+        }
+    }
+
+    private PrintService serviceFor(TicketPrintProperties.PrinterDefinition printer) {
+        if (!discovered) {
+            refreshServices();
+        }
+        String name = printer.getServiceName();
+        if (name == null || name.isBlank()) {
+            return defaultService;
         }
+        return servicesByName.get(name.trim().toLowerCase(Locale.ROOT));
     }
 
-    private PageFormat configurePageFormat(PrinterJob job) {
+    static String describe(List<Ticket> tickets) {
+        if (tickets.size() == 1) {
+            return tickets.get(0).getNumber();
+        }
+        return tickets.get(0).getNumber() + " s.d. " + tickets.get(tickets.size() - 1).getNumber();
+    }
+
+    private static PageFormat configurePageFormat(PrinterJob job) {
         PageFormat format = job.defaultPage();
         Paper paper = format.getPaper();
         double width = cmToPoints(7.8);
@@ -111,284 +158,69 @@ public class DefaultTicketPrinter implements TicketPrinter {
         return format;
     }
 
-    private double cmToPoints(double valueInCm) {
+    private static double cmToPoints(double valueInCm) {
         return valueInCm * CM_TO_POINTS;
     }
 
+    /**
+     * Template tata letak untuk halaman ini; diukur ulang hanya bila pengaturan cetak (nama instansi, alamat,
+     * ukuran font) atau ukuran halaman berubah sejak template terakhir dibangun.
+     */
+    TicketTemplate templateFor(Graphics2D g2, double width, double height) {
+        TicketTemplate current = template;
+        if (current == null || !current.matches(properties, g2.getFontRenderContext(), width, height)) {
+            current = TicketTemplate.build(properties, g2, width, height);
+            template = current;
+        }
+        return current;
+    }
+
+    /**
+     * {@link PrinterJob} dan {@link PageFormat} yang terikat ke satu print service.
+     */
+    private final class Session {
+
+        private final PrintService service;
+        private final PrinterJob job;
+        private final PageFormat pageFormat;
+
+        private Session(PrintService service) throws PrinterException {
+            this.service = service;
+            this.job = PrinterJob.getPrinterJob();
+            this.job.setPrintService(service);
+            this.pageFormat = configurePageFormat(job);
+        }
+
+        private void print(List<Ticket> tickets) throws PrinterException {
+            job.setJobName("Tiket " + describe(tickets));
+            job.setPrintable(new TicketPrintable(tickets), pageFormat);
+            job.print();
+        }
+    }
+
     private final class TicketPrintable implements Printable {
 
-        private final Ticket ticket;
+        private final List<Ticket> tickets;
 
-        private TicketPrintable(Ticket ticket) {
-            this.ticket = ticket;
+        private TicketPrintable(List<Ticket> tickets) {
+            this.tickets = tickets;
         }
 
         @Override
         public int print(java.awt.Graphics graphics, PageFormat pageFormat, int pageIndex) {
-            if (pageIndex > 0) {
+            if (pageIndex >= tickets.size()) {
                 return NO_SUCH_PAGE;
             }
+            Ticket ticket = tickets.get(pageIndex);
             Graphics2D g2 = (Graphics2D) graphics;
             g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
             g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
             g2.setColor(Color.BLACK);
             g2.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
 
-            double width = pageFormat.getImageableWidth();
-            double height = pageFormat.getImageableHeight();
-
-        Font headerFont = new Font("SansSerif", Font.BOLD, properties.getHeaderFontSize());
-        int footerSize = Math.max(properties.getFooterFontSize() - 2, 8);
-        Font footerFont = new Font("SansSerif", Font.PLAIN, footerSize);
-        Font sectionFont = new Font("SansSerif", Font.PLAIN,
-            Math.max(properties.getFooterFontSize() + 2, 12));
-        Font dateFont = new Font("SansSerif", Font.PLAIN, Math.max(footerSize - 1, 8));
-
-        String footerText = buildFooterText(ticket);
-        String dateText = buildDateLine(ticket);
-        g2.setFont(footerFont);
-        int footerHeight = measureMultilineHeight(g2.getFontMetrics(footerFont), footerText);
-        int footerPadding = footerHeight == 0 ? 0 : 30;
-
-        int yTop = 18;
-        yTop = drawCenteredLines(g2, headerFont,
-            safeValue(properties.getInstitutionName(), "RS C"), width, yTop);
-        yTop += 12;
-
-        yTop = drawSectionTitle(g2, sectionFont, width, yTop);
-        yTop += 4;
-        if (dateText != null && !dateText.isBlank()) {
-            yTop = drawCenteredLines(g2, dateFont, dateText, width, yTop);
-            yTop += 8;
-        }
-        drawSeparator(g2, width, yTop);
-        yTop += 20;
-
-        int availableHeight = (int) Math.round(height - footerHeight - footerPadding - yTop);
-        drawTicketBody(g2, ticket, width, yTop, Math.max(availableHeight, 160));
-
-        drawFooter(g2, footerFont, footerText, width, height);
-
+            TicketTemplate layout = templateFor(g2, pageFormat.getImageableWidth(), pageFormat.getImageableHeight());
+            layout.draw(g2, ticket == null ? null : ticket.getNumber(), TicketTemplate.dateLine(ticket));
             return PAGE_EXISTS;
         }
-
-        private int drawCenteredLines(Graphics2D g2, Font font, String text, double width, int startY) {
-            if (text == null || text.isBlank()) {
-                return startY;
-            }
-            g2.setFont(font);
-            FontMetrics metrics = g2.getFontMetrics(font);
-            List<String> lines = Arrays.asList(text.split("\\R"));
-            int y = startY;
-            for (String raw : lines) {
-                String line = raw.trim();
-                if (line.isEmpty()) {
-                    y += metrics.getHeight();
-                    continue;
-                }
-                int lineWidth = metrics.stringWidth(line);
-                int x = (int) Math.max((width - lineWidth) / 2, 0);
-                g2.drawString(line, x, y + metrics.getAscent());
-                y += metrics.getHeight();
-            }
-            return y;
-        }
-
-        private int drawCenteredLinesInBox(Graphics2D g2, Font font, String text, int boxLeft, int boxWidth, int startY) {
-            if (text == null || text.isBlank()) {
-                return startY;
-            }
-            g2.setFont(font);
-            FontMetrics metrics = g2.getFontMetrics(font);
-            List<String> lines = Arrays.asList(text.split("\\R"));
-            int y = startY;
-            for (String raw : lines) {
-                String line = raw.trim();
-                if (line.isEmpty()) {
-                    y += metrics.getHeight();
-                    continue;
-                }
-                int lineWidth = metrics.stringWidth(line);
-                int x = boxLeft + Math.max((boxWidth - lineWidth) / 2, 0);
-                g2.drawString(line, x, y + metrics.getAscent());
-                y += metrics.getHeight();
-            }
-            return y;
-        }
-
-        private void drawFooter(Graphics2D g2, Font font, String text, double width, double height) {
-            if (text == null || text.isBlank()) {
-                return;
-            }
-            g2.setFont(font);
-            FontMetrics metrics = g2.getFontMetrics(font);
-            List<String> lines = Arrays.asList(text.split("\\R"));
-            int totalHeight = lines.size() * metrics.getHeight();
-            int bottomMargin = 18;
-            int startY = (int) Math.max(height - totalHeight - bottomMargin, 0);
-            int y = startY;
-            for (String raw : lines) {
-                String line = raw.trim();
-                if (line.isEmpty()) {
-                    y += metrics.getHeight();
-                    continue;
-                }
-                int lineWidth = metrics.stringWidth(line);
-                int x = (int) Math.max((width - lineWidth) / 2, 0);
-                g2.drawString(line, x, y + metrics.getAscent());
-                y += metrics.getHeight();
-            }
-        }
-
-        private String safeValue(String value, String fallback) {
-            return value == null || value.isBlank() ? fallback : value;
-        }
-
-        private String buildFooterText(Ticket ticket) {
-            String address = safeValue(properties.getAddress(), "Alamat Instansi").trim();
-            String wrappedAddress = wrapText(address, 32).trim();
-            return wrappedAddress;
-        }
-
-        private String buildDateLine(Ticket ticket) {
-            LocalDate date = ticket == null || ticket.getDisplayDate() == null
-                    ? LocalDate.now()
-                    : ticket.getDisplayDate();
-            try {
-                return DATE_FORMATTER.format(date);
-            } catch (Exception ex) {
-                return date.toString();
-            }
-        }
-
-        private int drawSectionTitle(Graphics2D g2, Font font, double width, int startY) {
-            return drawCenteredLines(g2, font, CARD_TITLE, width, startY);
-        }
-
-        private void drawSeparator(Graphics2D g2, double width, int centerY) {
-            int margin = (int) Math.max(width * 0.12, 20);
-            int lineY = centerY;
-            g2.drawLine(margin, lineY, (int) width - margin, lineY);
-        }
-
-        private void drawTicketBody(Graphics2D g2, Ticket ticket, double width, int top, int bodyHeight) {
-            int adjustedBodyHeight = Math.max(bodyHeight, 140);
-            int pageWidth = (int) Math.round(width);
-            int cardLeft = 12;
-            int cardWidth = pageWidth - (cardLeft * 2);
-            if (cardWidth < 160) {
-                cardLeft = Math.max((pageWidth - 160) / 2, 8);
-                cardWidth = pageWidth - (cardLeft * 2);
-            }
-            if (cardWidth < 120) {
-                cardLeft = Math.max((pageWidth - 120) / 2, 4);
-                cardWidth = pageWidth - (cardLeft * 2);
-            }
-            cardWidth = Math.max(cardWidth, Math.min(pageWidth - 20, pageWidth));
-            g2.drawRoundRect(cardLeft, top, cardWidth, adjustedBodyHeight, 18, 18);
-
-            int contentTop = top + 32;
-            int contentHeight = adjustedBodyHeight - 64;
-            if (contentHeight < 90) {
-                contentHeight = Math.max(adjustedBodyHeight - 48, 80);
-            }
-            drawTicketNumberBlock(g2, ticket, cardLeft, cardWidth, contentTop, contentHeight);
-        }
-
-        private void drawTicketNumberBlock(Graphics2D g2, Ticket ticket, int boxLeft, int boxWidth, int top, int blockHeight) {
-            String number = ticket == null ? null : ticket.getNumber();
-            if (number == null || number.isBlank()) {
-                return;
-            }
-
-            Font numberFont = new Font("SansSerif", Font.BOLD, properties.getTicketFontSize());
-            Font reminderFont = new Font("SansSerif", Font.PLAIN, Math.max(properties.getFooterFontSize(), 11));
-            Font supportingFont = reminderFont.deriveFont(Font.ITALIC, Math.max(reminderFont.getSize() - 1f, 10f));
-
-            String wrappedReminder = wrapText(REMINDER_MESSAGE, 28);
-            String supportingText = SUPPORTING_MESSAGE;
-
-            FontMetrics numberMetrics = g2.getFontMetrics(numberFont);
-            FontMetrics reminderMetrics = g2.getFontMetrics(reminderFont);
-            FontMetrics supportingMetrics = g2.getFontMetrics(supportingFont);
-
-            int reminderHeight = measureMultilineHeight(reminderMetrics, wrappedReminder);
-            int supportingHeight = supportingText.isBlank() ? 0 : supportingMetrics.getHeight();
-            int spacingAfterNumber = 14;
-            int spacingBeforeSupporting = supportingHeight == 0 ? 0 : 10;
-            int requiredHeight = numberMetrics.getHeight() + spacingAfterNumber + reminderHeight + spacingBeforeSupporting + supportingHeight;
-            int verticalOffset = Math.max((blockHeight - requiredHeight) / 2, 0);
-
-            int baseline = top + verticalOffset + numberMetrics.getAscent();
-            drawCenteredString(g2, numberFont, number, boxLeft, boxWidth, baseline);
-
-            int currentTop = baseline + spacingAfterNumber;
-            currentTop = drawCenteredLinesInBox(g2, reminderFont, wrappedReminder, boxLeft, boxWidth, currentTop);
-            if (!supportingText.isBlank()) {
-                currentTop += spacingBeforeSupporting;
-                drawCenteredLinesInBox(g2, supportingFont, supportingText, boxLeft, boxWidth, currentTop);
-            }
-        }
-
-        private void drawCenteredString(Graphics2D g2, Font font, String text, int boxLeft, int boxWidth, int baselineY) {
-            if (text == null || text.isBlank()) {
-                return;
-            }
-            g2.setFont(font);
-            FontMetrics metrics = g2.getFontMetrics(font);
-            int lineWidth = metrics.stringWidth(text);
-            int x = boxLeft + Math.max((boxWidth - lineWidth) / 2, 0);
-            g2.drawString(text, x, baselineY);
-        }
-
-        private int measureMultilineHeight(FontMetrics metrics, String text) {
-            if (metrics == null || text == null || text.isBlank()) {
-                return 0;
-            }
-            int lines = countLines(text);
-            return lines * metrics.getHeight();
-        }
-
-        private int countLines(String text) {
-            if (text == null || text.isBlank()) {
-                return 0;
-            }
-            String[] parts = text.split("\\r?\\n");
-            int count = 0;
-            for (String part : parts) {
-                if (!part.trim().isEmpty()) {
-                    count++;
-                }
-            }
-            return count;
-        }
-
-        private String wrapText(String text, int maxCharactersPerLine) {
-            if (text == null || text.isBlank() || maxCharactersPerLine <= 0) {
-                return text == null ? "" : text;
-            }
-            StringBuilder builder = new StringBuilder();
-            int lineLength = 0;
-            for (String word : text.split("\\s+")) {
-                if (word.isEmpty()) {
-                    continue;
-                }
-                int prospective = lineLength == 0 ? word.length() : lineLength + 1 + word.length();
-                if (prospective > maxCharactersPerLine) {
-                    if (builder.length() > 0) {
-                        builder.append(System.lineSeparator());
-                    }
-                    builder.append(word);
-                    lineLength = word.length();
-                } else {
-                    if (lineLength > 0) {
-                        builder.append(' ');
-                    }
-                    builder.append(word);
-                    lineLength = prospective;
-                }
-            }
-            return builder.toString();
-        }
     }
 }
@@ -0,0 +1,269 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Menyusun aliran byte ESC/POS untuk printer thermal tanpa AWT print spooler. Teks dikirim sebagai perintah
+ * teks printer; hanya logo dan nama instansi yang dirender menjadi raster ({@code GS v 0}), dan raster itu
+ * disimpan sampai nama instansi, ukuran font judul, lebar kertas atau logo berubah.
+ * <p>
+ * Perenderan raster memakai {@link BufferedImage} sehingga tetap berjalan dalam mode headless.
+ */
+final class EscPosTicketEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(EscPosTicketEncoder.class);
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+    // Resolusi umum printer thermal (203 dpi) terhadap satuan point font.
+    private static final double POINTS_TO_DOTS = 203d / 72d;
+    private static final int MAX_LOGO_HEIGHT = 240;
+
+    private final TicketPrintProperties properties;
+    // Raster judul per tujuan ESC/POS, karena printer bernama dapat memakai lebar kertas dan logo berbeda.
+    private final Map<TicketPrintProperties.EscPos, HeaderRaster> headers = new ConcurrentHashMap<>();
+
+    EscPosTicketEncoder(TicketPrintProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Seluruh tiket dalam satu aliran byte; kertas dipotong setelah setiap tiket.
+     */
+    byte[] encode(List<Ticket> tickets, TicketPrintProperties.EscPos settings) {
+        int columns = Math.max(settings.getCharactersPerLine(), 16);
+        byte[] headerBytes = headerRaster(settings).bytes;
+        String separator = "-".repeat(columns);
+        List<String> reminder = lines(TicketTemplate.wrapText(TicketTemplate.REMINDER_MESSAGE, columns));
+        List<String> footer = lines(TicketTemplate.wrapText(
+                safeValue(properties.getAddress(), "Alamat Instansi").trim(), columns));
+        int numberSize = characterSize(properties.getTicketFontSize());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + tickets.size() * (headerBytes.length + 512));
+        command(out, ESC, '@');
+        for (Ticket ticket : tickets) {
+            command(out, ESC, 'a', 1);
+            out.writeBytes(headerBytes);
+            text(out, TicketTemplate.CARD_TITLE);
+            text(out, TicketTemplate.dateLine(ticket));
+            text(out, separator);
+            out.write(LF);
+
+            command(out, GS, '!', numberSize);
+            command(out, ESC, 'E', 1);
+            text(out, ticket.getNumber());
+            command(out, ESC, 'E', 0);
+            command(out, GS, '!', 0);
+            out.write(LF);
+
+            reminder.forEach(line -> text(out, line));
+            text(out, TicketTemplate.SUPPORTING_MESSAGE);
+            text(out, separator);
+            footer.forEach(line -> text(out, line));
+
+            command(out, ESC, 'd', 4);
+            if (settings.isCut()) {
+                command(out, GS, 'V', 66, 0);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private HeaderRaster headerRaster(TicketPrintProperties.EscPos settings) {
+        HeaderRaster current = headers.get(settings);
+        if (current == null || !current.matches(properties, settings)) {
+            current = new HeaderRaster(properties, settings);
+            headers.put(settings, current);
+        }
+        return current;
+    }
+
+    /**
+     * Nilai {@code GS !} untuk ukuran nomor: kelipatan lebar dan tinggi karakter dasar (12x24 titik).
+     */
+    private static int characterSize(int fontSize) {
+        int multiplier = Math.min(Math.max((int) Math.round(fontSize / 12d), 1), 8);
+        return ((multiplier - 1) << 4) | (multiplier - 1);
+    }
+
+    private static void command(ByteArrayOutputStream out, byte prefix, int... args) {
+        out.write(prefix);
+        for (int arg : args) {
+            out.write(arg);
+        }
+    }
+
+    private static void text(ByteArrayOutputStream out, String value) {
+        if (value != null) {
+            out.writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+        }
+        out.write(LF);
+    }
+
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String raw : text.split("\\R")) {
+            String line = raw.trim();
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static String safeValue(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    private static final class HeaderRaster {
+        private final String institutionName;
+        private final int headerFontSize;
+        private final int widthDots;
+        private final String logo;
+        private final byte[] bytes;
+
+        private HeaderRaster(TicketPrintProperties properties, TicketPrintProperties.EscPos settings) {
+            this.institutionName = properties.getInstitutionName();
+            this.headerFontSize = properties.getHeaderFontSize();
+            this.widthDots = Math.max(settings.getPaperWidthDots(), 8) & ~7;
+            this.logo = settings.getLogo();
+            this.bytes = toRasterCommand(render());
+        }
+
+        private boolean matches(TicketPrintProperties properties, TicketPrintProperties.EscPos settings) {
+            return Objects.equals(institutionName, properties.getInstitutionName())
+                    && headerFontSize == properties.getHeaderFontSize()
+                    && widthDots == (Math.max(settings.getPaperWidthDots(), 8) & ~7)
+                    && Objects.equals(logo, settings.getLogo());
+        }
+
+        private BufferedImage render() {
+            BufferedImage logoImage = loadLogo();
+            int logoHeight = 0;
+            int logoWidth = 0;
+            if (logoImage != null) {
+                double scale = Math.min(1d, Math.min(widthDots / (double) logoImage.getWidth(),
+                        MAX_LOGO_HEIGHT / (double) logoImage.getHeight()));
+                logoWidth = Math.max((int) Math.round(logoImage.getWidth() * scale), 1);
+                logoHeight = Math.max((int) Math.round(logoImage.getHeight() * scale), 1);
+            }
+
+            Font font = new Font("SansSerif", Font.BOLD,
+                    Math.max((int) Math.round(headerFontSize * POINTS_TO_DOTS), 12));
+            BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D probeGraphics = probe.createGraphics();
+            FontMetrics metrics = probeGraphics.getFontMetrics(font);
+            List<String> lines = wrap(metrics, safeValue(institutionName, "RS C"));
+            probeGraphics.dispose();
+
+            int gap = logoHeight == 0 ? 0 : 12;
+            int height = Math.max(logoHeight + gap + lines.size() * metrics.getHeight() + 8, 1);
+            BufferedImage image = new BufferedImage(widthDots, height, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g2 = image.createGraphics();
+            try {
+                g2.setColor(Color.WHITE);
+                g2.fillRect(0, 0, widthDots, height);
+                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                if (logoImage != null) {
+                    g2.drawImage(logoImage, (widthDots - logoWidth) / 2, 0, logoWidth, logoHeight, null);
+                }
+                g2.setColor(Color.BLACK);
+                g2.setFont(font);
+                int y = logoHeight + gap;
+                for (String line : lines) {
+                    int x = Math.max((widthDots - metrics.stringWidth(line)) / 2, 0);
+                    g2.drawString(line, x, y + metrics.getAscent());
+                    y += metrics.getHeight();
+                }
+            } finally {
+                g2.dispose();
+            }
+            return image;
+        }
+
+        private BufferedImage loadLogo() {
+            if (logo == null || logo.isBlank()) {
+                return null;
+            }
+            try {
+                BufferedImage image = ImageIO.read(Path.of(logo.trim()).toFile());
+                if (image == null) {
+                    log.warn("Format logo tiket {} tidak dikenali, logo dilewati.", logo);
+                }
+                return image;
+            } catch (IOException ex) {
+                log.warn("Gagal membaca logo tiket {}: {}", logo, ex.getMessage());
+                return null;
+            }
+        }
+
+        private List<String> wrap(FontMetrics metrics, String text) {
+            List<String> lines = new ArrayList<>();
+            for (String raw : text.split("\\R")) {
+                StringBuilder line = new StringBuilder();
+                for (String word : raw.trim().split("\\s+")) {
+                    if (word.isEmpty()) {
+                        continue;
+                    }
+                    String candidate = line.length() == 0 ? word : line + " " + word;
+                    if (line.length() > 0 && metrics.stringWidth(candidate) > widthDots) {
+                        lines.add(line.toString());
+                        line.setLength(0);
+                        line.append(word);
+                    } else {
+                        line.setLength(0);
+                        line.append(candidate);
+                    }
+                }
+                if (line.length() > 0) {
+                    lines.add(line.toString());
+                }
+            }
+            return lines;
+        }
+
+        private static byte[] toRasterCommand(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int bytesPerRow = (width + 7) / 8;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8 + bytesPerRow * height + 1);
+            command(out, GS, 'v', '0', 0,
+                    bytesPerRow & 0xFF, (bytesPerRow >> 8) & 0xFF,
+                    height & 0xFF, (height >> 8) & 0xFF);
+            for (int y = 0; y < height; y++) {
+                for (int column = 0; column < bytesPerRow; column++) {
+                    int packed = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        int x = column * 8 + bit;
+                        if (x < width && (image.getRGB(x, y) & 0xFF) < 128) {
+                            packed |= 0x80 >> bit;
+                        }
+                    }
+                    out.write(packed);
+                }
+            }
+            out.write(LF);
+            return out.toByteArray();
+        }
+    }
+}
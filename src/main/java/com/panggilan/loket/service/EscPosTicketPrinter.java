@@ -0,0 +1,128 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mencetak tiket ke printer thermal dengan perintah ESC/POS mentah, tanpa {@code PrinterJob} dan tanpa sesi
+ * desktop. Byte dikirim ke file perangkat (mis. {@code /dev/usb/lp0}), port TCP printer jaringan (9100),
+ * atau antrean CUPS dalam mode raw, sesuai {@code printer.ticket.escpos.transport}.
+ * <p>
+ * Aktif bila {@code printer.ticket.backend=escpos}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "printer.ticket", name = "backend", havingValue = "escpos")
+public class EscPosTicketPrinter extends QueuedTicketPrinter {
+
+    private static final Logger log = LoggerFactory.getLogger(EscPosTicketPrinter.class);
+
+    private final EscPosTicketEncoder encoder;
+
+    public EscPosTicketPrinter(TicketPrintProperties properties) {
+        super(properties);
+        this.encoder = new EscPosTicketEncoder(properties);
+    }
+
+    @Override
+    String backend() {
+        return TicketPrintProperties.Backend.ESCPOS.name();
+    }
+
+    /**
+     * Menyusun dan mengirim tiket secara sinkron di thread pemanggil, memakai tujuan ESC/POS printer tersebut
+     * atau {@code printer.ticket.escpos} bila tidak diatur.
+     */
+    @Override
+    void print(TicketPrintProperties.PrinterDefinition printer, List<Ticket> tickets) throws IOException {
+        TicketPrintProperties.EscPos settings = printer.getEscpos() == null ? properties.getEscpos() : printer.getEscpos();
+        long started = System.nanoTime();
+        byte[] payload = encoder.encode(tickets, settings);
+        send(settings, payload);
+        log.debug("Tiket {} terkirim ke printer ESC/POS {} ({} byte, {} ms)", DefaultTicketPrinter.describe(tickets),
+                printer.getId(), payload.length, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void send(TicketPrintProperties.EscPos settings, byte[] payload) throws IOException {
+        int timeoutMillis = (int) Math.max(settings.getTimeout().toMillis(), 1);
+        switch (settings.getTransport()) {
+            case TCP:
+                sendTcp(settings, payload, timeoutMillis);
+                break;
+            case CUPS:
+                sendCups(settings, payload, timeoutMillis);
+                break;
+            case DEVICE:
+            default:
+                sendDevice(settings, payload);
+                break;
+        }
+    }
+
+    private void sendDevice(TicketPrintProperties.EscPos settings, byte[] payload) throws IOException {
+        if (settings.getDevice() == null || settings.getDevice().isBlank()) {
+            throw new IOException("File perangkat printer ESC/POS belum diatur");
+        }
+        // Tanpa CREATE: bila printer dicabut, file perangkat hilang dan pencetakan harus gagal
+        // (NoSuchFileException) agar dicoba ulang, bukan menulis ke file biasa yang dibuat di tempatnya.
+        try (OutputStream out = Files.newOutputStream(Path.of(settings.getDevice().trim()),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    private void sendTcp(TicketPrintProperties.EscPos settings, byte[] payload, int timeoutMillis) throws IOException {
+        if (settings.getHost() == null || settings.getHost().isBlank()) {
+            throw new IOException("Alamat printer jaringan ESC/POS belum diatur");
+        }
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(settings.getHost().trim(), settings.getPort()), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            OutputStream out = socket.getOutputStream();
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    private void sendCups(TicketPrintProperties.EscPos settings, byte[] payload, int timeoutMillis) throws IOException {
+        List<String> command = new ArrayList<>(List.of("lp", "-s", "-o", "raw"));
+        if (settings.getCupsQueue() != null && !settings.getCupsQueue().isBlank()) {
+            command.add("-d");
+            command.add(settings.getCupsQueue().trim());
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(payload);
+        }
+        try {
+            if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("Perintah lp tidak selesai dalam " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            throw new IOException("Pengiriman ke CUPS terputus", ex);
+        }
+        if (process.exitValue() != 0) {
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            throw new IOException("lp gagal (kode " + process.exitValue() + "): " + output);
+        }
+    }
+}
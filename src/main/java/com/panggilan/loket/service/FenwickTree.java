@@ -0,0 +1,53 @@
+package com.panggilan.loket.service;
+
+import java.util.Arrays;
+
+/**
+ * Fenwick tree (binary indexed tree) untuk jumlah prefiks atas slot kedatangan; kapasitas bertambah
+ * otomatis dengan kelipatan dua. Tidak thread-safe.
+ */
+final class FenwickTree {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Indeks 1-based; panjang array selalu kapasitas + 1 dengan kapasitas pangkat dua.
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+
+    void add(int slot, int delta) {
+        ensureCapacity(slot + 1);
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Jumlah nilai pada slot {@code 0..slot} (inklusif).
+     */
+    int prefixSum(int slot) {
+        int sum = 0;
+        for (int i = Math.min(slot + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    void clear() {
+        if (tree.length > INITIAL_CAPACITY + 1) {
+            tree = new int[INITIAL_CAPACITY + 1];
+        } else {
+            Arrays.fill(tree, 0);
+        }
+    }
+
+    private void ensureCapacity(int index) {
+        int capacity = tree.length - 1;
+        while (index > capacity) {
+            // Node baru (capacity, 2*capacity) mencakup rentang yang masih kosong; hanya node 2*capacity
+            // yang mencakup seluruh isi lama, yaitu tree[capacity].
+            int[] grown = Arrays.copyOf(tree, capacity * 2 + 1);
+            grown[capacity * 2] = tree[capacity];
+            tree = grown;
+            capacity *= 2;
+        }
+    }
+}
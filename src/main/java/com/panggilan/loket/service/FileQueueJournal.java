@@ -0,0 +1,321 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.QueueJournalProperties;
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal antrean berbasis berkas teks append-only. Setiap baris berisi CRC32 dari muatannya sehingga
+ * baris terakhir yang terpotong saat aplikasi mati mendadak dapat dikenali dan dibuang saat replay.
+ * Checkpoint ditulis ke berkas sementara lalu dipindahkan secara atomik menggantikan jurnal lama.
+ */
+@Component
+public class FileQueueJournal implements QueueJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FileQueueJournal.class);
+    private static final char SEPARATOR = '\t';
+    private static final int FIELD_COUNT = 15;
+
+    private final QueueJournalProperties properties;
+    private final Path path;
+    private FileChannel channel;
+    private int recordsSinceCheckpoint;
+
+    public FileQueueJournal(QueueJournalProperties properties) {
+        this.properties = properties;
+        this.path = Paths.get(properties.getPath()).toAbsolutePath();
+    }
+
+    @Override
+    public synchronized void append(JournalRecord record) {
+        if (!properties.isEnabled() || record == null) {
+            return;
+        }
+        try {
+            FileChannel target = openChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(encode(record).getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            if (properties.isFsync()) {
+                target.force(false);
+            }
+            recordsSinceCheckpoint++;
+        } catch (IOException ex) {
+            log.error("Gagal menulis jurnal antrean {}: {}", path, ex.getMessage());
+            closeQuietly();
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint(List<JournalRecord> state) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            createParentDirectories();
+            StringBuilder builder = new StringBuilder();
+            for (JournalRecord record : state) {
+                builder.append(encode(record));
+            }
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            closeQuietly();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordsSinceCheckpoint = 0;
+        } catch (IOException ex) {
+            log.error("Gagal menulis checkpoint jurnal antrean {}: {}", path, ex.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized List<JournalRecord> replay() {
+        if (!properties.isEnabled() || !Files.exists(path)) {
+            return List.of();
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        long validLength = 0;
+        try {
+            byte[] content = Files.readAllBytes(path);
+            int start = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                String line = new String(content, start, i - start, StandardCharsets.UTF_8);
+                JournalRecord record = decode(line);
+                if (record == null) {
+                    break;
+                }
+                records.add(record);
+                start = i + 1;
+                validLength = start;
+            }
+            if (validLength < content.length) {
+                log.warn("Jurnal antrean {} memiliki ekor rusak sepanjang {} byte, diabaikan.",
+                        path, content.length - validLength);
+                try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    truncate.truncate(validLength);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.error("Gagal membaca jurnal antrean {}: {}", path, ex.getMessage());
+        }
+        recordsSinceCheckpoint = records.size();
+        return records;
+    }
+
+    @Override
+    public synchronized boolean shouldCheckpoint() {
+        return properties.isEnabled() && recordsSinceCheckpoint >= Math.max(properties.getCheckpointInterval(), 1);
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.force(true);
+            } catch (IOException ex) {
+                log.warn("Gagal menyinkronkan jurnal antrean {}: {}", path, ex.getMessage());
+            }
+        }
+        closeQuietly();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            createParentDirectories();
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void createParentDirectories() throws IOException {
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private void closeQuietly() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // channel sudah tidak dapat dipakai
+        }
+        channel = null;
+    }
+
+    static String encode(JournalRecord record) {
+        Ticket ticket = record.getTicket();
+        String[] fields = {
+                record.getType().name(),
+                record.getDate() == null ? null : record.getDate().toString(),
+                Integer.toString(record.getSequence()),
+                record.getCounterId(),
+                record.getTargetCounterId(),
+                record.getName(),
+                record.getTicketId(),
+                record.getTime() == null ? null : record.getTime().toString(),
+                ticket == null ? null : ticket.getId(),
+                ticket == null ? null : ticket.getNumber(),
+                ticket == null || ticket.getIssuedAt() == null ? null : ticket.getIssuedAt().toString(),
+                ticket == null || ticket.getDisplayDate() == null ? null : ticket.getDisplayDate().toString(),
+                ticket == null ? null : ticket.getCounterId(),
+                ticket == null ? null : ticket.getCounterName(),
+                ticket == null ? null : ticket.getPatientType().name()
+        };
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                payload.append(SEPARATOR);
+            }
+            escape(fields[i], payload);
+        }
+        String body = payload.toString();
+        return String.format("%08x", crc(body)) + SEPARATOR + body + '\n';
+    }
+
+    static JournalRecord decode(String line) {
+        try {
+            return decodeFields(line);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static JournalRecord decodeFields(String line) {
+        int split = line.indexOf(SEPARATOR);
+        if (split != 8) {
+            return null;
+        }
+        String body = line.substring(split + 1);
+        long expected;
+        try {
+            expected = Long.parseLong(line.substring(0, split), 16);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (crc(body) != expected) {
+            return null;
+        }
+        String[] fields = body.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != FIELD_COUNT) {
+            return null;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        Ticket ticket = fields[8] == null ? null : Ticket.restore(fields[8], fields[9],
+                fields[10] == null ? null : LocalDateTime.parse(fields[10]),
+                fields[11] == null ? null : LocalDate.parse(fields[11]),
+                fields[12], fields[13], PatientType.fromString(fields[14]));
+        return new JournalRecord(JournalRecord.Type.valueOf(fields[0]),
+                fields[1] == null ? null : LocalDate.parse(fields[1]),
+                Integer.parseInt(fields[2]),
+                fields[3], fields[4], fields[5], fields[6],
+                fields[7] == null ? null : LocalDateTime.parse(fields[7]),
+                ticket);
+    }
+
+    private static long crc(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        if (value == null) {
+            return;
+        }
+        // String kosong dibedakan dari null dengan penanda \e
+        if (value.isEmpty()) {
+            out.append("\\e");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if ("\\e".equals(value)) {
+            return "";
+        }
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                out.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                default:
+                    out.append(next);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,142 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.Ticket;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Satu transisi antrean yang dicatat di {@link QueueJournal}. Tidak semua field terisi untuk setiap
+ * {@link Type}; lihat factory method masing-masing tipe.
+ */
+public final class JournalRecord {
+
+    public enum Type {
+        /** Header hari berjalan beserta nomor urut terakhir. */
+        DAY,
+        /** Loket terdaftar (konfigurasi maupun ditambahkan saat berjalan). */
+        COUNTER,
+        /** Tiket baru masuk antrean loket pertama. */
+        ISSUE,
+        /** Tiket masuk antrean loket (diteruskan dari loket sebelumnya atau dari checkpoint). */
+        ENQUEUE,
+        /** Tiket dipanggil dari antrean {@code sourceCounterId} ke loket {@code counterId}. */
+        CALL,
+        /** Tiket aktif dipanggil ulang. */
+        RECALL,
+        /** Tiket aktif selesai dan diteruskan ke {@code targetCounterId} bila ada. */
+        COMPLETE,
+        /** Tiket aktif dihentikan tanpa diteruskan. */
+        STOP,
+        /** Tiket aktif pada checkpoint. */
+        ACTIVE,
+        /** Tiket terakhir yang dipanggil sebuah loket pada checkpoint. */
+        LAST,
+        /** Antrean dikosongkan manual; hanya dikirim ke instance lain pada mode cluster. */
+        RESET
+    }
+
+    private final Type type;
+    private final LocalDate date;
+    private final int sequence;
+    private final String counterId;
+    private final String targetCounterId;
+    private final String name;
+    private final String ticketId;
+    private final LocalDateTime time;
+    private final Ticket ticket;
+
+    JournalRecord(Type type, LocalDate date, int sequence, String counterId, String targetCounterId,
+                  String name, String ticketId, LocalDateTime time, Ticket ticket) {
+        this.type = type;
+        this.date = date;
+        this.sequence = sequence;
+        this.counterId = counterId;
+        this.targetCounterId = targetCounterId;
+        this.name = name;
+        this.ticketId = ticket != null && ticketId == null ? ticket.getId() : ticketId;
+        this.time = time;
+        this.ticket = ticket;
+    }
+
+    static JournalRecord day(LocalDate date, int sequence) {
+        return new JournalRecord(Type.DAY, date, sequence, null, null, null, null, null, null);
+    }
+
+    static JournalRecord counter(String counterId, String name) {
+        return new JournalRecord(Type.COUNTER, null, 0, counterId, null, name, null, null, null);
+    }
+
+    static JournalRecord issue(int sequence, String counterId, Ticket ticket) {
+        return new JournalRecord(Type.ISSUE, null, sequence, counterId, null, null, null, null, ticket);
+    }
+
+    static JournalRecord enqueue(String counterId, Ticket ticket) {
+        return new JournalRecord(Type.ENQUEUE, null, 0, counterId, null, null, null, null, ticket);
+    }
+
+    static JournalRecord call(String counterId, String sourceCounterId, Ticket ticket, LocalDateTime time) {
+        return new JournalRecord(Type.CALL, null, 0, counterId, sourceCounterId, null, null, time, ticket);
+    }
+
+    static JournalRecord recall(String counterId, String ticketId, LocalDateTime time) {
+        return new JournalRecord(Type.RECALL, null, 0, counterId, null, null, ticketId, time, null);
+    }
+
+    static JournalRecord complete(String counterId, String ticketId, String targetCounterId) {
+        return new JournalRecord(Type.COMPLETE, null, 0, counterId, targetCounterId, null, ticketId, null, null);
+    }
+
+    static JournalRecord stop(String counterId, String ticketId) {
+        return new JournalRecord(Type.STOP, null, 0, counterId, null, null, ticketId, null, null);
+    }
+
+    static JournalRecord active(String counterId, Ticket ticket) {
+        return new JournalRecord(Type.ACTIVE, null, 0, counterId, null, null, null, null, ticket);
+    }
+
+    static JournalRecord last(String counterId, String ticketId, LocalDateTime time) {
+        return new JournalRecord(Type.LAST, null, 0, counterId, null, null, ticketId, time, null);
+    }
+
+    static JournalRecord reset(int sequence) {
+        return new JournalRecord(Type.RESET, null, sequence, null, null, null, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public String getCounterId() {
+        return counterId;
+    }
+
+    /** Loket asal untuk {@link Type#CALL}, loket tujuan untuk {@link Type#COMPLETE}. */
+    public String getTargetCounterId() {
+        return targetCounterId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+}
@@ -1,28 +1,138 @@
 package com.panggilan.loket.service;
 
+import com.panggilan.loket.config.AuditProperties;
+import com.panggilan.loket.entity.DailySequenceEntity;
 import com.panggilan.loket.entity.TicketEventEntity;
 import com.panggilan.loket.model.PatientType;
 import com.panggilan.loket.model.Ticket;
 import com.panggilan.loket.model.TicketEventType;
+import com.panggilan.loket.repository.DailySequenceRepository;
 import com.panggilan.loket.repository.TicketEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Menyimpan riwayat tiket secara write-behind: event dimasukkan ke buffer berbatas di memori dan
+ * ditulis oleh thread latar dalam batch JDBC, sehingga operasi antrean tidak menunggu round trip
+ * ke basis data. Buffer dikosongkan saat aplikasi berhenti.
+ * <p>
+ * Nomor tiket terakhir per hari ikut diperbarui di transaksi batch yang sama ke {@code ticket_daily_sequences},
+ * sehingga pemulihan nomor tidak perlu memindai {@code ticket_events}. Rollup laporan per jam dan per hari
+ * ({@link TicketRollupService}) juga ditambahkan di transaksi tersebut.
+ */
 @Service
-@Transactional
 public class JpaTicketAuditService implements TicketAuditService {
 
+    private static final Logger log = LoggerFactory.getLogger(JpaTicketAuditService.class);
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
     private final TicketEventRepository repository;
-    private static final Pattern DIGIT_PATTERN = Pattern.compile("\\d+");
+    private final DailySequenceRepository sequenceRepository;
+    private final TicketRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditProperties properties;
+    private final BlockingQueue<TicketEventEntity> buffer;
+    private final Object writeLock = new Object();
+    private final AtomicInteger unwritten = new AtomicInteger();
+    private final AtomicInteger flushRequests = new AtomicInteger();
+    // Hanya diakses di bawah writeLock.
+    private final TicketRollupService.ArrivalTracker arrivals = new TicketRollupService.ArrivalTracker();
+    private volatile boolean running;
+    private Thread writer;
 
-    public JpaTicketAuditService(TicketEventRepository repository) {
+    public JpaTicketAuditService(TicketEventRepository repository,
+                                 DailySequenceRepository sequenceRepository,
+                                 TicketRollupService rollupService,
+                                 PlatformTransactionManager transactionManager,
+                                 AuditProperties properties) {
         this.repository = repository;
+        this.sequenceRepository = sequenceRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(properties.getCapacity(), 1));
+    }
+
+    @PostConstruct
+    void startWriter() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "ticket-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Menunggu seluruh event yang masih tertahan di buffer tertulis.
+     * <p>
+     * Selama writer aktif, buffer tidak dikuras dari thread pemanggil: writer bisa sedang memegang batch
+     * yang lebih dulu diambil, dan event sesudahnya tidak boleh mendahuluinya (rollup mengukur lama tunggu
+     * dari urutan ISSUED sebelum CALLED). Writer diminta menulis tanpa menunggu max-latency.
+     */
+    public void flush() {
+        boolean delegated = running && writer != null && writer.isAlive() && Thread.currentThread() != writer;
+        if (delegated) {
+            flushRequests.incrementAndGet();
+        } else {
+            List<TicketEventEntity> batch = new ArrayList<>();
+            while (buffer.drainTo(batch, batchSize()) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (unwritten.get() > 0 && System.nanoTime() < deadline) {
+                synchronized (writeLock) {
+                    if (unwritten.get() == 0) {
+                        return;
+                    }
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            if (delegated) {
+                flushRequests.decrementAndGet();
+            }
+        }
     }
 
     @Override
@@ -31,6 +141,23 @@ public class JpaTicketAuditService implements TicketAuditService {
                 ticket != null ? ticket.getIssuedAt() : LocalDateTime.now());
     }
 
+    /**
+     * Seluruh tiket masuk buffer sekaligus, dengan urutan yang sama seperti satu per satu.
+     */
+    @Override
+    public void recordIssued(List<Ticket> tickets) {
+        if (repository == null || tickets == null || tickets.isEmpty()) {
+            return;
+        }
+        List<TicketEventEntity> entities = new ArrayList<>(tickets.size());
+        for (Ticket ticket : tickets) {
+            entities.add(TicketEventEntity.of(ticket.getId(), ticket.getNumber(), TicketEventType.ISSUED,
+                    ticket.getCounterId(), ticket.getCounterName(),
+                    Objects.requireNonNullElse(ticket.getIssuedAt(), LocalDateTime.now()), ticket.getPatientType()));
+        }
+        enqueue(entities);
+    }
+
     @Override
     public void recordCalled(Ticket ticket) {
         persistEvent(ticket, TicketEventType.CALLED,
@@ -52,26 +179,71 @@ public class JpaTicketAuditService implements TicketAuditService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public int loadLastSequenceForDate(LocalDate date) {
-        if (repository == null || date == null) {
+        if (sequenceRepository == null || date == null) {
             return 0;
         }
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.plusDays(1).atStartOfDay();
-        return repository.findTopByEventTypeAndEventTimeBetweenOrderByEventTimeDesc(
-                        TicketEventType.ISSUED, start, end)
-                .map(entity -> parseTicketNumber(entity.getTicketNumber()))
+        // Pastikan nomor yang baru diterbitkan sudah tersimpan sebelum dibaca kembali
+        flush();
+        return sequenceRepository.findById(date)
+                .map(DailySequenceEntity::getLastNumber)
                 .orElse(0);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public int loadLastSequenceForDate(LocalDate date, PatientType patientType) {
         // Delegate ke method tanpa patient type karena sequence sekarang shared
         return loadLastSequenceForDate(date);
     }
 
+    /**
+     * Mengisi ulang rollup untuk rentang tanggal dari {@code ticket_events}, per potongan berurutan id agar
+     * tidak ada transaksi atau kueri besar. Riwayat yang ditulis setelah pengisian dimulai tetap masuk
+     * lewat jalur biasa sehingga tidak terhitung dua kali.
+     *
+     * @return jumlah riwayat yang diproses
+     */
+    public long rebuildRollups(LocalDate from, LocalDate to) {
+        if (rollupService == null || from == null || to == null || to.isBefore(from)) {
+            return 0;
+        }
+        flush();
+        long maxId;
+        synchronized (writeLock) {
+            maxId = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                rollupService.clear(from, to);
+                Long max = repository.findMaxId();
+                return max == null ? 0L : max;
+            }));
+        }
+        TicketRollupService.ArrivalTracker replayed = new TicketRollupService.ArrivalTracker();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        long afterId = 0;
+        long processed = 0;
+        while (true) {
+            long cursor = afterId;
+            List<TicketEventEntity> chunk;
+            // Per potongan memegang writeLock agar baris rollup baru tidak disisipkan bersamaan dengan penulis.
+            synchronized (writeLock) {
+                replayed.begin();
+                chunk = transactionTemplate.execute(status -> {
+                    List<TicketEventEntity> events = repository.findChunk(cursor, maxId, start, end,
+                            PageRequest.of(0, REBUILD_CHUNK_SIZE));
+                    rollupService.apply(events, replayed);
+                    return events;
+                });
+            }
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+            processed += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        log.info("Rollup laporan {} s.d. {} diisi ulang dari {} riwayat tiket", from, to, processed);
+        return processed;
+    }
+
     private void persistEvent(Ticket ticket,
                               TicketEventType type,
                               String counterId,
@@ -81,24 +253,179 @@ public class JpaTicketAuditService implements TicketAuditService {
             return;
         }
         LocalDateTime timestamp = Objects.requireNonNullElse(eventTime, LocalDateTime.now());
-        TicketEventEntity entity = TicketEventEntity.of(ticket.getId(), ticket.getNumber(), type,
-                counterId, counterName, timestamp, ticket.getPatientType());
-        repository.save(entity);
+        enqueue(List.of(TicketEventEntity.of(ticket.getId(), ticket.getNumber(), type,
+                counterId, counterName, timestamp, ticket.getPatientType())));
     }
 
-    private int parseTicketNumber(String ticketNumber) {
-        if (ticketNumber == null || ticketNumber.isBlank()) {
-            return 0;
+    /**
+     * Memasukkan riwayat ke buffer tanpa pernah mendahului riwayat yang sudah antre: rollup mengukur lama tunggu
+     * dari ISSUED sebelum CALLED. Bila buffer penuh, pemanggil menunggu hingga {@code offer-timeout}; riwayat
+     * yang tetap tidak mendapat tempat dicatat gagal, sama seperti batch yang gagal setelah seluruh percobaan.
+     * Tanpa writer aktif (dinonaktifkan atau sedang berhenti), sisa buffer ditulis lebih dulu bersama riwayat baru.
+     */
+    private void enqueue(List<TicketEventEntity> entities) {
+        unwritten.addAndGet(entities.size());
+        if (!running) {
+            List<TicketEventEntity> batch = new ArrayList<>();
+            buffer.drainTo(batch);
+            batch.addAll(entities);
+            writeBatch(batch);
+            return;
         }
-        Matcher matcher = DIGIT_PATTERN.matcher(ticketNumber);
-        if (!matcher.find()) {
-            return 0;
+        long deadline = System.nanoTime() + Math.max(properties.getOfferTimeout().toNanos(), 0L);
+        for (int i = 0; i < entities.size(); i++) {
+            TicketEventEntity entity = entities.get(i);
+            boolean queued;
+            try {
+                queued = buffer.offer(entity, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                entities.subList(i, entities.size()).forEach(this::discard);
+                return;
+            }
+            if (!queued) {
+                discard(entity);
+            }
+        }
+    }
+
+    private void discard(TicketEventEntity entity) {
+        unwritten.decrementAndGet();
+        log.error("Buffer riwayat tiket penuh; riwayat tidak tersimpan: {} {} {} {}",
+                entity.getTicketNumber(), entity.getEventType(), entity.getCounterId(), entity.getEventTime());
+    }
+
+    private void runWriter() {
+        List<TicketEventEntity> batch = new ArrayList<>();
+        long maxLatencyNanos = Math.max(properties.getMaxLatency().toNanos(), 0L);
+        while (running || !buffer.isEmpty()) {
+            try {
+                TicketEventEntity first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < batchSize()) {
+                    buffer.drainTo(batch, batchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize() || remaining <= 0 || flushRequests.get() > 0) {
+                        break;
+                    }
+                    TicketEventEntity next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                if (running) {
+                    continue;
+                }
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
         }
-        String digits = matcher.group();
+    }
+
+    private void writeBatch(List<TicketEventEntity> batch) {
+        List<TicketEventEntity> pending = List.copyOf(batch);
         try {
-            return Integer.parseInt(digits);
-        } catch (NumberFormatException ex) {
+            writeWithRetry(pending);
+        } finally {
+            unwritten.addAndGet(-pending.size());
+        }
+    }
+
+    private void writeWithRetry(List<TicketEventEntity> pending) {
+        int attempts = Math.max(properties.getMaxRetries(), 0) + 1;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                synchronized (writeLock) {
+                    arrivals.begin();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            repository.saveAll(pending);
+                            storeDailySequences(pending);
+                            if (rollupService != null) {
+                                rollupService.apply(pending, arrivals);
+                            }
+                        });
+                    } catch (RuntimeException ex) {
+                        // Rollup batch ini ikut dibatalkan; waktu tiba tiket dikembalikan untuk percobaan ulang
+                        arrivals.rollback();
+                        throw ex;
+                    }
+                }
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == attempts) {
+                    log.error("Gagal menyimpan {} riwayat tiket setelah {} percobaan: {}",
+                            pending.size(), attempts, ex.getMessage());
+                    pending.forEach(entity -> log.error("Riwayat tiket tidak tersimpan: {} {} {} {}",
+                            entity.getTicketNumber(), entity.getEventType(), entity.getCounterId(), entity.getEventTime()));
+                    return;
+                }
+                log.warn("Gagal menyimpan riwayat tiket (percobaan {}/{}): {}", attempt, attempts, ex.getMessage());
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Menaikkan nomor terakhir per hari dari event ISSUED di batch. Dipanggil di dalam transaksi batch.
+     */
+    private void storeDailySequences(List<TicketEventEntity> pending) {
+        if (sequenceRepository == null) {
+            return;
+        }
+        Map<LocalDate, Integer> lastByDate = new HashMap<>();
+        for (TicketEventEntity entity : pending) {
+            if (entity.getEventType() == TicketEventType.ISSUED) {
+                lastByDate.merge(entity.getEventTime().toLocalDate(), parseTicketNumber(entity.getTicketNumber()), Math::max);
+            }
+        }
+        lastByDate.forEach((date, number) -> {
+            if (sequenceRepository.raiseLastNumber(date, number) == 0 && !sequenceRepository.existsById(date)) {
+                sequenceRepository.save(new DailySequenceEntity(date, number));
+            }
+        });
+    }
+
+    private int batchSize() {
+        return Math.max(properties.getBatchSize(), 1);
+    }
+
+    /**
+     * Mengambil deret angka pertama dari nomor tiket, mis. {@code B-007} menjadi 7.
+     */
+    private static int parseTicketNumber(String ticketNumber) {
+        if (ticketNumber == null) {
             return 0;
         }
+        int value = 0;
+        boolean found = false;
+        for (int i = 0; i < ticketNumber.length(); i++) {
+            char c = ticketNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (value > (Integer.MAX_VALUE - 9) / 10) {
+                    return 0;
+                }
+                value = value * 10 + (c - '0');
+                found = true;
+            } else if (found) {
+                break;
+            }
+        }
+        return value;
     }
 }
@@ -0,0 +1,352 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.PrintJob;
+import com.panggilan.loket.model.PrintJobState;
+import com.panggilan.loket.model.PrinterStatus;
+import com.panggilan.loket.model.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Antrean cetak berbatas di depan satu printer. Setiap permintaan cetak menjadi satu {@link PrintJob} dengan
+ * status QUEUED → PRINTING → PRINTED/FAILED; satu thread pekerja mengirimnya ke printer, menggabungkan
+ * lonjakan beberapa pekerjaan menjadi satu kiriman, dan mengulang kiriman yang gagal dengan jeda bertambah.
+ * <p>
+ * Bila jumlah tiket tertunda mencapai kapasitas, pekerjaan baru langsung tercatat gagal sehingga terlihat
+ * di status printer alih-alih menumpuk tanpa batas. Saat berhenti, antrean dikosongkan terlebih dahulu
+ * sampai batas waktu; tiket yang tersisa dicatat di log.
+ */
+public final class PrintQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PrintQueue.class);
+
+    /**
+     * Pengiriman tiket ke printer fisik; pengecualian berarti kiriman gagal dan akan diulang, kecuali
+     * {@link IllegalStateException} yang menandai kesalahan konfigurasi sehingga pekerjaan langsung gagal.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void print(List<Ticket> tickets) throws Exception;
+    }
+
+    private final String threadName;
+    private final TicketPrintProperties.Queue settings;
+    private final Sink sink;
+    private final Object lock = new Object();
+    // Seluruh field berikut hanya diakses di bawah lock.
+    private final ArrayDeque<Job> queued = new ArrayDeque<>();
+    private final ArrayDeque<Job> finished = new ArrayDeque<>();
+    private List<Job> printing = List.of();
+    private int queuedTickets;
+    private long nextJobId;
+    private long printedJobs;
+    private long failedJobs;
+    private String lastError;
+    private LocalDateTime lastErrorAt;
+    private boolean accepting = true;
+    private Thread worker;
+
+    public PrintQueue(String threadName, TicketPrintProperties.Queue settings, Sink sink) {
+        this.threadName = threadName;
+        this.settings = settings == null ? new TicketPrintProperties.Queue() : settings;
+        this.sink = sink;
+    }
+
+    /**
+     * Memasukkan tiket sebagai satu pekerjaan cetak.
+     *
+     * @return potret pekerjaan; berstatus FAILED bila antrean penuh atau sedang berhenti
+     */
+    public PrintJob submit(List<Ticket> tickets) {
+        synchronized (lock) {
+            Job job = new Job(++nextJobId, List.copyOf(tickets));
+            if (!accepting) {
+                fail(job, "Antrean cetak sedang berhenti");
+                return job.snapshot();
+            }
+            if (queuedTickets + job.tickets.size() > capacity()) {
+                fail(job, "Antrean cetak penuh (" + queuedTickets + "/" + capacity() + " tiket)");
+                log.warn("Antrean cetak penuh, tiket {} tidak dicetak", job.describe());
+                return job.snapshot();
+            }
+            queued.addLast(job);
+            queuedTickets += job.tickets.size();
+            ensureWorker();
+            lock.notifyAll();
+            return job.snapshot();
+        }
+    }
+
+    public PrinterStatus status(String printer, String backend, boolean enabled) {
+        synchronized (lock) {
+            List<PrintJob> jobs = new ArrayList<>(printing.size() + queued.size() + finished.size());
+            printing.forEach(job -> jobs.add(job.snapshot()));
+            queued.forEach(job -> jobs.add(job.snapshot()));
+            Iterator<Job> recent = finished.descendingIterator();
+            while (recent.hasNext()) {
+                jobs.add(recent.next().snapshot());
+            }
+            boolean hasRoom = queuedTickets < capacity();
+            return new PrinterStatus(printer, backend, enabled, accepting && hasRoom, queuedTickets, capacity(),
+                    printedJobs, failedJobs, lastError, lastErrorAt, jobs);
+        }
+    }
+
+    /**
+     * Berhenti menerima pekerjaan, menunggu antrean habis sampai {@code drain-timeout}, lalu menghentikan
+     * pekerja dan mencatat tiket yang belum tercetak.
+     */
+    public void shutdown() {
+        Thread current;
+        synchronized (lock) {
+            accepting = false;
+            lock.notifyAll();
+            current = worker;
+        }
+        if (current != null) {
+            try {
+                current.join(Math.max(settings.getDrainTimeout().toMillis(), 1));
+                if (current.isAlive()) {
+                    current.interrupt();
+                    current.join(TimeUnit.SECONDS.toMillis(1));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (lock) {
+            List<Job> abandoned = new ArrayList<>(printing);
+            abandoned.addAll(queued);
+            queued.clear();
+            printing = List.of();
+            queuedTickets = 0;
+            for (Job job : abandoned) {
+                fail(job, "Dibatalkan saat aplikasi berhenti");
+                log.error("Tiket {} belum tercetak saat aplikasi berhenti", job.describe());
+            }
+        }
+    }
+
+    private void ensureWorker() {
+        if (worker == null) {
+            worker = new Thread(this::run, threadName);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Perulangan pekerja. Error dari tumpukan cetak (mis. {@code NoClassDefFoundError}) diperlakukan sebagai
+     * kiriman gagal; bila tetap ada yang lolos, pekerja ditandai mati agar kiriman berikutnya memulai yang baru.
+     */
+    private void run() {
+        try {
+            while (true) {
+                List<Job> batch = take();
+                if (batch == null) {
+                    return;
+                }
+                List<Ticket> tickets = new ArrayList<>();
+                batch.forEach(job -> tickets.addAll(job.tickets));
+                Throwable failure = null;
+                try {
+                    sink.print(tickets);
+                } catch (Throwable ex) {
+                    failure = ex;
+                }
+                long backoffMillis = complete(batch, failure);
+                if (backoffMillis > 0) {
+                    pause(backoffMillis);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error ex) {
+            log.error("Pekerja cetak {} berhenti tak terduga", threadName, ex);
+            throw ex;
+        } finally {
+            synchronized (lock) {
+                if (worker == Thread.currentThread()) {
+                    worker = null;
+                    if (accepting && !queued.isEmpty()) {
+                        ensureWorker();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Jeda sebelum mengulang kiriman; dipersingkat bila antrean berhenti agar sisa pekerjaan sempat dicoba.
+     */
+    private void pause(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (lock) {
+            long remaining = deadline - System.nanoTime();
+            while (accepting && remaining > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Menunggu pekerjaan pertama, memberi kesempatan pekerjaan lain masuk selama {@code coalesce-window},
+     * lalu mengambil pekerjaan terdepan sampai {@code max-job-tickets}.
+     *
+     * @return {@code null} bila antrean sudah berhenti dan kosong
+     */
+    private List<Job> take() throws InterruptedException {
+        synchronized (lock) {
+            while (queued.isEmpty()) {
+                if (!accepting) {
+                    return null;
+                }
+                lock.wait();
+            }
+            int maxTickets = Math.max(settings.getMaxJobTickets(), 1);
+            long deadline = System.nanoTime() + Math.max(settings.getCoalesceWindow().toNanos(), 0L);
+            while (accepting && queuedTickets < maxTickets) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            List<Job> batch = new ArrayList<>();
+            int tickets = 0;
+            while (!queued.isEmpty()) {
+                Job next = queued.peekFirst();
+                if (!batch.isEmpty() && tickets + next.tickets.size() > maxTickets) {
+                    break;
+                }
+                queued.pollFirst();
+                tickets += next.tickets.size();
+                next.state = PrintJobState.PRINTING;
+                next.attempts++;
+                next.updatedAt = LocalDateTime.now();
+                batch.add(next);
+            }
+            queuedTickets -= tickets;
+            printing = List.copyOf(batch);
+            return batch;
+        }
+    }
+
+    /**
+     * Mencatat hasil kiriman. Pekerjaan yang gagal dikembalikan ke depan antrean selama percobaannya belum habis.
+     * Pekerjaan yang sudah dibatalkan {@link #shutdown()} selama kiriman berjalan tidak disentuh lagi.
+     *
+     * @return jeda sebelum kiriman berikutnya (ms), 0 bila berhasil
+     */
+    private long complete(List<Job> batch, Throwable failure) {
+        synchronized (lock) {
+            printing = List.of();
+            batch.removeIf(job -> job.state != PrintJobState.PRINTING);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            if (failure == null) {
+                for (Job job : batch) {
+                    job.state = PrintJobState.PRINTED;
+                    job.updatedAt = LocalDateTime.now();
+                    printedJobs++;
+                    remember(job);
+                }
+                return 0;
+            }
+            String message = failure.getMessage() == null ? failure.getClass().getSimpleName() : failure.getMessage();
+            boolean permanent = failure instanceof IllegalStateException;
+            int maxAttempts = Math.max(settings.getMaxRetries(), 0) + 1;
+            String numbers = batch.stream().map(Job::describe).collect(Collectors.joining(", "));
+            int retryAttempt = 0;
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Job job = batch.get(i);
+                if (permanent || job.attempts >= maxAttempts) {
+                    fail(job, message);
+                    log.error("Gagal mencetak tiket {} setelah {} percobaan: {}", job.describe(), job.attempts, message);
+                } else {
+                    job.state = PrintJobState.QUEUED;
+                    job.lastError = message;
+                    job.updatedAt = LocalDateTime.now();
+                    queued.addFirst(job);
+                    queuedTickets += job.tickets.size();
+                    retryAttempt = Math.max(retryAttempt, job.attempts);
+                }
+            }
+            if (retryAttempt == 0) {
+                return 0;
+            }
+            long backoff = backoffMillis(retryAttempt);
+            log.warn("Gagal mencetak tiket {} (percobaan {}/{}), diulang dalam {} ms: {}",
+                    numbers, retryAttempt, maxAttempts, backoff, message);
+            return backoff;
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        long initial = Math.max(settings.getInitialBackoff().toMillis(), 1);
+        long max = Math.max(settings.getMaxBackoff().toMillis(), initial);
+        long backoff = initial << Math.min(attempts - 1, 20);
+        return Math.min(backoff, max);
+    }
+
+    private void fail(Job job, String message) {
+        job.state = PrintJobState.FAILED;
+        job.lastError = message;
+        job.updatedAt = LocalDateTime.now();
+        failedJobs++;
+        lastError = message;
+        lastErrorAt = job.updatedAt;
+        remember(job);
+    }
+
+    private void remember(Job job) {
+        finished.addLast(job);
+        while (finished.size() > Math.max(settings.getHistory(), 0)) {
+            finished.pollFirst();
+        }
+    }
+
+    private int capacity() {
+        return Math.max(settings.getCapacity(), 1);
+    }
+
+    private static final class Job {
+        private final long id;
+        private final List<Ticket> tickets;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private PrintJobState state = PrintJobState.QUEUED;
+        private int attempts;
+        private LocalDateTime updatedAt = createdAt;
+        private String lastError;
+
+        private Job(long id, List<Ticket> tickets) {
+            this.id = id;
+            this.tickets = tickets;
+        }
+
+        private String describe() {
+            return DefaultTicketPrinter.describe(tickets);
+        }
+
+        private PrintJob snapshot() {
+            List<String> ids = new ArrayList<>(tickets.size());
+            List<String> numbers = new ArrayList<>(tickets.size());
+            for (Ticket ticket : tickets) {
+                ids.add(ticket.getId());
+                numbers.add(ticket.getNumber());
+            }
+            return new PrintJob(id, ids, numbers, state, attempts, createdAt, updatedAt, lastError);
+        }
+    }
+}
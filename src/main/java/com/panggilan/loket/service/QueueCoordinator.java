@@ -0,0 +1,45 @@
+package com.panggilan.loket.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Mengoordinasikan transisi antrean antar instance aplikasi. Pada mode tunggal transisi langsung
+ * dijalankan; pada mode cluster transisi dijalankan di bawah kunci bersama setelah transisi instance lain
+ * diterapkan, lalu transisi yang dicatat lewat {@link #record(JournalRecord)} disimpan untuk instance lain.
+ */
+public interface QueueCoordinator {
+
+    /**
+     * Apakah keadaan antrean dibagi dengan instance lain. Bila ya, {@link QueueService} memulihkan
+     * keadaan lewat {@link #attach(QueueReplica)} alih-alih dari jurnal lokal.
+     */
+    default boolean isClustered() {
+        return false;
+    }
+
+    /**
+     * Menghubungkan replika lokal: memuat ulang keadaan hari ini lalu mulai mengikuti transisi instance lain.
+     */
+    default void attach(QueueReplica replica) {
+    }
+
+    /**
+     * Menjalankan satu transisi. Exception dari {@code transition} diteruskan apa adanya.
+     */
+    <T> T execute(Supplier<T> transition);
+
+    /**
+     * Mencatat transisi yang dihasilkan {@link #execute(Supplier)} yang sedang berjalan.
+     */
+    default void record(JournalRecord record) {
+    }
+
+    static QueueCoordinator local() {
+        return new QueueCoordinator() {
+            @Override
+            public <T> T execute(Supplier<T> transition) {
+                return transition.get();
+            }
+        };
+    }
+}
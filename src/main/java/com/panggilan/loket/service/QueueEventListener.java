@@ -0,0 +1,14 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.QueueEvent;
+
+/**
+ * Penerima transisi antrean dari {@link QueueService}. Dipanggil sinkron di bawah kunci loket yang
+ * terlibat agar urutan event sama dengan urutan transisi; implementasi tidak boleh melakukan I/O
+ * yang memblokir dan harus menyerahkan pekerjaan berat ke thread lain.
+ */
+@FunctionalInterface
+public interface QueueEventListener {
+
+    void onQueueEvent(QueueEvent event);
+}
@@ -0,0 +1,270 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.QueueEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Menyalurkan transisi antrean ke klien melalui Server-Sent Events. Satu thread dispatcher menyaring event
+ * dan memasukkannya ke buffer berbatas milik setiap klien sesuai urutan nomor urutnya; penulisan ke socket
+ * dilakukan thread pengirim per klien, sehingga satu layar yang macet tidak menahan klien lain. Klien yang
+ * buffernya penuh diputus dan tersambung ulang dari riwayat event terbaru lewat {@code Last-Event-ID}.
+ * <p>
+ * Id event berbentuk {@link QueueService#getStateTag(long)} sehingga kursor dari sebelum server dinyalakan
+ * ulang tidak tertukar dengan nomor urut baru yang kebetulan sudah melewatinya.
+ */
+@Component
+public class QueueEventStream implements QueueEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueEventStream.class);
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_SECONDS = 20;
+    private static final int HISTORY_SIZE = 1024;
+    // Klien yang tertinggal lebih jauh dari riwayat tidak dapat melanjutkan dari kursornya lagi.
+    static final int SUBSCRIBER_BUFFER = HISTORY_SIZE;
+    static final String EVENT_NAME = "queue";
+    static final String RESYNC_EVENT_NAME = "resync";
+
+    private final QueueService queueService;
+    private final SequencedRingBuffer<QueueEvent> history = new SequencedRingBuffer<>(HISTORY_SIZE);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "queue-stream-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "queue-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public QueueEventStream(QueueService queueService) {
+        this.queueService = queueService;
+    }
+
+    @PostConstruct
+    void register() {
+        queueService.addListener(this);
+        dispatcher.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queueService.removeListener(this);
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    @Override
+    public void onQueueEvent(QueueEvent event) {
+        history.add(event.getSequence(), event);
+        dispatcher.execute(() -> dispatch(event));
+    }
+
+    /**
+     * Mendaftarkan klien baru.
+     *
+     * @param counterIds    loket yang ingin dipantau; kosong berarti seluruh loket
+     * @param cursor        id event terakhir yang diterima klien, atau {@code null} untuk mulai dari sekarang
+     */
+    public SseEmitter subscribe(Collection<String> counterIds, String cursor) {
+        return subscribe(new SseEmitter(EMITTER_TIMEOUT_MS), counterIds, cursor);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Collection<String> counterIds, String cursor) {
+        Set<String> filter = counterIds == null
+                ? Set.of()
+                : counterIds.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .map(id -> id.trim().toUpperCase())
+                .collect(Collectors.toUnmodifiableSet());
+        Subscriber subscriber = new Subscriber(emitter, filter);
+        emitter.onCompletion(() -> forget(subscriber));
+        emitter.onTimeout(() -> forget(subscriber));
+        emitter.onError(error -> forget(subscriber));
+        Long afterSequence = queueService.parseStateTag(cursor);
+        dispatcher.execute(() -> start(subscriber, afterSequence));
+        return emitter;
+    }
+
+    private void start(Subscriber subscriber, Long afterSequence) {
+        long latest = history.latestSequence();
+        List<QueueEvent> missed = afterSequence != null && history.covers(afterSequence)
+                ? history.after(afterSequence, HISTORY_SIZE, subscriber::accepts)
+                : null;
+        if (missed != null && missed.size() < SUBSCRIBER_BUFFER) {
+            subscriber.lastSent = afterSequence;
+            for (QueueEvent event : missed) {
+                enqueueEvent(subscriber, event);
+            }
+            subscriber.lastSent = Math.max(subscriber.lastSent, latest);
+        } else {
+            // Klien baru, kursor terlalu lama, atau kursor dari instance lain / sebelum server dinyalakan ulang:
+            // klien diminta memuat ulang status lengkap lalu mengikuti event berikutnya.
+            subscriber.lastSent = latest;
+            enqueue(subscriber, SseEmitter.event()
+                    .id(queueService.getStateTag(latest))
+                    .name(RESYNC_EVENT_NAME)
+                    .data(Map.of("sequence", latest), MediaType.APPLICATION_JSON));
+        }
+        subscribers.add(subscriber);
+        if (subscriber.closed.get()) {
+            // Terputus selama start berjalan
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void dispatch(QueueEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (event.getSequence() <= subscriber.lastSent) {
+                continue;
+            }
+            subscriber.lastSent = event.getSequence();
+            if (subscriber.accepts(event)) {
+                enqueueEvent(subscriber, event);
+            }
+        }
+    }
+
+    private void enqueueEvent(Subscriber subscriber, QueueEvent event) {
+        subscriber.lastSent = Math.max(subscriber.lastSent, event.getSequence());
+        enqueue(subscriber, SseEmitter.event()
+                .id(queueService.getStateTag(event.getSequence()))
+                .name(EVENT_NAME)
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            // Klien yang masih punya kiriman tertunda tidak perlu ping tambahan
+            if (subscriber.pending.isEmpty()) {
+                enqueue(subscriber, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    /**
+     * Dipanggil dari thread dispatcher. Buffer penuh berarti klien tidak membaca secepat event datang;
+     * koneksinya ditutup agar ia tersambung ulang daripada menahan memori tanpa batas.
+     */
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.pending.offer(event)) {
+            log.info("Klien stream antrean tertinggal lebih dari {} kiriman; koneksi ditutup", SUBSCRIBER_BUFFER);
+            close(subscriber, null);
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null) {
+                if (!send(subscriber, event)) {
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // Kiriman yang masuk setelah poll terakhir tetapi sebelum flag dilepas
+            if (subscriber.pending.isEmpty() || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return false;
+        }
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Klien stream antrean terputus: {}", ex.getMessage());
+            close(subscriber, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Emitter diselesaikan di thread pengirim: {@code SseEmitter} menyinkronkan send dan complete, jadi
+     * menyelesaikannya dari dispatcher akan ikut menunggu kiriman yang macet.
+     */
+    private void close(Subscriber subscriber, Throwable error) {
+        if (!forget(subscriber)) {
+            return;
+        }
+        try {
+            senders.execute(() -> {
+                if (error == null) {
+                    subscriber.emitter.complete();
+                } else {
+                    subscriber.emitter.completeWithError(error);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Sedang dimatikan; shutdown() menyelesaikan emitter yang tersisa.
+        }
+    }
+
+    private boolean forget(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.pending.clear();
+        return subscriber.closed.compareAndSet(false, true);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> counterIds;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending = new ArrayBlockingQueue<>(SUBSCRIBER_BUFFER);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long lastSent;
+
+        private Subscriber(SseEmitter emitter, Set<String> counterIds) {
+            this.emitter = emitter;
+            this.counterIds = counterIds;
+        }
+
+        private boolean accepts(QueueEvent event) {
+            if (counterIds.isEmpty()) {
+                return true;
+            }
+            for (String counterId : counterIds) {
+                if (event.concernsCounter(counterId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
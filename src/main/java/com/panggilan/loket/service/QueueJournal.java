@@ -0,0 +1,44 @@
+package com.panggilan.loket.service;
+
+import java.util.List;
+
+public interface QueueJournal {
+
+    /**
+     * Menambahkan satu transisi ke akhir jurnal. Dipanggil di bawah kunci loket yang terlibat,
+     * sehingga urutan tulis untuk loket yang sama sama dengan urutan eksekusinya.
+     */
+    void append(JournalRecord record);
+
+    /**
+     * Mengganti seluruh isi jurnal dengan keadaan ringkas saat ini secara atomik.
+     */
+    void checkpoint(List<JournalRecord> state);
+
+    /**
+     * Membaca ulang jurnal dari checkpoint terakhir. Ekor yang rusak (mis. tulisan terpotong saat crash)
+     * diabaikan.
+     */
+    List<JournalRecord> replay();
+
+    default boolean shouldCheckpoint() {
+        return false;
+    }
+
+    static QueueJournal noop() {
+        return new QueueJournal() {
+            @Override
+            public void append(JournalRecord record) {
+            }
+
+            @Override
+            public void checkpoint(List<JournalRecord> state) {
+            }
+
+            @Override
+            public List<JournalRecord> replay() {
+                return List.of();
+            }
+        };
+    }
+}
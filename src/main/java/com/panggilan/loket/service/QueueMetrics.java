@@ -0,0 +1,106 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.PatientType;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentasi Micrometer untuk {@link QueueService}: lama tunggu dan lama layanan per loket, kedalaman
+ * antrean per loket dan jenis pasien, serta lama menunggu kunci. Timer disimpan per kombinasi tag agar
+ * jalur panas tidak membangun ulang id meter di setiap transisi.
+ */
+final class QueueMetrics {
+
+    static final String WAIT_TIMER = "queue.wait";
+    static final String SERVICE_TIMER = "queue.service";
+    static final String LOCK_TIMER = "queue.lock.wait";
+    static final String WAITING_GAUGE = "queue.waiting";
+    static final String ACTIVE_GAUGE = "queue.active";
+
+    private final MeterRegistry registry;
+    private final Clock clock;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    QueueMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.clock = registry.config().clock();
+    }
+
+    /**
+     * Registry tanpa backend; seluruh meter menjadi noop.
+     */
+    static QueueMetrics noop() {
+        return new QueueMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Waktu monotonic dalam nanodetik, dipakai sebagai cap waktu kedatangan dan pemanggilan.
+     */
+    long now() {
+        return clock.monotonicTime();
+    }
+
+    /**
+     * Gauge dibaca dari thread lain tanpa kunci loket; nilainya boleh sedikit tertinggal.
+     */
+    void registerCounter(String counterId, WaitingQueue queue, Supplier<Number> activeSize) {
+        for (PatientType type : PatientType.values()) {
+            Gauge.builder(WAITING_GAUGE, queue, waiting -> waiting.size(type))
+                    .description("Jumlah tiket menunggu di loket")
+                    .tag("counter", counterId)
+                    .tag("patientType", type.name())
+                    .strongReference(true)
+                    .register(registry);
+        }
+        Gauge.builder(ACTIVE_GAUGE, activeSize)
+                .description("Jumlah tiket yang sedang dilayani di loket")
+                .tag("counter", counterId)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    void recordWait(String counterId, PatientType patientType, long enqueuedAt) {
+        String type = (patientType == null ? PatientType.LAMA : patientType).name();
+        timer(WAIT_TIMER, "Lama tiket menunggu sejak tiba di loket sampai dipanggil",
+                "counter", counterId, "patientType", type)
+                .record(now() - enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param outcome {@code completed} atau {@code stopped}
+     */
+    void recordService(String counterId, String outcome, long calledAt) {
+        if (calledAt < 0) {
+            return;
+        }
+        timer(SERVICE_TIMER, "Lama layanan sejak dipanggil sampai selesai atau dihentikan",
+                "counter", counterId, "outcome", outcome)
+                .record(now() - calledAt, TimeUnit.NANOSECONDS);
+    }
+
+    void recordLockWait(String lock, String mode, long startedAt) {
+        timer(LOCK_TIMER, "Lama menunggu kunci antrean", "lock", lock, "mode", mode)
+                .record(now() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String description, String key1, String value1, String key2, String value2) {
+        String cacheKey = name + '|' + value1 + '|' + value2;
+        Timer timer = timers.get(cacheKey);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(cacheKey, key -> Timer.builder(name)
+                .description(description)
+                .tag(key1, value1)
+                .tag(key2, value2)
+                .register(registry));
+    }
+}
@@ -0,0 +1,23 @@
+package com.panggilan.loket.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sisi lokal yang diperbarui {@link QueueCoordinator} dengan transisi dari instance lain.
+ */
+interface QueueReplica {
+
+    /** Tanggal antrean yang sedang berjalan di instance ini. */
+    LocalDate currentDate();
+
+    /**
+     * Membangun ulang seluruh antrean hari {@code date} dari awal menggunakan {@code records}.
+     */
+    void rebuild(LocalDate date, int lastNumber, List<JournalRecord> records);
+
+    /**
+     * Menerapkan transisi milik hari {@code date} secara berurutan; transisi hari sebelumnya diabaikan.
+     */
+    void apply(LocalDate date, List<JournalRecord> records);
+}
@@ -1,26 +1,44 @@
 package com.panggilan.loket.service;
 
 import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.model.Announcement;
+import com.panggilan.loket.model.AnnouncementFeed;
+import com.panggilan.loket.model.CounterDepth;
 import com.panggilan.loket.model.CounterSnapshot;
 import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.QueueEvent;
+import com.panggilan.loket.model.QueueCounts;
+import com.panggilan.loket.model.QueueEventType;
 import com.panggilan.loket.model.QueueStatus;
 import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketId;
+import com.panggilan.loket.model.TicketStage;
+import com.panggilan.loket.model.TicketStatus;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
@@ -32,26 +50,66 @@ import org.springframework.util.Assert;
 public class QueueService {
 
     private static final Logger log = LoggerFactory.getLogger(QueueService.class);
+    private static final int MAX_ANNOUNCEMENT_BATCH = 100;
 
     private final CounterProperties counterProperties;
     private final Clock clock;
     private final TicketPrinter ticketPrinter;
     private final TicketAuditService auditService;
+    private final QueueJournal journal;
+    private final QueueMetrics metrics;
+    private final QueueCoordinator coordinator;
+    private final WaitTimeEstimator estimator;
     private final Map<String, CounterState> counters = new ConcurrentHashMap<>();
-    private final Map<String, Deque<Ticket>> waitingByCounter = new ConcurrentHashMap<>();
+    private final Map<String, WaitingQueue> waitingByCounter = new ConcurrentHashMap<>();
+    private final TicketIndex ticketIndex = new TicketIndex();
     private final AtomicInteger ticketSequence = new AtomicInteger();
     private final CopyOnWriteArrayList<String> counterOrder = new CopyOnWriteArrayList<>();
+    private final List<QueueEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventSequence = new AtomicLong();
+    // Menyatukan pengambilan nomor urut event dan penyerahannya ke listener; lihat publish().
+    private final Object eventLock = new Object();
+    // Log panggilan untuk display; nomor urut dan isi log hanya diubah di bawah lock announcements.
+    private final SequencedRingBuffer<Announcement> announcements;
+    private long announcementSequence;
+    // Membedakan versi antar proses agar ETag dari sebelum restart tidak dianggap masih berlaku.
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private volatile CachedView<List<CounterSnapshot>> cachedSnapshot;
+    private volatile CachedView<QueueStatus> cachedQueueStatus;
+    // Operasi antrean biasa memegang read lock (boleh paralel antar loket),
+    // sedangkan reset harian dan pendaftaran loket memegang write lock.
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
     private volatile LocalDate lastResetDate;
 
-    @Autowired
     public QueueService(CounterProperties counterProperties, TicketPrinter ticketPrinter, TicketAuditService auditService) {
-        this(counterProperties, ticketPrinter, auditService, Clock.systemDefaultZone());
+        this(counterProperties, ticketPrinter, auditService, QueueJournal.noop(), Clock.systemDefaultZone());
+    }
+
+    @Autowired
+    public QueueService(CounterProperties counterProperties, TicketPrinter ticketPrinter, TicketAuditService auditService,
+                        QueueJournal journal, MeterRegistry meterRegistry, QueueCoordinator coordinator) {
+        this(counterProperties, ticketPrinter, auditService, journal, meterRegistry, coordinator, Clock.systemDefaultZone());
     }
 
     QueueService(CounterProperties counterProperties, TicketPrinter ticketPrinter, TicketAuditService auditService, Clock clock) {
+        this(counterProperties, ticketPrinter, auditService, QueueJournal.noop(), clock);
+    }
+
+    QueueService(CounterProperties counterProperties, TicketPrinter ticketPrinter, TicketAuditService auditService,
+                 QueueJournal journal, Clock clock) {
+        this(counterProperties, ticketPrinter, auditService, journal, null, null, clock);
+    }
+
+    QueueService(CounterProperties counterProperties, TicketPrinter ticketPrinter, TicketAuditService auditService,
+                 QueueJournal journal, MeterRegistry meterRegistry, QueueCoordinator coordinator, Clock clock) {
         this.counterProperties = counterProperties;
         this.ticketPrinter = ticketPrinter == null ? TicketPrinter.noop() : ticketPrinter;
         this.auditService = auditService == null ? TicketAuditService.noop() : auditService;
+        this.journal = journal == null ? QueueJournal.noop() : journal;
+        this.metrics = meterRegistry == null ? QueueMetrics.noop() : new QueueMetrics(meterRegistry);
+        this.coordinator = coordinator == null ? QueueCoordinator.local() : coordinator;
+        this.estimator = new WaitTimeEstimator(counterProperties.getEstimate());
+        this.announcements = new SequencedRingBuffer<>(counterProperties.getAnnouncements().getCapacity());
         this.clock = clock;
         this.lastResetDate = LocalDate.now(clock);
     }
@@ -66,105 +124,276 @@ public class QueueService {
             registerCounter("C", "Loket C");
         }
         reloadTicketSequenceFromHistory();
+        if (coordinator.isClustered()) {
+            // Pada mode cluster keadaan bersama di database menjadi sumber kebenaran, bukan jurnal lokal.
+            coordinator.attach(new Replica());
+        } else {
+            restoreFromJournal();
+        }
+    }
+
+    public void addListener(QueueEventListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(QueueEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Nomor urut event terakhir yang diterbitkan; bertambah pada setiap transisi antrean.
+     */
+    public long getLastEventSequence() {
+        return eventSequence.get();
+    }
+
+    /**
+     * Versi keadaan antrean yang naik monoton pada setiap transisi. Cocok dipakai sebagai ETag.
+     */
+    public long getStateVersion() {
+        ensureDailyResetIfNeeded();
+        return eventSequence.get();
+    }
+
+    /**
+     * Penanda versi yang unik lintas restart, berbentuk {@code <instance>-<versi>}.
+     */
+    public String getStateTag(long version) {
+        return instanceTag + "-" + version;
+    }
+
+    /**
+     * Versi dari penanda {@link #getStateTag(long)}; {@code null} bila penanda tidak sah atau dibuat instance
+     * lain, mis. sebelum server dinyalakan ulang, sehingga nomornya tidak dapat dibandingkan.
+     */
+    public Long parseStateTag(String tag) {
+        String prefix = instanceTag + "-";
+        if (tag == null || !tag.trim().startsWith(prefix)) {
+            return null;
+        }
+        try {
+            long version = Long.parseLong(tag.trim().substring(prefix.length()));
+            return version < 0 ? null : version;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Pengumuman panggilan dan panggilan ulang setelah kursor {@code after}, berurutan. Tanpa kursor, hanya kursor
+     * terbaru yang dikembalikan agar display baru tidak memutar ulang panggilan lama. Kursor berbentuk
+     * {@link #getStateTag(long)}; kursor dari instance lain (mis. sebelum server dinyalakan ulang) dibaca dari
+     * awal log dan ditandai tidak lengkap.
+     */
+    public AnnouncementFeed getAnnouncements(String after, int limit) {
+        int max = Math.min(Math.max(limit, 1), MAX_ANNOUNCEMENT_BATCH);
+        Long parsed = after == null || after.isBlank() ? null : parseStateTag(after);
+        synchronized (announcements) {
+            long latest = announcementSequence;
+            if (after == null || after.isBlank()) {
+                return new AnnouncementFeed(getStateTag(latest), latest, latest, true, List.of());
+            }
+            long cursor = 0;
+            boolean complete = false;
+            if (parsed != null && parsed <= latest) {
+                cursor = parsed;
+                complete = true;
+            }
+            complete &= announcements.covers(cursor);
+            List<Announcement> batch = announcements.after(cursor, max, null);
+            long next = batch.isEmpty() ? latest : batch.get(batch.size() - 1).getSequence();
+            return new AnnouncementFeed(getStateTag(next), next, latest, complete, batch);
+        }
     }
 
     public List<CounterSnapshot> getSnapshot() {
         ensureDailyResetIfNeeded();
-        int nextNumber = previewNextTicketNumber();
-        return counterOrder.stream()
-                .map(counters::get)
-                .filter(Objects::nonNull)
-                .map(state -> {
-                    Deque<Ticket> queue = waitingByCounter.get(state.id);
-                    List<Ticket> waiting = queue == null ? List.of() : List.copyOf(queue);
-                    return state.snapshot(waiting, nextNumber);
-                })
-                .collect(Collectors.toList());
-    }
-
-    public synchronized CounterSnapshot createCounter(String id, String name) {
+        // Versi dibaca sebelum membangun snapshot: snapshot paling tidak mencakup seluruh transisi
+        // sampai versi tersebut, sehingga aman disimpan untuk versi itu.
+        long version = eventSequence.get();
+        CachedView<List<CounterSnapshot>> cached = cachedSnapshot;
+        if (cached != null && cached.version == version) {
+            return cached.value;
+        }
+        List<CounterSnapshot> built = buildSnapshot(Integer.MAX_VALUE);
+        cachedSnapshot = new CachedView<>(version, built);
+        return built;
+    }
+
+    /**
+     * Snapshot loket dengan paling banyak {@code waitingLimit} tiket menunggu per loket; jumlah per jenis
+     * pasien tetap mencakup seluruh antrean. Tidak disimpan di cache karena hanya menyalin ujung antrean.
+     */
+    public List<CounterSnapshot> getSnapshot(int waitingLimit) {
+        ensureDailyResetIfNeeded();
+        return buildSnapshot(Math.max(waitingLimit, 0));
+    }
+
+    /**
+     * Snapshot satu loket untuk klien operator, dengan daftar tunggu dibatasi seperti {@link #getSnapshot(int)}.
+     */
+    public CounterSnapshot getCounter(String counterId, int waitingLimit) {
+        ensureDailyResetIfNeeded();
+        return withSharedAccess(() -> {
+            CounterState state = requireCounter(counterId);
+            int nextNumber = ticketSequence.get() + 1;
+            return withCounterLocks(List.of(state), () -> snapshotOf(state, nextNumber, Math.max(waitingLimit, 0)));
+        });
+    }
+
+    private List<CounterSnapshot> buildSnapshot(int waitingLimit) {
+        return withSharedAccess(() -> {
+            int nextNumber = ticketSequence.get() + 1;
+            return counterOrder.stream()
+                    .map(counters::get)
+                    .filter(Objects::nonNull)
+                    .map(state -> withCounterLocks(List.of(state), () -> snapshotOf(state, nextNumber, waitingLimit)))
+                    .collect(Collectors.toUnmodifiableList());
+        });
+    }
+
+    public CounterSnapshot createCounter(String id, String name) {
         ensureDailyResetIfNeeded();
         Assert.hasText(id, "Counter id is required");
         Assert.hasText(name, "Counter name is required");
-        CounterState state = registerCounter(id, name);
-        Deque<Ticket> queue = waitingByCounter.get(state.id);
-        List<Ticket> waiting = queue == null ? List.of() : List.copyOf(queue);
-        return state.snapshot(waiting, previewNextTicketNumber());
+        CounterState state = coordinated(() -> withExclusiveAccess(() -> {
+            CounterState registered = registerCounter(id, name);
+            record(JournalRecord.counter(registered.id, registered.name));
+            publish(QueueEventType.COUNTER_ADDED, registered.id, null, null);
+            return registered;
+        }));
+        return withSharedAccess(() -> withCounterLocks(List.of(state),
+                () -> snapshotOf(state, ticketSequence.get() + 1, Integer.MAX_VALUE)));
     }
 
-    public synchronized Ticket issueTicket() {
+    public Ticket issueTicket() {
         return issueTicket(PatientType.LAMA);
     }
 
-    public synchronized Ticket issueTicket(PatientType patientType) {
+    public Ticket issueTicket(PatientType patientType) {
+        return issueTicket(patientType, null);
+    }
+
+    /**
+     * @param printerId printer kiosk tempat tiket diambil, atau {@code null} untuk printer bawaan
+     */
+    public Ticket issueTicket(PatientType patientType, String printerId) {
+        return issueTickets(List.of(patientType == null ? PatientType.LAMA : patientType), printerId).get(0);
+    }
+
+    public List<Ticket> issueTickets(List<PatientType> patientTypes) {
+        return issueTickets(patientTypes, null);
+    }
+
+    /**
+     * Menerbitkan beberapa tiket dalam satu critical section sehingga nomornya berurutan tanpa disela
+     * pengambil lain, lalu mencatat riwayatnya sebagai satu batch dan mencetaknya sebagai satu pekerjaan cetak
+     * di printer {@code printerId}.
+     */
+    public List<Ticket> issueTickets(List<PatientType> patientTypes, String printerId) {
+        Assert.isTrue(patientTypes != null && !patientTypes.isEmpty(), "Jenis pasien tiket belum diisi");
+        if (!ticketPrinter.hasPrinter(printerId)) {
+            throw new IllegalArgumentException("Printer " + printerId + " tidak dikenal");
+        }
         ensureDailyResetIfNeeded();
-        String firstCounterId = firstCounterId();
-        Assert.state(firstCounterId != null, "Tidak ada loket terdaftar");
-        PatientType type = patientType == null ? PatientType.LAMA : patientType;
-        int nextSequence = ticketSequence.incrementAndGet();
-        String ticketNumber = String.format("%s-%03d", type.getPrefix(), nextSequence);
-        Ticket ticket = Ticket.create(ticketNumber, type);
-        waitingByCounter.get(firstCounterId).addLast(ticket);
-        auditService.recordIssued(ticket);
+        List<Ticket> tickets = coordinated(() -> withSharedAccess(() -> {
+            String firstCounterId = firstCounterId();
+            Assert.state(firstCounterId != null, "Tidak ada loket terdaftar");
+            CounterState first = requireCounter(firstCounterId);
+            // Nomor diambil di bawah kunci loket pertama agar urutan antrean sama dengan urutan nomor.
+            return withCounterLocks(List.of(first), () -> {
+                WaitingQueue queue = waitingByCounter.get(firstCounterId);
+                List<Ticket> issued = new ArrayList<>(patientTypes.size());
+                for (PatientType requested : patientTypes) {
+                    PatientType type = requested == null ? PatientType.LAMA : requested;
+                    int nextSequence = ticketSequence.incrementAndGet();
+                    String ticketNumber = String.format("%s-%03d", type.getPrefix(), nextSequence);
+                    Ticket ticket = Ticket.create(ticketNumber, type);
+                    enqueue(firstCounterId, ticket);
+                    record(JournalRecord.issue(nextSequence, firstCounterId, ticket));
+                    publish(QueueEventType.ISSUED, firstCounterId, null, ticket);
+                    int ahead = aheadOf(first, type, queue.size() - 1, queue.size(type) - 1);
+                    issued.add(ticket.withEstimatedWait(estimateWaitSeconds(first, type, ahead, false)));
+                }
+                return issued;
+            });
+        }));
+        maybeCheckpoint();
+        auditService.recordIssued(tickets);
         try {
-            ticketPrinter.printTicket(ticket);
+            ticketPrinter.printTickets(tickets, printerId);
         } catch (Exception ex) {
-            log.warn("Gagal memicu cetak tiket {}: {}", ticket.getNumber(), ex.getMessage());
+            log.warn("Gagal memicu cetak tiket {}: {}", tickets.get(0).getNumber(), ex.getMessage());
         }
-        return ticket;
+        return tickets;
     }
 
-    public synchronized Optional<Ticket> callNext(String counterId) {
+    public Optional<Ticket> callNext(String counterId) {
         ensureDailyResetIfNeeded();
-        CounterState counter = requireCounter(counterId);
+        Optional<Ticket> called = coordinated(() -> withSharedAccess(() -> {
+            CounterState counter = requireCounter(counterId);
+            String firstCounterId = firstCounterId();
+            // Loket selain loket pertama dapat mengambil dari antrean loket pertama,
+            // sehingga kedua kunci diambil sekaligus sesuai urutan loket.
+            List<CounterState> involved = firstCounterId == null || counterId.equalsIgnoreCase(firstCounterId)
+                    || "A".equalsIgnoreCase(counterId)
+                    ? List.of(counter)
+                    : List.of(counter, requireCounter(firstCounterId));
+            return withCounterLocks(involved, () -> pollNextLocked(counter, firstCounterId));
+        }));
+        called.ifPresent(auditService::recordCalled);
+        maybeCheckpoint();
+        return called;
+    }
+
+    private Optional<Ticket> pollNextLocked(CounterState counter, String firstCounterId) {
+        String counterId = counter.id;
         if (counter.activeSize() >= 3) {
             throw new IllegalStateException("Loket " + counterId
                     + " sudah memanggil tiga nomor. Selesaikan salah satunya terlebih dahulu.");
         }
-        Deque<Ticket> queue = waitingByCounter.get(counterId);
+        WaitingQueue queue = waitingByCounter.get(counterId);
         if (queue == null) {
             return Optional.empty();
         }
-        // Loket A hanya bisa memanggil Pasien Baru
-        boolean isLoketA = "A".equalsIgnoreCase(counterId);
-        Ticket ticket = null;
+        boolean isLoketA = servesNewPatientsOnly(counterId);
+        WaitingQueue.Node polled = null;
+        String sourceCounterId = counterId;
         if (isLoketA) {
-            // Cari tiket Pasien Baru di antrian
-            Iterator<Ticket> iterator = queue.iterator();
-            while (iterator.hasNext()) {
-                Ticket candidate = iterator.next();
-                if (candidate.getPatientType() == PatientType.BARU) {
-                    ticket = candidate;
-                    iterator.remove();
-                    break;
-                }
-            }
+            // Ambil langsung dari jalur Pasien Baru tanpa memindai Pasien Lama di depannya
+            polled = queue.pollFirstNode(PatientType.BARU);
         } else {
             // Loket B, C dst: cek queue sendiri dulu
-            ticket = queue.pollFirst();
+            polled = queue.pollFirstNode();
             // Jika queue sendiri kosong, cek queue Loket A untuk Pasien Lama
-            if (ticket == null) {
-                String firstCounterId = firstCounterId();
+            if (polled == null) {
                 if (firstCounterId != null && !counterId.equalsIgnoreCase(firstCounterId)) {
-                    Deque<Ticket> firstQueue = waitingByCounter.get(firstCounterId);
+                    WaitingQueue firstQueue = waitingByCounter.get(firstCounterId);
                     if (firstQueue != null) {
                         // Ambil tiket pertama (bisa Lama atau Baru)
-                        ticket = firstQueue.pollFirst();
+                        polled = firstQueue.pollFirstNode();
+                        sourceCounterId = firstCounterId;
                     }
                 }
             }
         }
-        if (ticket == null) {
+        if (polled == null) {
             return Optional.empty();
         }
+        Ticket ticket = polled.ticket();
+        metrics.recordWait(counter.id, ticket.getPatientType(), polled.enqueuedAt());
         Ticket assigned = ticket.assignToCounter(counter.id, counter.name);
-        counter.addActive(assigned);
+        counter.addActive(assigned, metrics.now());
+        ticketIndex.active(assigned, counter.id);
         counter.markLastCalled(assigned);
-        auditService.recordCalled(assigned);
+        record(JournalRecord.call(counter.id, sourceCounterId, assigned, counter.lastCalledAt));
+        publish(QueueEventType.CALLED, counter.id, sourceCounterId, assigned);
         return Optional.of(assigned);
     }
 
-    public synchronized Optional<Ticket> callNextFirstCounter() {
+    public Optional<Ticket> callNextFirstCounter() {
         ensureDailyResetIfNeeded();
         String firstCounterId = firstCounterId();
         if (firstCounterId == null) {
@@ -179,37 +408,61 @@ public class QueueService {
 
     public Optional<Ticket> recall(String counterId, String ticketId) {
         ensureDailyResetIfNeeded();
-        CounterState counter = requireCounter(counterId);
-        Ticket target = counter.realignActiveTicket(ticketId);
-        if (target == null && ticketId != null && !ticketId.isBlank()) {
-            throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
-        }
+        Ticket target = coordinated(() -> withSharedAccess(() -> {
+            CounterState counter = requireCounter(counterId);
+            return withCounterLocks(List.of(counter), () -> {
+                Ticket found = counter.realignActiveTicket(ticketId);
+                if (found == null && ticketId != null && !ticketId.isBlank()) {
+                    throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
+                }
+                if (found != null) {
+                    counter.markLastCalled(found);
+                    record(JournalRecord.recall(counter.id, found.getId(), counter.lastCalledAt));
+                    publish(QueueEventType.RECALLED, counter.id, null, found);
+                }
+                return found;
+            });
+        }));
         if (target != null) {
-            counter.markLastCalled(target);
             auditService.recordCalled(target);
         }
         return Optional.ofNullable(target);
     }
 
-    public synchronized void complete(String counterId) {
+    public void complete(String counterId) {
         complete(counterId, null);
     }
 
-    public synchronized void complete(String counterId, String ticketId) {
+    public void complete(String counterId, String ticketId) {
         ensureDailyResetIfNeeded();
-        CounterState counter = requireCounter(counterId);
-        Ticket current = counter.removeActive(ticketId);
-        if (current == null && ticketId != null && !ticketId.isBlank()) {
-            throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
-        }
-        if (current == null) {
-            return;
-        }
-        counter.clearLastCalledIfMatches(current);
-        auditService.recordCompleted(current, counterId);
-        String nextCounterId = nextCounterId(counterId);
-        if (nextCounterId != null) {
-            waitingByCounter.get(nextCounterId).addLast(current.resetCounter());
+        Ticket current = coordinated(() -> withSharedAccess(() -> {
+            CounterState counter = requireCounter(counterId);
+            String nextCounterId = nextCounterId(counterId);
+            CounterState next = nextCounterId == null ? null : counters.get(nextCounterId);
+            List<CounterState> involved = next == null ? List.of(counter) : List.of(counter, next);
+            return withCounterLocks(involved, () -> {
+                Ticket removed = counter.removeActive(ticketId);
+                if (removed == null && ticketId != null && !ticketId.isBlank()) {
+                    throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
+                }
+                if (removed == null) {
+                    return null;
+                }
+                counter.clearLastCalledIfMatches(removed);
+                recordServiceTime(counter, removed, "completed");
+                if (next != null) {
+                    enqueue(next.id, removed.resetCounter());
+                } else {
+                    ticketIndex.finished(removed, TicketStage.COMPLETED, counter.id);
+                }
+                record(JournalRecord.complete(counter.id, removed.getId(), next == null ? null : next.id));
+                publish(QueueEventType.COMPLETED, counter.id, next == null ? null : next.id, removed);
+                return removed;
+            });
+        }));
+        if (current != null) {
+            auditService.recordCompleted(current, counterId);
+            maybeCheckpoint();
         }
     }
 
@@ -217,32 +470,191 @@ public class QueueService {
         return stop(counterId, null);
     }
 
-    public synchronized Optional<Ticket> stop(String counterId, String ticketId) {
+    public Optional<Ticket> stop(String counterId, String ticketId) {
         ensureDailyResetIfNeeded();
-        CounterState counter = requireCounter(counterId);
-        Ticket removed = counter.removeActive(ticketId);
-        if (removed == null && ticketId != null && !ticketId.isBlank()) {
-            throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
-        }
+        Ticket removed = coordinated(() -> withSharedAccess(() -> {
+            CounterState counter = requireCounter(counterId);
+            return withCounterLocks(List.of(counter), () -> {
+                Ticket found = counter.removeActive(ticketId);
+                if (found == null && ticketId != null && !ticketId.isBlank()) {
+                    throw new IllegalArgumentException("Nomor " + ticketId + " tidak aktif di loket " + counterId);
+                }
+                if (found != null) {
+                    counter.clearLastCalledIfMatches(found);
+                    recordServiceTime(counter, found, "stopped");
+                    ticketIndex.finished(found, TicketStage.STOPPED, counter.id);
+                    record(JournalRecord.stop(counter.id, found.getId()));
+                    publish(QueueEventType.STOPPED, counter.id, null, found);
+                }
+                return found;
+            });
+        }));
         if (removed == null) {
             return Optional.empty();
         }
-        counter.clearLastCalledIfMatches(removed);
         auditService.recordStopped(removed, counterId);
+        maybeCheckpoint();
         return Optional.of(removed);
     }
 
     public List<Ticket> getWaitingQueue() {
         ensureDailyResetIfNeeded();
-        String firstCounterId = firstCounterId();
-        if (firstCounterId == null) {
-            return List.of();
+        return withSharedAccess(() -> {
+            String firstCounterId = firstCounterId();
+            if (firstCounterId == null) {
+                return List.<Ticket>of();
+            }
+            CounterState first = counters.get(firstCounterId);
+            WaitingQueue queue = waitingByCounter.get(firstCounterId);
+            if (first == null || queue == null) {
+                return List.<Ticket>of();
+            }
+            return withCounterLocks(List.of(first), queue::toList);
+        });
+    }
+
+    /**
+     * Mencari tiket hari ini berdasarkan id atau nomornya. Posisi antrean dihitung dari indeks tiket dan
+     * Fenwick tree antrean loket sehingga setiap pencarian O(log n), bukan pemindaian antrean.
+     */
+    public Optional<TicketStatus> findTicket(String idOrNumber) {
+        ensureDailyResetIfNeeded();
+        TicketIndex.Entry entry = ticketIndex.find(idOrNumber);
+        if (entry == null) {
+            return Optional.empty();
         }
-        Deque<Ticket> queue = waitingByCounter.get(firstCounterId);
-        if (queue == null) {
-            return List.of();
+        return Optional.of(withSharedAccess(() -> {
+            while (true) {
+                String counterId = entry.counterId();
+                CounterState counter = counters.get(counterId);
+                // Entri hanya berubah di bawah kunci loket yang sedang tercatat, jadi setelah kunci itu
+                // dipegang dan loketnya masih sama, seluruh isi entri konsisten.
+                TicketStatus status = withCounterLocks(List.of(counter), () -> counterId.equals(entry.counterId())
+                        ? statusOf(entry, counter)
+                        : null);
+                if (status != null) {
+                    return status;
+                }
+            }
+        }));
+    }
+
+    private TicketStatus statusOf(TicketIndex.Entry entry, CounterState counter) {
+        Ticket ticket = entry.ticket();
+        PatientType type = ticket.getPatientType();
+        if (entry.stage() == TicketStage.ACTIVE) {
+            return new TicketStatus(ticket, TicketStage.ACTIVE, counter.id, counter.name, null, null,
+                    null, null, Math.round(remainingChainSeconds(counter, type)));
+        }
+        if (entry.stage() != TicketStage.WAITING) {
+            return new TicketStatus(ticket, entry.stage(), counter.id, counter.name, null, null);
+        }
+        WaitingQueue queue = waitingByCounter.get(counter.id);
+        int position = queue.positionOf(entry.node());
+        int positionInType = queue.lanePositionOf(entry.node());
+        int ahead = aheadOf(counter, type, position - 1, positionInType - 1);
+        long wait = estimateWaitSeconds(counter, type, ahead, false);
+        return new TicketStatus(ticket, TicketStage.WAITING, counter.id, counter.name, position, positionInType,
+                wait, estimateWaitSeconds(counter, type, ahead, true),
+                wait + Math.round(remainingChainSeconds(counter, type)));
+    }
+
+    /**
+     * Loket A hanya melayani Pasien Baru; Pasien Lama di antreannya diambil loket lain.
+     */
+    private static boolean servesNewPatientsOnly(String counterId) {
+        return "A".equalsIgnoreCase(counterId);
+    }
+
+    /**
+     * Jumlah tiket yang dipanggil lebih dulu. Di loket yang hanya melayani Pasien Baru kedua jalur terpisah:
+     * Pasien Baru dipanggil loket itu sendiri dan Pasien Lama diambil loket lain, sehingga yang dihitung hanya
+     * tiket sejenis di depannya.
+     */
+    private static int aheadOf(CounterState counter, PatientType type, int aheadInQueue, int aheadInType) {
+        return servesNewPatientsOnly(counter.id) ? aheadInType : aheadInQueue;
+    }
+
+    /**
+     * Perkiraan detik sampai dipanggil: tiket di depan ditambah tiket yang sedang dilayani, dikali lama
+     * layanan per tiket (EWMA, atau persentil 90 untuk taksiran atas). Hanya membaca penghitung atomik,
+     * sehingga boleh dipanggil tanpa kunci loket.
+     */
+    private long estimateWaitSeconds(CounterState counter, PatientType type, int ahead, boolean upper) {
+        if (servesNewPatientsOnly(counter.id) && type != PatientType.BARU) {
+            Long stolen = stolenWaitSeconds(counter, type, ahead, upper);
+            if (stolen != null) {
+                return stolen;
+            }
+        }
+        return Math.round((ahead + counter.activeSize()) * serviceSeconds(counter.id, type, upper));
+    }
+
+    /**
+     * Pasien Lama di antrean loket Pasien Baru dipanggil loket lain setelah antrean loket itu sendiri kosong.
+     * Tiket Lama di depannya ditambah antrean dan tiket aktif loket-loket tersebut dibagi kapasitas gabungannya
+     * (jumlah tiket per detik dari lama layanan masing-masing).
+     *
+     * @return {@code null} bila tidak ada loket lain yang dapat mengambil tiket ini
+     */
+    private Long stolenWaitSeconds(CounterState owner, PatientType type, int ahead, boolean upper) {
+        double ticketsPerSecond = 0;
+        int backlog = ahead;
+        for (String counterId : counterOrder) {
+            CounterState other = counters.get(counterId);
+            WaitingQueue queue = waitingByCounter.get(counterId);
+            if (other == null || queue == null || other == owner) {
+                continue;
+            }
+            backlog += queue.size() + other.activeSize();
+            double perTicket = serviceSeconds(counterId, type, upper);
+            if (perTicket > 0) {
+                ticketsPerSecond += 1 / perTicket;
+            }
+        }
+        if (ticketsPerSecond == 0) {
+            return null;
+        }
+        return Math.round(backlog / ticketsPerSecond);
+    }
+
+    private double serviceSeconds(String counterId, PatientType type, boolean upper) {
+        return upper
+                ? estimator.serviceSecondsPercentile(counterId, type, 0.9)
+                : estimator.serviceSeconds(counterId, type);
+    }
+
+    /**
+     * Perkiraan detik dari dipanggil di loket ini sampai selesai di loket terakhir. Kedalaman loket berikutnya
+     * dibaca tanpa kuncinya sehingga boleh sedikit tertinggal, sama seperti gauge metrik. Pasien Lama yang
+     * menunggu di loket Pasien Baru tidak dilayani di sana; rantainya dihitung dari loket berikutnya.
+     */
+    private double remainingChainSeconds(CounterState counter, PatientType type) {
+        if (servesNewPatientsOnly(counter.id) && type != PatientType.BARU) {
+            String nextId = nextCounterId(counter.id);
+            CounterState next = nextId == null ? null : counters.get(nextId);
+            if (next != null) {
+                return remainingChainSeconds(next, type);
+            }
+        }
+        double seconds = estimator.serviceSeconds(counter.id, type);
+        for (String nextId = nextCounterId(counter.id); nextId != null; nextId = nextCounterId(nextId)) {
+            CounterState next = counters.get(nextId);
+            WaitingQueue queue = waitingByCounter.get(nextId);
+            if (next == null || queue == null) {
+                continue;
+            }
+            seconds += (queue.size() + next.activeSize() + 1) * estimator.serviceSeconds(nextId, type);
+        }
+        return seconds;
+    }
+
+    private void recordServiceTime(CounterState counter, Ticket ticket, String outcome) {
+        long calledAt = counter.takeCalledAt(ticket);
+        metrics.recordService(counter.id, outcome, calledAt);
+        if (calledAt >= 0) {
+            estimator.recordService(counter.id, ticket.getPatientType(), metrics.now() - calledAt);
         }
-        return List.copyOf(queue);
     }
 
     public int previewNextTicketNumber() {
@@ -258,7 +670,93 @@ public class QueueService {
 
     public QueueStatus getQueueStatus() {
         ensureDailyResetIfNeeded();
-        return new QueueStatus(getWaitingQueue(), previewNextTicketNumber());
+        long version = eventSequence.get();
+        CachedView<QueueStatus> cached = cachedQueueStatus;
+        if (cached != null && cached.version == version) {
+            return cached.value;
+        }
+        QueueStatus status = buildQueueStatus(0, Integer.MAX_VALUE);
+        cachedQueueStatus = new CachedView<>(version, status);
+        return status;
+    }
+
+    /**
+     * Status antrean loket pertama dengan jendela {@code offset}/{@code limit} atas daftar tunggu. Dengan
+     * {@code limit} 0 hanya jumlah per jenis pasien dan perkiraan tunggu yang dikirim.
+     */
+    public QueueStatus getQueueStatus(int offset, int limit) {
+        ensureDailyResetIfNeeded();
+        return buildQueueStatus(Math.max(offset, 0), Math.max(limit, 0));
+    }
+
+    /**
+     * Jumlah tiket menunggu dan sedang dilayani per loket dan jenis pasien, dibaca dari penghitung atomik tanpa
+     * kunci antrean dan tanpa menyalin daftar tiket. Nilai antar loket bisa berasal dari saat yang sedikit berbeda.
+     */
+    public QueueCounts getQueueCounts() {
+        ensureDailyResetIfNeeded();
+        long version = eventSequence.get();
+        List<CounterDepth> depths = new ArrayList<>(counterOrder.size());
+        for (String counterId : counterOrder) {
+            CounterState counter = counters.get(counterId);
+            WaitingQueue queue = waitingByCounter.get(counterId);
+            if (counter != null && queue != null) {
+                depths.add(new CounterDepth(counterId, queue.sizesByType(), counter.activeSize()));
+            }
+        }
+        String firstCounterId = firstCounterId();
+        CounterState first = firstCounterId == null ? null : counters.get(firstCounterId);
+        WaitingQueue queue = firstCounterId == null ? null : waitingByCounter.get(firstCounterId);
+        Map<PatientType, Long> newTicketWait = first == null || queue == null
+                ? Map.of()
+                : newTicketWaitSeconds(first, queue);
+        Map<PatientType, Integer> waiting = queue == null ? QueueStatus.countByType(List.of()) : queue.sizesByType();
+        return new QueueCounts(version, ticketSequence.get() + 1, waiting, newTicketWait, depths);
+    }
+
+    private QueueStatus buildQueueStatus(int offset, int limit) {
+        return withSharedAccess(() -> {
+            String firstCounterId = firstCounterId();
+            CounterState first = firstCounterId == null ? null : counters.get(firstCounterId);
+            WaitingQueue queue = firstCounterId == null ? null : waitingByCounter.get(firstCounterId);
+            if (first == null || queue == null) {
+                return new QueueStatus(List.of(), ticketSequence.get() + 1);
+            }
+            return withCounterLocks(List.of(first), () -> queueStatusOf(first, queue, offset, limit));
+        });
+    }
+
+    /**
+     * Antrean loket pertama beserta perkiraan waktu tunggu tiap tiket dan tiket baru. Dipanggil di bawah
+     * kunci loket tersebut.
+     */
+    private QueueStatus queueStatusOf(CounterState first, WaitingQueue queue, int offset, int limit) {
+        int end = (int) Math.min((long) offset + limit, queue.size());
+        List<Ticket> waiting = new ArrayList<>(Math.max(end - offset, 0));
+        int[] aheadByType = new int[PatientType.values().length];
+        int ahead = 0;
+        // Tiket sebelum jendela hanya dihitung untuk perkiraan; iterasi berhenti di ujung jendela.
+        for (Iterator<Ticket> it = queue.iterator(); it.hasNext() && ahead < end; ) {
+            Ticket ticket = it.next();
+            PatientType type = ticket.getPatientType();
+            int aheadOfTicket = aheadOf(first, type, ahead++, aheadByType[type.ordinal()]++);
+            if (ahead > offset) {
+                waiting.add(ticket.withEstimatedWait(estimateWaitSeconds(first, type, aheadOfTicket, false)));
+            }
+        }
+        return new QueueStatus(waiting, queue.sizesByType(), ticketSequence.get() + 1, newTicketWaitSeconds(first, queue));
+    }
+
+    /**
+     * Perkiraan tunggu untuk tiket yang diambil sekarang per jenis pasien; hanya membaca jumlah tiket.
+     */
+    private Map<PatientType, Long> newTicketWaitSeconds(CounterState first, WaitingQueue queue) {
+        Map<PatientType, Long> newTicketWait = new EnumMap<>(PatientType.class);
+        for (PatientType type : PatientType.values()) {
+            int aheadOfNew = aheadOf(first, type, queue.size(), queue.size(type));
+            newTicketWait.put(type, estimateWaitSeconds(first, type, aheadOfNew, false));
+        }
+        return newTicketWait;
     }
 
     private void ensureDailyResetIfNeeded() {
@@ -266,28 +764,37 @@ public class QueueService {
         if (today.equals(lastResetDate)) {
             return;
         }
-        synchronized (this) {
+        // Dibaca sebelum write lock agar I/O database tidak menahan seluruh operasi antrean.
+        int loaded = auditService.loadLastSequenceForDate(today);
+        withExclusiveAccess(() -> {
             if (today.equals(lastResetDate)) {
-                return;
+                return null;
             }
-            ticketSequence.set(0);
-            resetTodayQueueState(today);
-        }
+            resetTodayQueueState(today, loaded);
+            return null;
+        });
     }
 
-    private synchronized CounterState registerCounter(String id, String name) {
-        CounterState state = counters.compute(id, (key, existing) -> {
-            if (existing == null) {
-                return new CounterState(key, name);
+    private CounterState registerCounter(String id, String name) {
+        return withExclusiveAccess(() -> {
+            CounterState state = counters.compute(id, (key, existing) -> {
+                if (existing == null) {
+                    return new CounterState(key, name);
+                }
+                existing.name = name;
+                return existing;
+            });
+            WaitingQueue queue = waitingByCounter.get(id);
+            if (queue == null) {
+                queue = new WaitingQueue();
+                waitingByCounter.put(id, queue);
+                metrics.registerCounter(id, queue, state::activeSize);
+            }
+            if (!counterOrder.contains(id)) {
+                counterOrder.add(id);
             }
-            existing.name = name;
-            return existing;
+            return state;
         });
-        waitingByCounter.computeIfAbsent(id, key -> new ConcurrentLinkedDeque<>());
-        if (!counterOrder.contains(id)) {
-            counterOrder.add(id);
-        }
-        return state;
     }
 
     private CounterState requireCounter(String counterId) {
@@ -314,25 +821,399 @@ public class QueueService {
         return counterOrder.get(nextIndex);
     }
 
+    private CounterSnapshot snapshotOf(CounterState state, int nextNumber, int waitingLimit) {
+        WaitingQueue queue = waitingByCounter.get(state.id);
+        if (queue == null) {
+            return state.snapshot(List.of(), QueueStatus.countByType(List.of()), nextNumber);
+        }
+        List<Ticket> waiting = waitingLimit >= queue.size() ? queue.toList() : queue.window(0, waitingLimit);
+        return state.snapshot(waiting, queue.sizesByType(), nextNumber);
+    }
+
+    private <T> T withSharedAccess(Supplier<T> action) {
+        Lock lock = structureLock.readLock();
+        long startedAt = metrics.now();
+        lock.lock();
+        metrics.recordLockWait("structure", "shared", startedAt);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T withExclusiveAccess(Supplier<T> action) {
+        Lock lock = structureLock.writeLock();
+        long startedAt = metrics.now();
+        lock.lock();
+        metrics.recordLockWait("structure", "exclusive", startedAt);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mengunci loket-loket yang terlibat sesuai urutan di {@code counterOrder} agar perpindahan
+     * tiket antar loket (selesai A → antre B, atau B mengambil dari antrean A) tidak saling deadlock.
+     * Harus dipanggil di dalam {@link #withSharedAccess(Supplier)}.
+     */
+    private <T> T withCounterLocks(List<CounterState> involved, Supplier<T> action) {
+        List<CounterState> ordered = new ArrayList<>(involved);
+        ordered.sort(Comparator.comparingInt(state -> counterOrder.indexOf(state.id)));
+        int acquired = 0;
+        try {
+            for (CounterState state : ordered) {
+                long startedAt = metrics.now();
+                state.lock.lock();
+                acquired++;
+                metrics.recordLockWait(state.id, "exclusive", startedAt);
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                ordered.get(i).lock.unlock();
+            }
+        }
+    }
+
     private void reloadTicketSequenceFromHistory() {
         int lastSequence = auditService.loadLastSequenceForDate(LocalDate.now(clock));
         ticketSequence.set(Math.max(lastSequence, 0));
     }
 
-    public synchronized void manualReset() {
+    public void manualReset() {
         LocalDate today = LocalDate.now(clock);
-        resetTodayQueueState(today);
+        int loaded = auditService.loadLastSequenceForDate(today);
+        coordinated(() -> withExclusiveAccess(() -> {
+            resetTodayQueueState(today, loaded);
+            // Hanya diteruskan ke instance lain; jurnal lokal sudah diganti checkpoint kosong.
+            coordinator.record(JournalRecord.reset(ticketSequence.get()));
+            return null;
+        }));
     }
 
-    private void resetTodayQueueState(LocalDate currentDate) {
-        waitingByCounter.values().forEach(Deque::clear);
-        counters.values().forEach(CounterState::clearActive);
+    /**
+     * Mengosongkan antrean untuk {@code currentDate}. Pada hari yang sama nomor tidak pernah mundur: tiket yang
+     * baru diterbitkan mungkin belum tersimpan di database, jadi nomor di memori tetap dipakai bila lebih besar.
+     * Nomor hanya kembali ke nol saat berganti hari. Harus dipanggil di bawah write lock.
+     *
+     * @param loadedSequence nomor terakhir hari itu dari riwayat, dibaca sebelum write lock diambil
+     */
+    private void resetTodayQueueState(LocalDate currentDate, int loadedSequence) {
+        int base = currentDate.equals(lastResetDate) ? ticketSequence.get() : 0;
+        clearQueues();
         lastResetDate = currentDate;
-        reloadTicketSequenceFromHistory();
+        ticketSequence.set(Math.max(base, Math.max(loadedSequence, 0)));
+        journal.checkpoint(journalState());
+        publish(QueueEventType.RESET, null, null, null);
+    }
+
+    private void clearQueues() {
+        waitingByCounter.values().forEach(WaitingQueue::clear);
+        counters.values().forEach(CounterState::clearActive);
+        ticketIndex.clear();
+    }
+
+    /**
+     * Menaruh tiket di akhir antrean loket sekaligus mencatat lokasinya di indeks tiket.
+     * Harus dipanggil di bawah kunci loket tersebut (atau write lock).
+     */
+    private void enqueue(String counterId, Ticket ticket) {
+        WaitingQueue.Node node = waitingByCounter.get(counterId).addLast(ticket, metrics.now());
+        ticketIndex.waiting(ticket, counterId, node);
+    }
+
+    /**
+     * Memulihkan antrean hari ini dari jurnal. Jurnal milik hari sebelumnya diabaikan dan langsung
+     * diganti checkpoint kosong untuk hari ini.
+     */
+    private void restoreFromJournal() {
+        List<JournalRecord> records = journal.replay();
+        LocalDate today = LocalDate.now(clock);
+        withExclusiveAccess(() -> {
+            boolean sameDay = !records.isEmpty()
+                    && records.get(0).getType() == JournalRecord.Type.DAY
+                    && today.equals(records.get(0).getDate());
+            if (sameDay) {
+                records.forEach(this::applyJournalRecord);
+                int waiting = waitingByCounter.values().stream().mapToInt(WaitingQueue::size).sum();
+                int active = counters.values().stream().mapToInt(CounterState::activeSize).sum();
+                log.info("Antrean dipulihkan dari jurnal: {} menunggu, {} aktif, nomor terakhir {}",
+                        waiting, active, ticketSequence.get());
+            }
+            journal.checkpoint(journalState());
+            return null;
+        });
+    }
+
+    /**
+     * Menerapkan satu transisi jurnal ke keadaan di memori. Harus dipanggil di bawah write lock.
+     *
+     * @return tiket yang terdampak, atau {@code null} bila tidak ada
+     */
+    private Ticket applyJournalRecord(JournalRecord record) {
+        if (record.getType() == JournalRecord.Type.DAY) {
+            ticketSequence.accumulateAndGet(record.getSequence(), Math::max);
+            return null;
+        }
+        if (record.getType() == JournalRecord.Type.COUNTER) {
+            registerCounter(record.getCounterId(), record.getName());
+            return null;
+        }
+        if (record.getType() == JournalRecord.Type.RESET) {
+            clearQueues();
+            ticketSequence.accumulateAndGet(record.getSequence(), Math::max);
+            return null;
+        }
+        CounterState counter = counters.get(record.getCounterId());
+        if (counter == null) {
+            log.warn("Loket {} pada jurnal tidak terdaftar, transisi {} dilewati",
+                    record.getCounterId(), record.getType());
+            return null;
+        }
+        switch (record.getType()) {
+            case ISSUE:
+                ticketSequence.accumulateAndGet(record.getSequence(), Math::max);
+                enqueue(counter.id, record.getTicket());
+                return record.getTicket();
+            case ENQUEUE:
+                enqueue(counter.id, record.getTicket());
+                return record.getTicket();
+            case CALL:
+                WaitingQueue source = record.getTargetCounterId() == null
+                        ? null
+                        : waitingByCounter.get(record.getTargetCounterId());
+                if (source != null) {
+                    source.remove(record.getTicketId());
+                }
+                counter.addActive(record.getTicket());
+                ticketIndex.active(record.getTicket(), counter.id);
+                counter.restoreLastCalled(record.getTicket(), record.getTime());
+                return record.getTicket();
+            case ACTIVE:
+                counter.addActive(record.getTicket());
+                ticketIndex.active(record.getTicket(), counter.id);
+                return record.getTicket();
+            case RECALL:
+                Ticket recalled = counter.realignActiveTicket(record.getTicketId());
+                if (recalled != null) {
+                    counter.restoreLastCalled(recalled, record.getTime());
+                }
+                return recalled;
+            case LAST:
+                counter.restoreLastCalled(counter.findActive(record.getTicketId()), record.getTime());
+                return null;
+            case COMPLETE:
+                Ticket completed = counter.removeActive(record.getTicketId());
+                if (completed != null) {
+                    counter.clearLastCalledIfMatches(completed);
+                    WaitingQueue target = record.getTargetCounterId() == null
+                            ? null
+                            : waitingByCounter.get(record.getTargetCounterId());
+                    if (target != null) {
+                        enqueue(record.getTargetCounterId(), completed.resetCounter());
+                    } else {
+                        ticketIndex.finished(completed, TicketStage.COMPLETED, counter.id);
+                    }
+                }
+                return completed;
+            case STOP:
+                Ticket stopped = counter.removeActive(record.getTicketId());
+                counter.clearLastCalledIfMatches(stopped);
+                ticketIndex.finished(stopped, TicketStage.STOPPED, counter.id);
+                return stopped;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Menerbitkan event lokal untuk transisi yang berasal dari instance lain, agar klien yang tersambung
+     * ke instance ini ikut diperbarui.
+     */
+    private void publishReplicated(JournalRecord record, Ticket ticket) {
+        switch (record.getType()) {
+            case COUNTER:
+                publish(QueueEventType.COUNTER_ADDED, record.getCounterId(), null, null);
+                break;
+            case ISSUE:
+                publish(QueueEventType.ISSUED, record.getCounterId(), null, ticket);
+                break;
+            case CALL:
+                publish(QueueEventType.CALLED, record.getCounterId(), record.getTargetCounterId(), ticket);
+                break;
+            case RECALL:
+                publish(QueueEventType.RECALLED, record.getCounterId(), null, ticket);
+                break;
+            case COMPLETE:
+                publish(QueueEventType.COMPLETED, record.getCounterId(), record.getTargetCounterId(), ticket);
+                break;
+            case STOP:
+                publish(QueueEventType.STOPPED, record.getCounterId(), null, ticket);
+                break;
+            case RESET:
+                publish(QueueEventType.RESET, null, null, null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Menyusun keadaan ringkas seluruh antrean untuk checkpoint jurnal. Harus dipanggil di bawah write lock.
+     */
+    private List<JournalRecord> journalState() {
+        List<JournalRecord> state = new ArrayList<>();
+        state.add(JournalRecord.day(lastResetDate, ticketSequence.get()));
+        for (String counterId : counterOrder) {
+            CounterState counter = counters.get(counterId);
+            if (counter != null) {
+                state.add(JournalRecord.counter(counter.id, counter.name));
+            }
+        }
+        for (String counterId : counterOrder) {
+            CounterState counter = counters.get(counterId);
+            if (counter == null) {
+                continue;
+            }
+            for (Ticket waiting : waitingByCounter.get(counterId)) {
+                state.add(JournalRecord.enqueue(counterId, waiting));
+            }
+            for (Ticket active : counter.activeTickets) {
+                state.add(JournalRecord.active(counterId, active));
+            }
+            Ticket last = counter.lastCalledTicket;
+            if (last != null) {
+                state.add(JournalRecord.last(counterId, last.getId(), counter.lastCalledAt));
+            }
+        }
+        return state;
+    }
+
+    private <T> T coordinated(Supplier<T> transition) {
+        return coordinator.execute(transition);
+    }
+
+    /**
+     * Mencatat transisi ke jurnal lokal sekaligus ke koordinator (untuk diteruskan ke instance lain).
+     */
+    private void record(JournalRecord record) {
+        journal.append(record);
+        coordinator.record(record);
+    }
+
+    /**
+     * Menerbitkan event ke seluruh listener. Kunci loket hanya mengurutkan transisi pada loket yang sama, jadi
+     * nomor urut diambil dan event diserahkan ke listener dalam satu {@code synchronized (eventLock)}: listener
+     * selalu menerima event dengan nomor urut naik walaupun beberapa loket bertransisi bersamaan.
+     */
+    private void publish(QueueEventType type, String counterId, String targetCounterId, Ticket ticket) {
+        if ((type == QueueEventType.CALLED || type == QueueEventType.RECALLED) && ticket != null) {
+            announce(type, counterId, ticket);
+        }
+        synchronized (eventLock) {
+            long sequence = eventSequence.incrementAndGet();
+            if (listeners.isEmpty()) {
+                return;
+            }
+            QueueEvent event = new QueueEvent(sequence, type, counterId, targetCounterId, ticket, LocalDateTime.now(clock));
+            for (QueueEventListener listener : listeners) {
+                try {
+                    listener.onQueueEvent(event);
+                } catch (RuntimeException ex) {
+                    log.warn("Listener antrean gagal memproses event {}: {}", type, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Menambahkan panggilan ke log pengumuman. Nomor urut dan penyisipan dilakukan dalam satu lock sehingga
+     * urutan di log selalu naik walaupun beberapa loket memanggil bersamaan.
+     */
+    private void announce(QueueEventType type, String counterId, Ticket ticket) {
+        CounterState counter = counterId == null ? null : counters.get(counterId);
+        String counterName = counter != null ? counter.name : ticket.getCounterName();
+        synchronized (announcements) {
+            long sequence = ++announcementSequence;
+            announcements.add(sequence, new Announcement(sequence, type, ticket.getId(), ticket.getNumber(),
+                    counterId, counterName, LocalDateTime.now(clock)));
+        }
+    }
+
+    private void maybeCheckpoint() {
+        if (!journal.shouldCheckpoint()) {
+            return;
+        }
+        withExclusiveAccess(() -> {
+            if (journal.shouldCheckpoint()) {
+                journal.checkpoint(journalState());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Replika lokal yang diperbarui {@link QueueCoordinator} pada mode cluster.
+     */
+    private final class Replica implements QueueReplica {
+
+        @Override
+        public LocalDate currentDate() {
+            return lastResetDate;
+        }
+
+        @Override
+        public void rebuild(LocalDate date, int lastNumber, List<JournalRecord> records) {
+            withExclusiveAccess(() -> {
+                int base = date.equals(lastResetDate) ? ticketSequence.get() : 0;
+                clearQueues();
+                lastResetDate = date;
+                ticketSequence.set(Math.max(base, lastNumber));
+                records.forEach(QueueService.this::applyJournalRecord);
+                journal.checkpoint(journalState());
+                publish(QueueEventType.RESET, null, null, null);
+                log.info("Antrean dimuat dari cluster: {} transisi, nomor terakhir {}",
+                        records.size(), ticketSequence.get());
+                return null;
+            });
+        }
+
+        @Override
+        public void apply(LocalDate date, List<JournalRecord> records) {
+            int loaded = date.isAfter(lastResetDate) ? auditService.loadLastSequenceForDate(date) : 0;
+            withExclusiveAccess(() -> {
+                if (date.isBefore(lastResetDate)) {
+                    return null;
+                }
+                if (date.isAfter(lastResetDate)) {
+                    resetTodayQueueState(date, loaded);
+                }
+                for (JournalRecord record : records) {
+                    Ticket ticket = applyJournalRecord(record);
+                    journal.append(record);
+                    publishReplicated(record, ticket);
+                }
+                return null;
+            });
+        }
+    }
+
+    private static final class CachedView<T> {
+        private final long version;
+        private final T value;
+
+        private CachedView(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
     }
 
     private static final class CounterState {
     private final String id;
+    private final ReentrantLock lock = new ReentrantLock();
     private volatile String name;
     private volatile LocalDateTime lastCalledAt;
     private volatile Ticket lastCalledTicket;
@@ -342,22 +1223,42 @@ public class QueueService {
             this.name = name;
         }
 
-        private CounterSnapshot snapshot(List<Ticket> waitingQueue, int nextNumber) {
+        private CounterSnapshot snapshot(List<Ticket> waitingQueue, Map<PatientType, Integer> waitingCountByType,
+                                         int nextNumber) {
             List<Ticket> actives = new ArrayList<>(activeTickets);
-            return new CounterSnapshot(id, name, actives, waitingQueue, nextNumber, lastCalledAt, lastCalledTicket);
+            return new CounterSnapshot(id, name, actives, waitingQueue, waitingCountByType, nextNumber,
+                    lastCalledAt, lastCalledTicket);
         }
 
         private final Deque<Ticket> activeTickets = new ArrayDeque<>();
+        // Salinan ukuran activeTickets yang boleh dibaca tanpa kunci loket (penghitung dan gauge).
+        private final AtomicInteger activeCount = new AtomicInteger();
+        // Waktu monotonic pemanggilan per tiket aktif; tiket hasil pemulihan jurnal tidak memilikinya.
+        private final Map<Ticket, Long> calledAtByTicket = new HashMap<>();
+
         private void addActive(Ticket ticket) {
             activeTickets.addLast(ticket);
+            activeCount.incrementAndGet();
+        }
+
+        private void addActive(Ticket ticket, long calledAt) {
+            addActive(ticket);
+            calledAtByTicket.put(ticket, calledAt);
+        }
+
+        private long takeCalledAt(Ticket ticket) {
+            Long calledAt = calledAtByTicket.remove(ticket);
+            return calledAt == null ? -1 : calledAt;
         }
 
         private int activeSize() {
-            return activeTickets.size();
+            return activeCount.get();
         }
 
         private void clearActive() {
             activeTickets.clear();
+            activeCount.set(0);
+            calledAtByTicket.clear();
             lastCalledTicket = null;
             lastCalledAt = null;
         }
@@ -370,10 +1271,11 @@ public class QueueService {
                 return null;
             }
             Ticket found = null;
+            long key = TicketId.parse(ticketId);
             List<Ticket> snapshot = new ArrayList<>(activeTickets);
             activeTickets.clear();
             for (Ticket ticket : snapshot) {
-                if (found == null && ticketId.equals(ticket.getId())) {
+                if (found == null && ticket.hasId(key, ticketId)) {
                     found = ticket;
                     continue;
                 }
@@ -393,6 +1295,24 @@ public class QueueService {
             lastCalledAt = LocalDateTime.now();
         }
 
+        private void restoreLastCalled(Ticket ticket, LocalDateTime calledAt) {
+            if (ticket == null) {
+                return;
+            }
+            lastCalledTicket = ticket;
+            lastCalledAt = calledAt;
+        }
+
+        private Ticket findActive(String ticketId) {
+            long key = TicketId.parse(ticketId);
+            for (Ticket ticket : activeTickets) {
+                if (ticket.hasId(key, ticketId)) {
+                    return ticket;
+                }
+            }
+            return null;
+        }
+
         private void clearLastCalledIfMatches(Ticket ticket) {
             if (ticket == null) {
                 return;
@@ -405,13 +1325,19 @@ public class QueueService {
 
         private Ticket removeActive(String ticketId) {
             if (ticketId == null || ticketId.isBlank()) {
-                return activeTickets.pollFirst();
+                Ticket first = activeTickets.pollFirst();
+                if (first != null) {
+                    activeCount.decrementAndGet();
+                }
+                return first;
             }
+            long key = TicketId.parse(ticketId);
             Iterator<Ticket> iterator = activeTickets.iterator();
             while (iterator.hasNext()) {
                 Ticket ticket = iterator.next();
-                if (ticketId.equals(ticket.getId())) {
+                if (ticket.hasId(key, ticketId)) {
                     iterator.remove();
+                    activeCount.decrementAndGet();
                     return ticket;
                 }
             }
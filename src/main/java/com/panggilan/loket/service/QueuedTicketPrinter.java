@@ -0,0 +1,128 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.PrintJob;
+import com.panggilan.loket.model.PrinterStatus;
+import com.panggilan.loket.model.Ticket;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dasar printer tiket dengan satu {@link PrintQueue} dan satu thread pekerja per printer bernama
+ * ({@code printer.ticket.printers}). Printer pertama menjadi printer bawaan; bila tidak ada yang diatur,
+ * dipakai satu printer bernama {@code default}.
+ */
+abstract class QueuedTicketPrinter implements TicketPrinter {
+
+    static final String DEFAULT_PRINTER = "default";
+
+    protected final TicketPrintProperties properties;
+    private final Map<String, PrintQueue> queues;
+    private final String defaultPrinterId;
+
+    QueuedTicketPrinter(TicketPrintProperties properties) {
+        this.properties = properties;
+        Map<String, PrintQueue> byId = new LinkedHashMap<>();
+        for (TicketPrintProperties.PrinterDefinition printer : definitions(properties)) {
+            String id = normalize(printer.getId());
+            if (byId.containsKey(id)) {
+                throw new IllegalStateException("Id printer " + id + " terdaftar lebih dari sekali");
+            }
+            byId.put(id, new PrintQueue("ticket-print-" + id, properties.getQueue(), tickets -> print(printer, tickets)));
+        }
+        this.queues = Collections.unmodifiableMap(byId);
+        this.defaultPrinterId = byId.keySet().iterator().next();
+    }
+
+    /**
+     * Mengirim tiket ke printer fisik. Selalu dipanggil dari thread pekerja printer tersebut, sehingga
+     * sesi per printer tidak perlu disinkronkan.
+     */
+    abstract void print(TicketPrintProperties.PrinterDefinition printer, List<Ticket> tickets) throws Exception;
+
+    abstract String backend();
+
+    @Override
+    public void printTicket(Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        printTickets(List.of(ticket), null);
+    }
+
+    /**
+     * Seluruh tiket dicetak sebagai satu pekerjaan cetak di printer bawaan.
+     */
+    @Override
+    public void printTickets(List<Ticket> tickets) {
+        printTickets(tickets, null);
+    }
+
+    @Override
+    public void printTickets(List<Ticket> tickets, String printerId) {
+        if (!properties.isEnabled() || tickets == null || tickets.isEmpty()) {
+            return;
+        }
+        queueFor(printerId).submit(tickets);
+    }
+
+    @Override
+    public boolean hasPrinter(String printerId) {
+        return printerId == null || printerId.isBlank() || queues.containsKey(normalize(printerId));
+    }
+
+    @Override
+    public Optional<PrintJob> reprint(Ticket ticket, String printerId) {
+        if (!properties.isEnabled() || ticket == null) {
+            return Optional.empty();
+        }
+        return Optional.of(queueFor(printerId).submit(List.of(ticket)));
+    }
+
+    @Override
+    public List<PrinterStatus> status() {
+        List<PrinterStatus> statuses = new ArrayList<>(queues.size());
+        queues.forEach((id, queue) -> statuses.add(queue.status(id, backend(), properties.isEnabled())));
+        return statuses;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queues.values().forEach(PrintQueue::shutdown);
+    }
+
+    private PrintQueue queueFor(String printerId) {
+        if (printerId == null || printerId.isBlank()) {
+            return queues.get(defaultPrinterId);
+        }
+        PrintQueue queue = queues.get(normalize(printerId));
+        if (queue == null) {
+            throw new IllegalArgumentException("Printer " + printerId + " tidak dikenal");
+        }
+        return queue;
+    }
+
+    private static List<TicketPrintProperties.PrinterDefinition> definitions(TicketPrintProperties properties) {
+        List<TicketPrintProperties.PrinterDefinition> printers = properties.getPrinters();
+        if (printers != null && !printers.isEmpty()) {
+            return printers;
+        }
+        TicketPrintProperties.PrinterDefinition fallback = new TicketPrintProperties.PrinterDefinition();
+        fallback.setId(DEFAULT_PRINTER);
+        return List.of(fallback);
+    }
+
+    private static String normalize(String printerId) {
+        if (printerId == null || printerId.isBlank()) {
+            throw new IllegalStateException("Id printer wajib diisi");
+        }
+        return printerId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.panggilan.loket.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Ring buffer berkapasitas tetap untuk item bernomor urut naik. Dipakai untuk menyimpan riwayat
+ * event terbaru agar klien dapat melanjutkan dari kursor terakhirnya.
+ */
+final class SequencedRingBuffer<T> {
+
+    private final Object[] items;
+    private final long[] sequences;
+    private int start;
+    private int size;
+
+    SequencedRingBuffer(int capacity) {
+        int normalized = Math.max(capacity, 1);
+        this.items = new Object[normalized];
+        this.sequences = new long[normalized];
+    }
+
+    synchronized void add(long sequence, T item) {
+        int index = (start + size) % items.length;
+        if (size == items.length) {
+            start = (start + 1) % items.length;
+        } else {
+            size++;
+        }
+        items[index] = item;
+        sequences[index] = sequence;
+    }
+
+    /**
+     * Mengembalikan item dengan nomor urut lebih besar dari {@code afterSequence}, maksimal {@code limit}.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized List<T> after(long afterSequence, int limit, Predicate<T> filter) {
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < size && result.size() < limit; i++) {
+            int index = (start + i) % items.length;
+            if (sequences[index] <= afterSequence) {
+                continue;
+            }
+            T item = (T) items[index];
+            if (filter == null || filter.test(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Apakah seluruh item setelah {@code afterSequence} masih tersimpan, sehingga klien dengan kursor
+     * tersebut dapat melanjutkan tanpa kehilangan item.
+     */
+    synchronized boolean covers(long afterSequence) {
+        if (afterSequence > latestSequence()) {
+            return false;
+        }
+        if (size == 0) {
+            return true;
+        }
+        return afterSequence >= sequences[start] - 1;
+    }
+
+    synchronized long latestSequence() {
+        return size == 0 ? 0 : sequences[(start + size - 1) % items.length];
+    }
+
+    synchronized void clear() {
+        for (int i = 0; i < items.length; i++) {
+            items[i] = null;
+        }
+        start = 0;
+        size = 0;
+    }
+}
@@ -4,11 +4,19 @@ import com.panggilan.loket.model.PatientType;
 import com.panggilan.loket.model.Ticket;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface TicketAuditService {
 
     void recordIssued(Ticket ticket);
 
+    /**
+     * Mencatat beberapa tiket yang diterbitkan bersamaan; implementasi boleh menulisnya dalam satu batch.
+     */
+    default void recordIssued(List<Ticket> tickets) {
+        tickets.forEach(this::recordIssued);
+    }
+
     void recordCalled(Ticket ticket);
 
     void recordCompleted(Ticket ticket, String counterId);
@@ -0,0 +1,102 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketId;
+import com.panggilan.loket.model.TicketStage;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indeks lokasi tiket hari ini berdasarkan id maupun nomor. Diperbarui {@link QueueService} di bawah kunci
+ * loket yang terlibat; pembacaan boleh tanpa kunci, tetapi posisi antrean harus dibaca ulang di bawah
+ * kunci loket yang tercatat.
+ */
+final class TicketIndex {
+
+    private final Map<Long, Entry> byKey = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byNumber = new ConcurrentHashMap<>();
+
+    void waiting(Ticket ticket, String counterId, WaitingQueue.Node node) {
+        entryFor(ticket).update(ticket, TicketStage.WAITING, counterId, node);
+    }
+
+    void active(Ticket ticket, String counterId) {
+        entryFor(ticket).update(ticket, TicketStage.ACTIVE, counterId, null);
+    }
+
+    void finished(Ticket ticket, TicketStage stage, String counterId) {
+        if (ticket != null) {
+            entryFor(ticket).update(ticket, stage, counterId, null);
+        }
+    }
+
+    /**
+     * Mencari tiket berdasarkan nomor (mis. {@code B-007}) atau id tiket.
+     */
+    Entry find(String idOrNumber) {
+        if (idOrNumber == null || idOrNumber.isBlank()) {
+            return null;
+        }
+        String value = idOrNumber.trim();
+        Entry entry = byNumber.get(value.toUpperCase(Locale.ROOT));
+        if (entry != null) {
+            return entry;
+        }
+        long key = TicketId.parse(value);
+        if (key != TicketId.INVALID) {
+            return byKey.get(key);
+        }
+        // Tiket lama beridentitas UUID tidak masuk indeks id; cukup dicocokkan lewat nomornya.
+        for (Entry candidate : byNumber.values()) {
+            if (candidate.ticket.hasId(TicketId.INVALID, value)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    void clear() {
+        byKey.clear();
+        byNumber.clear();
+    }
+
+    private Entry entryFor(Ticket ticket) {
+        Entry entry = byNumber.computeIfAbsent(ticket.getNumber().toUpperCase(Locale.ROOT), number -> new Entry());
+        if (ticket.getKey() != TicketId.INVALID) {
+            byKey.putIfAbsent(ticket.getKey(), entry);
+        }
+        return entry;
+    }
+
+    static final class Entry {
+        private volatile Ticket ticket;
+        private volatile TicketStage stage;
+        private volatile String counterId;
+        private volatile WaitingQueue.Node node;
+
+        private void update(Ticket ticket, TicketStage stage, String counterId, WaitingQueue.Node node) {
+            this.ticket = ticket;
+            this.stage = stage;
+            this.counterId = counterId;
+            this.node = node;
+        }
+
+        Ticket ticket() {
+            return ticket;
+        }
+
+        TicketStage stage() {
+            return stage;
+        }
+
+        String counterId() {
+            return counterId;
+        }
+
+        WaitingQueue.Node node() {
+            return node;
+        }
+    }
+}
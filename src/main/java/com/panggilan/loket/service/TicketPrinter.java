@@ -1,12 +1,54 @@
 package com.panggilan.loket.service;
 
+import com.panggilan.loket.model.PrintJob;
+import com.panggilan.loket.model.PrinterStatus;
 import com.panggilan.loket.model.Ticket;
 
+import java.util.List;
+import java.util.Optional;
+
 @FunctionalInterface
 public interface TicketPrinter {
 
     void printTicket(Ticket ticket);
 
+    /**
+     * Mencetak beberapa tiket sekaligus; implementasi sebaiknya mengirimnya sebagai satu pekerjaan cetak.
+     */
+    default void printTickets(List<Ticket> tickets) {
+        tickets.forEach(this::printTicket);
+    }
+
+    /**
+     * Mencetak tiket ke printer bernama, mis. printer kiosk tempat tiket diambil.
+     *
+     * @param printerId id printer, atau {@code null} untuk printer bawaan
+     */
+    default void printTickets(List<Ticket> tickets, String printerId) {
+        printTickets(tickets);
+    }
+
+    /**
+     * Apakah {@code printerId} dapat dipakai; {@code null} atau kosong selalu berarti printer bawaan.
+     */
+    default boolean hasPrinter(String printerId) {
+        return printerId == null || printerId.isBlank();
+    }
+
+    /**
+     * Mencetak ulang satu tiket, mis. karena kertas macet.
+     *
+     * @return pekerjaan cetak yang dibuat, bila printer memakai antrean cetak
+     */
+    default Optional<PrintJob> reprint(Ticket ticket, String printerId) {
+        printTickets(List.of(ticket), printerId);
+        return Optional.empty();
+    }
+
+    default List<PrinterStatus> status() {
+        return List.of(PrinterStatus.unavailable("default", getClass().getSimpleName()));
+    }
+
     static TicketPrinter noop() {
         return ticket -> {
         };
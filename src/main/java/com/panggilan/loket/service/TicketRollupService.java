@@ -0,0 +1,188 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.dto.ReportRowResponse;
+import com.panggilan.loket.entity.TicketEventEntity;
+import com.panggilan.loket.entity.TicketRollupEntity;
+import com.panggilan.loket.model.RollupGranularity;
+import com.panggilan.loket.model.TicketEventType;
+import com.panggilan.loket.repository.TicketRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Memelihara agregat per jam dan per hari dari riwayat tiket. Setiap batch riwayat diringkas di memori lalu
+ * ditambahkan ke {@code ticket_rollups} dalam transaksi yang sama dengan penyimpanan riwayatnya, sehingga
+ * laporan hanya membaca tabel rollup yang kecil.
+ */
+@Service
+public class TicketRollupService {
+
+    private static final RollupGranularity[] GRANULARITIES = RollupGranularity.values();
+
+    private final TicketRollupRepository repository;
+
+    public TicketRollupService(TicketRollupRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Menambahkan satu batch riwayat ke rollup. Harus dipanggil di dalam transaksi penulisan riwayat.
+     *
+     * @param arrivals waktu tiba tiket di loketnya, untuk menghitung lama tunggu sampai dipanggil
+     */
+    void apply(List<TicketEventEntity> batch, ArrivalTracker arrivals) {
+        Map<String, TicketRollupEntity> deltas = new LinkedHashMap<>();
+        for (TicketEventEntity event : batch) {
+            long waitMillis = event.getEventType() == TicketEventType.CALLED ? arrivals.waitMillis(event) : -1;
+            for (RollupGranularity granularity : GRANULARITIES) {
+                accumulate(deltas, granularity, event, waitMillis);
+            }
+            arrivals.track(event);
+        }
+        for (TicketRollupEntity delta : deltas.values()) {
+            if (repository.increment(delta) == 0) {
+                repository.save(delta);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReportRowResponse> report(RollupGranularity granularity, LocalDate from, LocalDate to) {
+        return repository.findBuckets(granularity, from.atStartOfDay(), to.plusDays(1).atStartOfDay()).stream()
+                .map(ReportRowResponse::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Menghapus rollup pada rentang tanggal sebelum diisi ulang. Harus dipanggil di dalam transaksi.
+     */
+    void clear(LocalDate from, LocalDate to) {
+        repository.deleteBuckets(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    private static void accumulate(Map<String, TicketRollupEntity> deltas, RollupGranularity granularity,
+                                   TicketEventEntity event, long waitMillis) {
+        LocalDateTime bucket = granularity.bucketOf(event.getEventTime());
+        String counterId = event.getEventType() == TicketEventType.ISSUED
+                ? ""
+                : event.getCounterId();
+        TicketRollupEntity delta = deltas.computeIfAbsent(
+                TicketRollupEntity.keyOf(granularity, bucket, counterId, event.getPatientType()),
+                key -> TicketRollupEntity.of(granularity, bucket, counterId, event.getPatientType()));
+        switch (event.getEventType()) {
+            case ISSUED:
+                delta.addIssued();
+                break;
+            case CALLED:
+                delta.addCalled(waitMillis);
+                break;
+            case COMPLETED:
+                delta.addCompleted();
+                break;
+            case STOPPED:
+                delta.addStopped();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Mengingat kapan tiket tiba di loket (diterbitkan, atau selesai di loket sebelumnya) agar panggilan
+     * berikutnya dapat diukur lama tunggunya. Tiket yang sudah dipanggil dilupakan sehingga panggil ulang
+     * tidak dihitung sebagai tunggu baru. Tidak thread-safe; dipakai di bawah kunci penulis riwayat.
+     * <p>
+     * Perubahan sejak {@link #begin()} dicatat agar dapat dibatalkan dengan {@link #rollback()} bila transaksi
+     * batch gagal; tanpa itu percobaan ulang batch tidak lagi menemukan waktu tiba tiket yang dipanggil.
+     */
+    static final class ArrivalTracker {
+
+        private static final Duration RETENTION = Duration.ofDays(1);
+
+        private final Map<String, LocalDateTime> arrivals = new HashMap<>();
+        // Nilai sebelum setiap perubahan sejak begin(), null berarti belum ada.
+        private final List<Map.Entry<String, LocalDateTime>> undo = new ArrayList<>();
+        private LocalDate prunedOn;
+        private LocalDate prunedOnAtBegin;
+
+        void begin() {
+            undo.clear();
+            prunedOnAtBegin = prunedOn;
+        }
+
+        void rollback() {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                Map.Entry<String, LocalDateTime> previous = undo.get(i);
+                if (previous.getValue() == null) {
+                    arrivals.remove(previous.getKey());
+                } else {
+                    arrivals.put(previous.getKey(), previous.getValue());
+                }
+            }
+            undo.clear();
+            prunedOn = prunedOnAtBegin;
+        }
+
+        long waitMillis(TicketEventEntity called) {
+            LocalDateTime arrivedAt = remove(called.getTicketId());
+            if (arrivedAt == null || called.getEventTime().isBefore(arrivedAt)) {
+                return -1;
+            }
+            return Duration.between(arrivedAt, called.getEventTime()).toMillis();
+        }
+
+        void track(TicketEventEntity event) {
+            switch (event.getEventType()) {
+                case ISSUED:
+                case COMPLETED:
+                    undo.add(new AbstractMap.SimpleEntry<>(event.getTicketId(),
+                            arrivals.put(event.getTicketId(), event.getEventTime())));
+                    break;
+                case STOPPED:
+                    remove(event.getTicketId());
+                    break;
+                default:
+                    break;
+            }
+            prune(event.getEventTime());
+        }
+
+        // Tiket yang selesai di loket terakhir tidak pernah dipanggil lagi; dibuang setelah lewat sehari.
+        private void prune(LocalDateTime now) {
+            LocalDate today = now.toLocalDate();
+            if (today.equals(prunedOn)) {
+                return;
+            }
+            prunedOn = today;
+            LocalDateTime cutoff = now.minus(RETENTION);
+            Iterator<Map.Entry<String, LocalDateTime>> iterator = arrivals.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, LocalDateTime> entry = iterator.next();
+                if (entry.getValue().isBefore(cutoff)) {
+                    undo.add(new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue()));
+                    iterator.remove();
+                }
+            }
+        }
+
+        private LocalDateTime remove(String ticketId) {
+            LocalDateTime previous = arrivals.remove(ticketId);
+            if (previous != null) {
+                undo.add(new AbstractMap.SimpleEntry<>(ticketId, previous));
+            }
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.Ticket;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Tata letak tiket yang sudah diukur: font, baris teks yang sudah dibungkus beserta posisinya, garis pemisah
+ * dan kartu nomor. Template dibangun sekali untuk satu kombinasi pengaturan cetak dan ukuran halaman, lalu
+ * setiap halaman hanya menggambar ulang bagian statis dan membubuhkan nomor serta tanggal tiket.
+ * <p>
+ * Template tidak diubah lagi setelah dibangun sehingga aman dipakai bersama oleh beberapa thread cetak.
+ */
+final class TicketTemplate {
+
+    static final String REMINDER_MESSAGE = "Simpan nomor ini hingga anda memasuki ruangan poli";
+    static final String CARD_TITLE = "Nomor Antrian";
+    static final String SUPPORTING_MESSAGE = "Harap menunggu panggilan petugas.";
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("dd MMMM yyyy", new Locale("id", "ID"));
+
+    // Kunci template: nilai pengaturan dan halaman yang dipakai saat mengukur.
+    private final String institutionName;
+    private final String address;
+    private final int headerFontSize;
+    private final int ticketFontSize;
+    private final int footerFontSize;
+    private final FontRenderContext fontRenderContext;
+    private final double width;
+    private final double height;
+
+    private final List<TextRun> pageRuns = new ArrayList<>();
+    private final List<TextRun> cardRuns = new ArrayList<>();
+    private int separatorLeft;
+    private int separatorRight;
+    private int separatorY;
+    private int cardLeft;
+    private int cardTop;
+    private int cardWidth;
+    private int cardHeight;
+    private Font dateFont;
+    private int dateBaseline;
+    private Font numberFont;
+    private int numberBaseline;
+
+    private TicketTemplate(TicketPrintProperties properties, FontRenderContext fontRenderContext,
+                           double width, double height) {
+        this.institutionName = properties.getInstitutionName();
+        this.address = properties.getAddress();
+        this.headerFontSize = properties.getHeaderFontSize();
+        this.ticketFontSize = properties.getTicketFontSize();
+        this.footerFontSize = properties.getFooterFontSize();
+        this.fontRenderContext = fontRenderContext;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Mengukur seluruh bagian statis tiket memakai metrik font dari {@code g2}.
+     */
+    static TicketTemplate build(TicketPrintProperties properties, Graphics2D g2, double width, double height) {
+        TicketTemplate template = new TicketTemplate(properties, g2.getFontRenderContext(), width, height);
+        template.layout(g2);
+        return template;
+    }
+
+    /**
+     * Apakah template masih sesuai dengan pengaturan dan halaman saat ini, sehingga tidak perlu diukur ulang.
+     */
+    boolean matches(TicketPrintProperties properties, FontRenderContext context, double pageWidth, double pageHeight) {
+        return Objects.equals(institutionName, properties.getInstitutionName())
+                && Objects.equals(address, properties.getAddress())
+                && headerFontSize == properties.getHeaderFontSize()
+                && ticketFontSize == properties.getTicketFontSize()
+                && footerFontSize == properties.getFooterFontSize()
+                && Objects.equals(fontRenderContext, context)
+                && Double.compare(width, pageWidth) == 0
+                && Double.compare(height, pageHeight) == 0;
+    }
+
+    /**
+     * Menggambar satu halaman tiket; hanya nomor dan tanggal yang diukur per tiket.
+     */
+    void draw(Graphics2D g2, String number, String dateText) {
+        drawRuns(g2, pageRuns);
+        if (dateText != null && !dateText.isBlank()) {
+            drawCentered(g2, dateFont, dateText.trim(), 0, width, dateBaseline);
+        }
+        g2.drawLine(separatorLeft, separatorY, separatorRight, separatorY);
+        g2.drawRoundRect(cardLeft, cardTop, cardWidth, cardHeight, 18, 18);
+        if (number == null || number.isBlank()) {
+            return;
+        }
+        drawCentered(g2, numberFont, number, cardLeft, cardWidth, numberBaseline);
+        drawRuns(g2, cardRuns);
+    }
+
+    private void layout(Graphics2D g2) {
+        Font headerFont = new Font("SansSerif", Font.BOLD, headerFontSize);
+        int footerSize = Math.max(footerFontSize - 2, 8);
+        Font footerFont = new Font("SansSerif", Font.PLAIN, footerSize);
+        Font sectionFont = new Font("SansSerif", Font.PLAIN, Math.max(footerFontSize + 2, 12));
+        dateFont = new Font("SansSerif", Font.PLAIN, Math.max(footerSize - 1, 8));
+
+        String footerText = wrapText(safeValue(address, "Alamat Instansi").trim(), 32).trim();
+        FontMetrics footerMetrics = g2.getFontMetrics(footerFont);
+        int footerHeight = measureMultilineHeight(footerMetrics, footerText);
+        int footerPadding = footerHeight == 0 ? 0 : 30;
+
+        int yTop = 18;
+        yTop = layoutCenteredLines(pageRuns, g2.getFontMetrics(headerFont), headerFont,
+                safeValue(institutionName, "RS C"), 0, width, yTop);
+        yTop += 12;
+        yTop = layoutCenteredLines(pageRuns, g2.getFontMetrics(sectionFont), sectionFont, CARD_TITLE, 0, width, yTop);
+        yTop += 4;
+
+        FontMetrics dateMetrics = g2.getFontMetrics(dateFont);
+        dateBaseline = yTop + dateMetrics.getAscent();
+        yTop += dateMetrics.getHeight() + 8;
+
+        separatorLeft = (int) Math.max(width * 0.12, 20);
+        separatorRight = (int) width - separatorLeft;
+        separatorY = yTop;
+        yTop += 20;
+
+        int availableHeight = (int) Math.round(height - footerHeight - footerPadding - yTop);
+        layoutTicketBody(g2, yTop, Math.max(availableHeight, 160));
+        layoutFooter(footerMetrics, footerFont, footerText);
+    }
+
+    private void layoutTicketBody(Graphics2D g2, int top, int bodyHeight) {
+        int adjustedBodyHeight = Math.max(bodyHeight, 140);
+        int pageWidth = (int) Math.round(width);
+        int left = 12;
+        int boxWidth = pageWidth - (left * 2);
+        if (boxWidth < 160) {
+            left = Math.max((pageWidth - 160) / 2, 8);
+            boxWidth = pageWidth - (left * 2);
+        }
+        if (boxWidth < 120) {
+            left = Math.max((pageWidth - 120) / 2, 4);
+            boxWidth = pageWidth - (left * 2);
+        }
+        boxWidth = Math.max(boxWidth, Math.min(pageWidth - 20, pageWidth));
+        cardLeft = left;
+        cardTop = top;
+        cardWidth = boxWidth;
+        cardHeight = adjustedBodyHeight;
+
+        int contentTop = top + 32;
+        int contentHeight = adjustedBodyHeight - 64;
+        if (contentHeight < 90) {
+            contentHeight = Math.max(adjustedBodyHeight - 48, 80);
+        }
+        layoutNumberBlock(g2, contentTop, contentHeight);
+    }
+
+    private void layoutNumberBlock(Graphics2D g2, int top, int blockHeight) {
+        numberFont = new Font("SansSerif", Font.BOLD, ticketFontSize);
+        Font reminderFont = new Font("SansSerif", Font.PLAIN, Math.max(footerFontSize, 11));
+        Font supportingFont = reminderFont.deriveFont(Font.ITALIC, Math.max(reminderFont.getSize() - 1f, 10f));
+
+        String wrappedReminder = wrapText(REMINDER_MESSAGE, 28);
+        FontMetrics numberMetrics = g2.getFontMetrics(numberFont);
+        FontMetrics reminderMetrics = g2.getFontMetrics(reminderFont);
+        FontMetrics supportingMetrics = g2.getFontMetrics(supportingFont);
+
+        int reminderHeight = measureMultilineHeight(reminderMetrics, wrappedReminder);
+        int supportingHeight = SUPPORTING_MESSAGE.isBlank() ? 0 : supportingMetrics.getHeight();
+        int spacingAfterNumber = 14;
+        int spacingBeforeSupporting = supportingHeight == 0 ? 0 : 10;
+        int requiredHeight = numberMetrics.getHeight() + spacingAfterNumber + reminderHeight
+                + spacingBeforeSupporting + supportingHeight;
+        int verticalOffset = Math.max((blockHeight - requiredHeight) / 2, 0);
+
+        numberBaseline = top + verticalOffset + numberMetrics.getAscent();
+        int currentTop = numberBaseline + spacingAfterNumber;
+        currentTop = layoutCenteredLines(cardRuns, reminderMetrics, reminderFont, wrappedReminder,
+                cardLeft, cardWidth, currentTop);
+        if (!SUPPORTING_MESSAGE.isBlank()) {
+            currentTop += spacingBeforeSupporting;
+            layoutCenteredLines(cardRuns, supportingMetrics, supportingFont, SUPPORTING_MESSAGE,
+                    cardLeft, cardWidth, currentTop);
+        }
+    }
+
+    private void layoutFooter(FontMetrics metrics, Font font, String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        int totalHeight = text.split("\\R").length * metrics.getHeight();
+        int startY = (int) Math.max(height - totalHeight - 18, 0);
+        layoutCenteredLines(pageRuns, metrics, font, text, 0, width, startY);
+    }
+
+    private static int layoutCenteredLines(List<TextRun> runs, FontMetrics metrics, Font font, String text,
+                                           int boxLeft, double boxWidth, int startY) {
+        if (text == null || text.isBlank()) {
+            return startY;
+        }
+        int y = startY;
+        for (String raw : text.split("\\R")) {
+            String line = raw.trim();
+            if (!line.isEmpty()) {
+                int x = boxLeft + (int) Math.max((boxWidth - metrics.stringWidth(line)) / 2, 0);
+                runs.add(new TextRun(font, line, x, y + metrics.getAscent()));
+            }
+            y += metrics.getHeight();
+        }
+        return y;
+    }
+
+    private static void drawRuns(Graphics2D g2, List<TextRun> runs) {
+        for (TextRun run : runs) {
+            g2.setFont(run.font);
+            g2.drawString(run.text, run.x, run.baseline);
+        }
+    }
+
+    private static void drawCentered(Graphics2D g2, Font font, String text, int boxLeft, double boxWidth, int baseline) {
+        g2.setFont(font);
+        int lineWidth = g2.getFontMetrics(font).stringWidth(text);
+        g2.drawString(text, boxLeft + (int) Math.max((boxWidth - lineWidth) / 2, 0), baseline);
+    }
+
+    private static int measureMultilineHeight(FontMetrics metrics, String text) {
+        if (metrics == null || text == null || text.isBlank()) {
+            return 0;
+        }
+        int lines = 0;
+        for (String part : text.split("\\r?\\n")) {
+            if (!part.trim().isEmpty()) {
+                lines++;
+            }
+        }
+        return lines * metrics.getHeight();
+    }
+
+    private static String safeValue(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value;
+    }
+
+    /**
+     * Tanggal tiket dalam format cetak, mis. "17 Oktober 2026".
+     */
+    static String dateLine(Ticket ticket) {
+        LocalDate date = ticket == null || ticket.getDisplayDate() == null
+                ? LocalDate.now()
+                : ticket.getDisplayDate();
+        try {
+            return DATE_FORMATTER.format(date);
+        } catch (Exception ex) {
+            return date.toString();
+        }
+    }
+
+    static String wrapText(String text, int maxCharactersPerLine) {
+        if (text == null || text.isBlank() || maxCharactersPerLine <= 0) {
+            return text == null ? "" : text;
+        }
+        StringBuilder builder = new StringBuilder();
+        int lineLength = 0;
+        for (String word : text.split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            int prospective = lineLength == 0 ? word.length() : lineLength + 1 + word.length();
+            if (prospective > maxCharactersPerLine) {
+                if (builder.length() > 0) {
+                    builder.append(System.lineSeparator());
+                }
+                builder.append(word);
+                lineLength = word.length();
+            } else {
+                if (lineLength > 0) {
+                    builder.append(' ');
+                }
+                builder.append(word);
+                lineLength = prospective;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static final class TextRun {
+        private final Font font;
+        private final String text;
+        private final int x;
+        private final int baseline;
+
+        private TextRun(Font font, String text, int x, int baseline) {
+            this.font = font;
+            this.text = text;
+            this.x = x;
+            this.baseline = baseline;
+        }
+    }
+}
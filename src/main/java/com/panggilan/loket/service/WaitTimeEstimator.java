@@ -0,0 +1,133 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.model.PatientType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Penaksir lama layanan per loket dan jenis pasien yang diperbarui setiap kali sebuah tiket selesai atau
+ * dihentikan. Setiap sampel memperbarui rata-rata bergerak eksponensial (EWMA) dan jendela sampel terakhir
+ * untuk persentil dalam O(1); taksiran tidak pernah membaca riwayat {@code ticket_events}.
+ * <p>
+ * Bila jenis pasien tertentu belum punya sampel di sebuah loket, dipakai statistik seluruh jenis di loket
+ * tersebut, lalu lama layanan bawaan dari konfigurasi.
+ */
+final class WaitTimeEstimator {
+
+    private static final PatientType[] TYPES = PatientType.values();
+    // Indeks terakhir menampung statistik seluruh jenis pasien di loket.
+    private static final int ALL_TYPES = TYPES.length;
+
+    private final double defaultSeconds;
+    private final double smoothing;
+    private final int window;
+    private final Map<String, ServiceStats[]> statsByCounter = new ConcurrentHashMap<>();
+
+    WaitTimeEstimator(CounterProperties.Estimate settings) {
+        CounterProperties.Estimate config = settings == null ? new CounterProperties.Estimate() : settings;
+        this.defaultSeconds = Math.max(config.getDefaultServiceTime().toMillis(), 0) / 1000.0;
+        this.smoothing = Math.min(Math.max(config.getSmoothing(), 0.01), 1.0);
+        this.window = Math.max(config.getWindow(), 1);
+    }
+
+    /**
+     * Mencatat satu sampel lama layanan.
+     *
+     * @param durationNanos lama sejak tiket dipanggil sampai selesai atau dihentikan
+     */
+    void recordService(String counterId, PatientType patientType, long durationNanos) {
+        if (durationNanos < 0) {
+            return;
+        }
+        double seconds = durationNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        ServiceStats[] stats = statsByCounter.computeIfAbsent(counterId, key -> newStats());
+        stats[laneOf(patientType)].add(seconds);
+        stats[ALL_TYPES].add(seconds);
+    }
+
+    /**
+     * Taksiran lama layanan satu tiket (detik) berdasarkan EWMA.
+     */
+    double serviceSeconds(String counterId, PatientType patientType) {
+        ServiceStats stats = statsFor(counterId, patientType);
+        return stats == null ? defaultSeconds : stats.average();
+    }
+
+    /**
+     * Persentil lama layanan (detik) dari jendela sampel terakhir, mis. {@code 0.9} untuk taksiran atas.
+     */
+    double serviceSecondsPercentile(String counterId, PatientType patientType, double percentile) {
+        ServiceStats stats = statsFor(counterId, patientType);
+        return stats == null ? defaultSeconds : stats.percentile(percentile);
+    }
+
+    private ServiceStats statsFor(String counterId, PatientType patientType) {
+        ServiceStats[] stats = counterId == null ? null : statsByCounter.get(counterId);
+        if (stats == null) {
+            return null;
+        }
+        ServiceStats byType = stats[laneOf(patientType)];
+        if (byType.hasSamples()) {
+            return byType;
+        }
+        return stats[ALL_TYPES].hasSamples() ? stats[ALL_TYPES] : null;
+    }
+
+    private ServiceStats[] newStats() {
+        ServiceStats[] stats = new ServiceStats[TYPES.length + 1];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new ServiceStats(smoothing, window);
+        }
+        return stats;
+    }
+
+    private static int laneOf(PatientType patientType) {
+        return (patientType == null ? PatientType.LAMA : patientType).ordinal();
+    }
+
+    private static final class ServiceStats {
+        private final double smoothing;
+        private final double[] samples;
+        private int next;
+        private int count;
+        private double average;
+        // Salinan terurut jendela sampel; dibangun ulang hanya bila persentil diminta setelah ada sampel baru.
+        private double[] sorted;
+
+        private ServiceStats(double smoothing, int window) {
+            this.smoothing = smoothing;
+            this.samples = new double[window];
+        }
+
+        private synchronized void add(double seconds) {
+            average = count == 0 ? seconds : average + smoothing * (seconds - average);
+            samples[next] = seconds;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+            sorted = null;
+        }
+
+        private synchronized boolean hasSamples() {
+            return count > 0;
+        }
+
+        private synchronized double average() {
+            return average;
+        }
+
+        private synchronized double percentile(double percentile) {
+            if (sorted == null) {
+                sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+            }
+            int rank = (int) Math.ceil(Math.min(Math.max(percentile, 0.0), 1.0) * sorted.length);
+            return sorted[Math.max(rank - 1, 0)];
+        }
+    }
+}
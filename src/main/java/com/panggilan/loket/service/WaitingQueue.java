@@ -0,0 +1,289 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketId;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Antrean tunggu satu loket yang menyimpan urutan kedatangan global sekaligus jalur FIFO per
+ * {@link PatientType}. Setiap node tertaut di dua daftar berantai ganda (global dan jalurnya),
+ * sehingga "ambil Pasien Baru berikutnya" maupun "ambil tiket terdepan" sama-sama O(1).
+ * <p>
+ * Setiap kedatangan juga mendapat slot berurutan yang dicatat di {@link FenwickTree} global dan per jalur,
+ * sehingga posisi sebuah tiket di antrean dapat dihitung dalam O(log n) tanpa memindai daftar.
+ * <p>
+ * Kelas ini tidak thread-safe; {@link QueueService} selalu mengubahnya di bawah kunci loket pemiliknya.
+ * Hanya jumlah tiket ({@link #size()}, {@link #size(PatientType)}, {@link #sizesByType()}) yang boleh dibaca
+ * tanpa kunci: nilainya disimpan di penghitung atomik sehingga selalu terlihat terbaru, walau jumlah antar
+ * jenis pasien bisa berasal dari saat yang sedikit berbeda.
+ */
+final class WaitingQueue implements Iterable<Ticket> {
+
+    private static final PatientType[] TYPES = PatientType.values();
+
+    private final Node[] laneHeads = new Node[TYPES.length];
+    private final Node[] laneTails = new Node[TYPES.length];
+    private final AtomicIntegerArray laneSizes = new AtomicIntegerArray(TYPES.length);
+    private final FenwickTree order = new FenwickTree();
+    private final FenwickTree[] laneOrder = new FenwickTree[TYPES.length];
+    private int nextSlot;
+    private Node head;
+    private Node tail;
+    private final AtomicInteger size = new AtomicInteger();
+
+    WaitingQueue() {
+        for (int i = 0; i < TYPES.length; i++) {
+            laneOrder[i] = new FenwickTree();
+        }
+    }
+
+    /**
+     * @param enqueuedAt waktu monotonic (nanodetik) saat tiket tiba di antrean, untuk mengukur lama tunggu
+     * @return node yang dapat dipakai untuk menanyakan posisi tiket selama masih di antrean
+     */
+    Node addLast(Ticket ticket, long enqueuedAt) {
+        if (size.get() == 0 && nextSlot > 0) {
+            // Antrean kosong: slot dimulai ulang agar Fenwick tree tidak tumbuh sepanjang hari.
+            resetSlots();
+        }
+        Node node = new Node(ticket, enqueuedAt, nextSlot++);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+            node.prev = tail;
+        }
+        tail = node;
+
+        int lane = node.lane;
+        if (laneTails[lane] == null) {
+            laneHeads[lane] = node;
+        } else {
+            laneTails[lane].laneNext = node;
+            node.lanePrev = laneTails[lane];
+        }
+        laneTails[lane] = node;
+        laneSizes.incrementAndGet(lane);
+        size.incrementAndGet();
+        order.add(node.slot, 1);
+        laneOrder[lane].add(node.slot, 1);
+        node.linked = true;
+        return node;
+    }
+
+    /**
+     * Posisi (mulai 1) tiket di seluruh antrean loket ini, atau 0 bila node sudah keluar dari antrean.
+     */
+    int positionOf(Node node) {
+        return node != null && node.linked ? order.prefixSum(node.slot) : 0;
+    }
+
+    /**
+     * Posisi (mulai 1) tiket di antara tiket dengan jenis pasien yang sama, atau 0 bila sudah keluar.
+     */
+    int lanePositionOf(Node node) {
+        return node != null && node.linked ? laneOrder[node.lane].prefixSum(node.slot) : 0;
+    }
+
+    /**
+     * Mengambil tiket terdepan beserta waktu kedatangannya.
+     */
+    Node pollFirstNode() {
+        Node node = head;
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node;
+    }
+
+    /**
+     * Mengambil tiket terdepan dari jalur {@code patientType} tanpa menyentuh jalur lain.
+     */
+    Node pollFirstNode(PatientType patientType) {
+        Node node = laneHeads[laneOf(patientType)];
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node;
+    }
+
+    /**
+     * Menghapus tiket berdasarkan id dengan memindai antrean; hanya dipakai saat replay jurnal.
+     */
+    Ticket remove(String ticketId) {
+        long key = TicketId.parse(ticketId);
+        for (Node node = head; node != null; node = node.next) {
+            if (node.ticket.hasId(key, ticketId)) {
+                unlink(node);
+                return node.ticket;
+            }
+        }
+        return null;
+    }
+
+    Ticket peekFirst() {
+        return head == null ? null : head.ticket;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    int size(PatientType patientType) {
+        return laneSizes.get(laneOf(patientType));
+    }
+
+    Map<PatientType, Integer> sizesByType() {
+        Map<PatientType, Integer> sizes = new EnumMap<>(PatientType.class);
+        for (PatientType type : TYPES) {
+            sizes.put(type, laneSizes.get(type.ordinal()));
+        }
+        return sizes;
+    }
+
+    boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    void clear() {
+        for (Node node = head; node != null; node = node.next) {
+            node.linked = false;
+        }
+        head = null;
+        tail = null;
+        size.set(0);
+        for (int i = 0; i < TYPES.length; i++) {
+            laneHeads[i] = null;
+            laneTails[i] = null;
+            laneSizes.set(i, 0);
+        }
+        resetSlots();
+    }
+
+    private void resetSlots() {
+        nextSlot = 0;
+        order.clear();
+        for (FenwickTree lane : laneOrder) {
+            lane.clear();
+        }
+    }
+
+    /**
+     * Salinan tiket ke-{@code offset} sampai sebanyak {@code limit}; hanya node sampai ujung jendela yang dilalui.
+     */
+    List<Ticket> window(int offset, int limit) {
+        int from = Math.max(offset, 0);
+        int count = Math.max(Math.min(limit, size.get() - from), 0);
+        List<Ticket> copy = new ArrayList<>(count);
+        Node node = head;
+        for (int i = 0; i < from && node != null; i++) {
+            node = node.next;
+        }
+        for (; node != null && copy.size() < count; node = node.next) {
+            copy.add(node.ticket);
+        }
+        return copy;
+    }
+
+    List<Ticket> toList() {
+        List<Ticket> copy = new ArrayList<>(size.get());
+        for (Node node = head; node != null; node = node.next) {
+            copy.add(node.ticket);
+        }
+        return copy;
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        return new Iterator<>() {
+            private Node cursor = head;
+
+            @Override
+            public boolean hasNext() {
+                return cursor != null;
+            }
+
+            @Override
+            public Ticket next() {
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                Ticket ticket = cursor.ticket;
+                cursor = cursor.next;
+                return ticket;
+            }
+        };
+    }
+
+    private void unlink(Node node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+
+        int lane = node.lane;
+        if (node.lanePrev == null) {
+            laneHeads[lane] = node.laneNext;
+        } else {
+            node.lanePrev.laneNext = node.laneNext;
+        }
+        if (node.laneNext == null) {
+            laneTails[lane] = node.lanePrev;
+        } else {
+            node.laneNext.lanePrev = node.lanePrev;
+        }
+        laneSizes.decrementAndGet(lane);
+        size.decrementAndGet();
+        order.add(node.slot, -1);
+        laneOrder[lane].add(node.slot, -1);
+        node.linked = false;
+    }
+
+    private static int laneOf(PatientType patientType) {
+        return (patientType == null ? PatientType.LAMA : patientType).ordinal();
+    }
+
+    static final class Node {
+        private final Ticket ticket;
+        private final long enqueuedAt;
+        private final int slot;
+        private final int lane;
+        private boolean linked;
+        private Node prev;
+        private Node next;
+        private Node lanePrev;
+        private Node laneNext;
+
+        private Node(Ticket ticket, long enqueuedAt, int slot) {
+            this.ticket = ticket;
+            this.enqueuedAt = enqueuedAt;
+            this.slot = slot;
+            this.lane = laneOf(ticket.getPatientType());
+        }
+
+        Ticket ticket() {
+            return ticket;
+        }
+
+        long enqueuedAt() {
+            return enqueuedAt;
+        }
+    }
+}
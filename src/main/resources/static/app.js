@@ -1,3 +1,5 @@
+import { coalesce, subscribeQueueStream } from "./stream.js";
+
 const counterListElement = document.getElementById("counter-list");
 const queueItemsElement = document.getElementById("queue-items");
 const nextNumberElement = document.getElementById("next-number");
@@ -6,13 +8,19 @@ const feedbackElement = document.getElementById("feedback");
 const counterForm = document.getElementById("counter-form");
 const resetButton = document.getElementById("reset-queue");
 
-let refreshTimer;
+// Nomor menunggu yang ditampilkan per daftar; sisanya hanya ditampilkan jumlahnya.
+const DASHBOARD_WAITING_SIZE = 20;
+let unsubscribeStream;
+const scheduleRefresh = coalesce(loadStatus);
+// Idempotency-Key per operasi loket yang sedang berjalan: klik ganda memakai kunci yang sama sehingga server
+// menjawab dengan hasil klik pertama tanpa memanggil pasien lagi.
+const pendingActionKeys = new Map();
 
 async function loadStatus() {
     try {
         const [countersResponse, queueResponse] = await Promise.all([
-            fetch("/api/counters"),
-            fetch("/api/queue/status")
+            fetch(`/api/counters?waitingLimit=${DASHBOARD_WAITING_SIZE}`),
+            fetch(`/api/queue/status?limit=${DASHBOARD_WAITING_SIZE}&fields=number`)
         ]);
 
         if (!countersResponse.ok) {
@@ -26,7 +34,7 @@ async function loadStatus() {
         const queueStatus = await queueResponse.json();
 
         renderCounters(counters);
-        renderQueue(queueStatus.waitingQueue);
+        renderQueue(queueStatus.waitingQueue, queueStatus.waitingCount);
         updateNextNumber(queueStatus.nextTicketNumber);
     } catch (error) {
         console.error(error);
@@ -69,6 +77,7 @@ function renderCounters(counters) {
                 <strong>Antrean Menunggu</strong>
                 <ul>
                     ${waitingTickets.length === 0 ? "<li>-</li>" : waitingTickets.map(ticket => `<li>${ticket.number}</li>`).join("")}
+                    ${moreMarkup(counter.waitingCount, waitingTickets.length)}
                 </ul>
             </div>
         `;
@@ -79,11 +88,12 @@ function renderCounters(counters) {
     });
 }
 
-function renderQueue(queue) {
+function renderQueue(queue, total) {
     queueItemsElement.innerHTML = "";
     const items = Array.isArray(queue) ? queue : [];
+    const waitingCount = Number.isInteger(total) ? total : items.length;
     if (queueLengthElement) {
-        queueLengthElement.textContent = items.length;
+        queueLengthElement.textContent = waitingCount;
     }
     if (items.length === 0) {
         queueItemsElement.innerHTML = "<li>-</li>";
@@ -94,6 +104,13 @@ function renderQueue(queue) {
         item.textContent = ticket.number;
         queueItemsElement.appendChild(item);
     });
+    queueItemsElement.insertAdjacentHTML("beforeend", moreMarkup(waitingCount, items.length));
+}
+
+function moreMarkup(total, shown) {
+    return Number.isInteger(total) && total > shown
+        ? `<li class="secondary-text">+${total - shown} lainnya</li>`
+        : "";
 }
 
 function updateNextNumber(nextNumber) {
@@ -130,8 +147,15 @@ async function handleCounterAction(event) {
         return;
     }
 
+    let idempotencyKey = pendingActionKeys.get(endpoint);
+    const firstClick = !idempotencyKey;
+    if (firstClick) {
+        idempotencyKey = newIdempotencyKey();
+        pendingActionKeys.set(endpoint, idempotencyKey);
+    }
+
     try {
-        const response = await fetch(endpoint, { method: "POST" });
+        const response = await postIdempotent(endpoint, idempotencyKey);
         if (response.status === 204) {
             const message = action === "complete"
                 ? `Loket ${counterId} tidak memiliki nomor untuk diselesaikan.`
@@ -161,10 +185,30 @@ async function handleCounterAction(event) {
         console.error(error);
         showFeedback(error.message, true);
     } finally {
+        if (firstClick) {
+            pendingActionKeys.delete(endpoint);
+        }
         await loadStatus();
     }
 }
 
+async function postIdempotent(endpoint, idempotencyKey) {
+    const options = { method: "POST", headers: { "Idempotency-Key": idempotencyKey } };
+    try {
+        return await fetch(endpoint, options);
+    } catch (networkError) {
+        // Kunci yang sama membuat pengulangan aman bila permintaan pertama ternyata sudah diproses.
+        return fetch(endpoint, options);
+    }
+}
+
+function newIdempotencyKey() {
+    if (window.crypto && typeof window.crypto.randomUUID === "function") {
+        return window.crypto.randomUUID();
+    }
+    return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+}
+
 function getSelectedTicket(counterId) {
     const selector = document.querySelector(`select[data-counter="${counterId}"]`);
     if (!selector || selector.options.length === 0) {
@@ -247,12 +291,15 @@ function showFeedback(message, isError = false) {
 }
 
 window.addEventListener("load", () => {
-    loadStatus();
-    refreshTimer = setInterval(loadStatus, 5000);
+    unsubscribeStream = subscribeQueueStream({
+        onEvent: scheduleRefresh,
+        onResync: scheduleRefresh,
+        fallbackInterval: 5000
+    });
 });
 
 window.addEventListener("beforeunload", () => {
-    if (refreshTimer) {
-        clearInterval(refreshTimer);
+    if (unsubscribeStream) {
+        unsubscribeStream();
     }
 });
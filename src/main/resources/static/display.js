@@ -1,3 +1,5 @@
+import { coalesce, subscribeQueueStream } from "./stream.js";
+
 const countersElement = document.getElementById("display-counters");
 const queueElement = document.getElementById("display-queue");
 const nextNumberElement = document.getElementById("display-next-number");
@@ -7,16 +9,25 @@ const audioBannerElement = document.getElementById("audio-banner");
 const enableAudioButton = document.getElementById("enable-audio");
 const audioStatusElement = document.getElementById("audio-status");
 
-let refreshTimer;
+// Jumlah nomor menunggu yang ditampilkan; server hanya mengirim sebanyak ini.
+const DISPLAY_QUEUE_SIZE = 10;
+let unsubscribeStream;
+const scheduleRefresh = coalesce(refreshDisplay);
 let lastDisplayedKey = null;
 const speechSupported = "speechSynthesis" in window;
+const announcementPlayer = "Audio" in window ? new Audio() : null;
 let audioEnabled = false;
+// Kursor log pengumuman server; null sampai permintaan pertama.
+let announcementCursor = null;
+let announcementPollInFlight = false;
+const pendingAnnouncements = [];
+let announcementPlaying = false;
 
 async function refreshDisplay() {
     try {
         const [countersResponse, queueResponse] = await Promise.all([
-            fetch("/api/counters"),
-            fetch("/api/queue/status")
+            fetch("/api/counters?waitingLimit=0&fields=id,name,activeTickets,lastCalledTicket,lastCalledAt"),
+            fetch(`/api/queue/status?limit=${DISPLAY_QUEUE_SIZE}&fields=number,estimatedWaitSeconds`)
         ]);
 
         if (!countersResponse.ok) {
@@ -36,6 +47,38 @@ async function refreshDisplay() {
     } catch (error) {
         console.error(error);
     }
+    await pollAnnouncements();
+}
+
+async function pollAnnouncements() {
+    if (announcementPollInFlight) {
+        return;
+    }
+    announcementPollInFlight = true;
+    try {
+        let more = true;
+        while (more) {
+            const params = new URLSearchParams();
+            if (announcementCursor !== null) {
+                params.set("after", announcementCursor);
+            }
+            const response = await fetch(`/api/announcements?${params}`);
+            if (!response.ok) {
+                throw new Error("Gagal memuat pengumuman");
+            }
+            const feed = await response.json();
+            if (announcementCursor !== null && audioEnabled) {
+                feed.announcements.forEach(item => pendingAnnouncements.push(item));
+            }
+            announcementCursor = feed.cursor;
+            more = feed.sequence < feed.latestSequence;
+        }
+        playNextAnnouncement();
+    } catch (error) {
+        console.error(error);
+    } finally {
+        announcementPollInFlight = false;
+    }
 }
 
 function renderCounters(counters) {
@@ -63,9 +106,11 @@ function renderQueue(queue) {
         queueElement.appendChild(item);
         return;
     }
-    queue.slice(0, 10).forEach(ticket => {
+    queue.slice(0, DISPLAY_QUEUE_SIZE).forEach(ticket => {
         const item = document.createElement("li");
-        item.textContent = ticket.number;
+        item.textContent = Number.isFinite(ticket.estimatedWaitSeconds)
+            ? `${ticket.number} (${formatWait(ticket.estimatedWaitSeconds)})`
+            : ticket.number;
         queueElement.appendChild(item);
     });
 }
@@ -90,6 +135,7 @@ function updateLastCall(counters) {
             latest = {
                 key: `${ticket.id}:${counter.id}:${counter.lastCalledAt}`,
                 number: ticket.number,
+                counterId: counter.id,
                 counterName: counter.name,
                 calledAt
             };
@@ -110,21 +156,60 @@ function updateLastCall(counters) {
     lastDisplayedKey = latest.key;
     lastCallNumberElement.textContent = latest.number;
     lastCallCounterElement.textContent = latest.counterName;
-    announceTicket(latest.number, latest.counterName);
+}
+
+function formatWait(seconds) {
+    const minutes = Math.round(seconds / 60);
+    return minutes < 1 ? "< 1 mnt" : `± ${minutes} mnt`;
 }
 
 function formatTicketNumber(sequence) {
     return `Q-${String(sequence).padStart(3, "0")}`;
 }
 
-function announceTicket(ticketNumber, counterName) {
-    if (!speechSupported || !audioEnabled || !ticketNumber || !counterName) {
+// Pengumuman diputar satu per satu sesuai urutan log; pengumuman baru menunggu yang sedang diputar selesai.
+function playNextAnnouncement() {
+    if (announcementPlaying || pendingAnnouncements.length === 0) {
+        return;
+    }
+    const next = pendingAnnouncements.shift();
+    announcementPlaying = true;
+    announceTicket(next.ticketNumber, next.counterId, next.counterName, () => {
+        announcementPlaying = false;
+        playNextAnnouncement();
+    });
+}
+
+function announceTicket(ticketNumber, counterId, counterName, done) {
+    if (!audioEnabled || !ticketNumber || !counterName) {
+        done();
+        return;
+    }
+    if (!announcementPlayer || !counterId) {
+        speakTicket(ticketNumber, counterName, done);
+        return;
+    }
+    // Suara rangkaian server; bila segmen belum direkam (404) atau gagal diputar, pakai suara browser.
+    const params = new URLSearchParams({ number: ticketNumber, counter: counterId });
+    announcementPlayer.onended = done;
+    announcementPlayer.src = `/api/announcements/audio?${params}`;
+    announcementPlayer.play().catch(error => {
+        console.warn("Suara pengumuman server tidak dapat diputar", error);
+        announcementPlayer.onended = null;
+        speakTicket(ticketNumber, counterName, done);
+    });
+}
+
+function speakTicket(ticketNumber, counterName, done) {
+    if (!speechSupported) {
+        done();
         return;
     }
     const sentence = `Nomor antrean ${spellTicket(ticketNumber)} menuju ${counterName}`;
     const utterance = new SpeechSynthesisUtterance(sentence);
     utterance.lang = "id-ID";
-    window.speechSynthesis.cancel();
+    utterance.onend = done;
+    utterance.onerror = done;
     window.speechSynthesis.speak(utterance);
 }
 
@@ -170,18 +255,21 @@ function spellDigit(digit) {
 
 window.addEventListener("load", () => {
     setupAudioControls();
-    refreshDisplay();
-    refreshTimer = setInterval(refreshDisplay, 4000);
+    unsubscribeStream = subscribeQueueStream({
+        onEvent: scheduleRefresh,
+        onResync: scheduleRefresh,
+        fallbackInterval: 4000
+    });
 });
 
 window.addEventListener("beforeunload", () => {
-    if (refreshTimer) {
-        clearInterval(refreshTimer);
+    if (unsubscribeStream) {
+        unsubscribeStream();
     }
 });
 
 function setupAudioControls() {
-    if (!speechSupported) {
+    if (!speechSupported && !announcementPlayer) {
         if (audioBannerElement) {
             audioBannerElement.classList.add("hidden");
         }
@@ -195,11 +283,13 @@ function setupAudioControls() {
 
     enableAudioButton.addEventListener("click", () => {
         try {
-            window.speechSynthesis.resume();
-            const confirmation = new SpeechSynthesisUtterance("Suara pemanggilan aktif.");
-            confirmation.lang = "id-ID";
-            window.speechSynthesis.cancel();
-            window.speechSynthesis.speak(confirmation);
+            if (speechSupported) {
+                window.speechSynthesis.resume();
+                const confirmation = new SpeechSynthesisUtterance("Suara pemanggilan aktif.");
+                confirmation.lang = "id-ID";
+                window.speechSynthesis.cancel();
+                window.speechSynthesis.speak(confirmation);
+            }
             audioEnabled = true;
             enableAudioButton.disabled = true;
             enableAudioButton.textContent = "Suara Aktif";
@@ -0,0 +1,89 @@
+// Berlangganan perubahan antrean melalui Server-Sent Events (/api/stream).
+// Polling hanya dipakai sebagai cadangan ketika browser tidak mendukung EventSource
+// atau koneksi stream sedang terputus.
+export function subscribeQueueStream({ counters = [], onEvent, onResync, fallbackInterval = 4000 }) {
+    let fallbackTimer = null;
+    let source = null;
+
+    const startFallback = () => {
+        if (fallbackTimer) {
+            return;
+        }
+        onResync();
+        fallbackTimer = setInterval(onResync, fallbackInterval);
+    };
+
+    const stopFallback = () => {
+        if (fallbackTimer) {
+            clearInterval(fallbackTimer);
+            fallbackTimer = null;
+        }
+    };
+
+    if (!("EventSource" in window)) {
+        startFallback();
+        return () => stopFallback();
+    }
+
+    const params = new URLSearchParams();
+    counters.filter(Boolean).forEach(counter => params.append("counter", counter));
+    const query = params.toString();
+    source = new EventSource(query ? `/api/stream?${query}` : "/api/stream");
+
+    source.addEventListener("resync", () => {
+        stopFallback();
+        onResync();
+    });
+    source.addEventListener("queue", event => {
+        stopFallback();
+        try {
+            onEvent(JSON.parse(event.data));
+        } catch (error) {
+            console.error("Gagal membaca event antrean", error);
+            onResync();
+        }
+    });
+    source.addEventListener("error", () => {
+        // EventSource akan tersambung ulang sendiri dengan Last-Event-ID; sementara itu gunakan polling.
+        startFallback();
+    });
+
+    return () => {
+        stopFallback();
+        if (source) {
+            source.close();
+        }
+    };
+}
+
+// Menggabungkan beberapa pemanggilan beruntun menjadi satu eksekusi.
+export function coalesce(task) {
+    let scheduled = false;
+    let running = false;
+    let pending = false;
+    const run = async () => {
+        scheduled = false;
+        if (running) {
+            pending = true;
+            return;
+        }
+        running = true;
+        try {
+            await task();
+        } finally {
+            running = false;
+            if (pending) {
+                pending = false;
+                trigger();
+            }
+        }
+    };
+    const trigger = () => {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        setTimeout(run, 0);
+    };
+    return trigger;
+}
@@ -1,3 +1,5 @@
+import { coalesce, subscribeQueueStream } from "./stream.js";
+
 const takeButtonLama = document.getElementById("take-ticket-lama");
 const takeButtonBaru = document.getElementById("take-ticket-baru");
 const issuedNumberElement = document.getElementById("issued-number");
@@ -6,35 +8,35 @@ const feedbackElement = document.getElementById("ticket-feedback");
 const nextNumberLamaElement = document.getElementById("public-next-number-lama");
 const nextNumberBaruElement = document.getElementById("public-next-number-baru");
 const queueLengthElement = document.getElementById("public-queue-length");
+const estimatedWaitElement = document.getElementById("public-estimated-wait");
+
+// Kiosk dengan printer sendiri dibuka sebagai ticket.html?printer=<id printer>.
+const kioskPrinter = new URLSearchParams(window.location.search).get("printer");
 
-let refreshTimer;
+let unsubscribeStream;
+const scheduleRefresh = coalesce(refreshQueueStatus);
 
 async function refreshQueueStatus() {
     try {
-        const response = await fetch("/api/queue/status");
+        // Kiosk hanya butuh jumlah per jenis pasien, bukan daftar tiketnya.
+        const response = await fetch("/api/queue/counts");
         if (!response.ok) {
             throw new Error("Gagal memuat status antrean");
         }
         const status = await response.json();
         
-        // Count waiting by patient type
-        let lamaCount = 0;
-        let baruCount = 0;
-        if (Array.isArray(status.waitingQueue)) {
-            status.waitingQueue.forEach(ticket => {
-                if (ticket.patientType === "BARU") {
-                    baruCount++;
-                } else {
-                    lamaCount++;
-                }
-            });
-        }
+        const counts = status.waitingByType || {};
+        const lamaCount = counts.LAMA || 0;
+        const baruCount = counts.BARU || 0;
         
         // Update next numbers - estimate based on prefix pattern
         nextNumberLamaElement.textContent = formatTicketNumber("L", lamaCount + 1);
         nextNumberBaruElement.textContent = formatTicketNumber("B", baruCount + 1);
         
-        queueLengthElement.textContent = Array.isArray(status.waitingQueue) ? status.waitingQueue.length : 0;
+        queueLengthElement.textContent = status.waiting || 0;
+
+        const estimates = status.estimatedWaitSeconds || {};
+        estimatedWaitElement.textContent = `Lama ${formatWait(estimates.LAMA)} / Baru ${formatWait(estimates.BARU)}`;
     } catch (error) {
         console.error(error);
         showFeedback(error.message, true);
@@ -43,7 +45,11 @@ async function refreshQueueStatus() {
 
 async function takeTicket(patientType) {
     try {
-        const response = await fetch(`/api/tickets?patientType=${patientType}`, { method: "POST" });
+        const params = new URLSearchParams({ patientType });
+        if (kioskPrinter) {
+            params.set("printer", kioskPrinter);
+        }
+        const response = await fetch(`/api/tickets?${params}`, { method: "POST" });
         if (!response.ok) {
             const error = await response.json();
             throw new Error(error.error || "Gagal mengambil nomor antrean");
@@ -56,7 +62,10 @@ async function takeTicket(patientType) {
         patientTypeLabelElement.textContent = typeLabel;
         patientTypeLabelElement.classList.remove("hidden");
         
-        showFeedback(`Nomor antrean Anda ${ticket.number} (${typeLabel}). Silakan menunggu panggilan ke loket.`, false);
+        const estimate = Number.isFinite(ticket.estimatedWaitSeconds)
+            ? ` Perkiraan waktu tunggu ${formatWait(ticket.estimatedWaitSeconds)}.`
+            : "";
+        showFeedback(`Nomor antrean Anda ${ticket.number} (${typeLabel}). Silakan menunggu panggilan ke loket.${estimate}`, false);
     } catch (error) {
         console.error(error);
         showFeedback(error.message, true);
@@ -72,6 +81,14 @@ function formatTicketNumber(prefix, sequence) {
     return `${prefix}-${String(sequence).padStart(3, "0")}`;
 }
 
+function formatWait(seconds) {
+    if (!Number.isFinite(seconds)) {
+        return "-";
+    }
+    const minutes = Math.round(seconds / 60);
+    return minutes < 1 ? "< 1 menit" : `± ${minutes} menit`;
+}
+
 function showFeedback(message, isError = false) {
     if (!message) {
         feedbackElement.classList.add("hidden");
@@ -83,12 +100,15 @@ function showFeedback(message, isError = false) {
 }
 
 window.addEventListener("load", () => {
-    refreshQueueStatus();
-    refreshTimer = setInterval(refreshQueueStatus, 5000);
+    unsubscribeStream = subscribeQueueStream({
+        onEvent: scheduleRefresh,
+        onResync: scheduleRefresh,
+        fallbackInterval: 5000
+    });
 });
 
 window.addEventListener("beforeunload", () => {
-    if (refreshTimer) {
-        clearInterval(refreshTimer);
+    if (unsubscribeStream) {
+        unsubscribeStream();
     }
 });
@@ -0,0 +1,33 @@
+package com.panggilan.loket.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.panggilan.loket.config.CounterProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CounterControllerTests {
+
+    // Permintaan ditolak sebelum antrean disentuh
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new CounterController(null, new ObjectMapper(), new CounterProperties()))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void unknownOrBlankPatientTypesInBatchAreBadRequests() throws Exception {
+        mockMvc.perform(post("/api/tickets/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientTypes\":[\"BARU\",\"BRU\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Jenis pasien BRU tidak dikenal, gunakan [LAMA, BARU]"));
+        mockMvc.perform(post("/api/tickets/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientTypes\":[\"LAMA\",\" \"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validasi gagal"));
+    }
+}
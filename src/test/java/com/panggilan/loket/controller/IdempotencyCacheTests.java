@@ -0,0 +1,91 @@
+package com.panggilan.loket.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyCacheTests {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void repeatedKeyReturnsTheOriginalResponseWithoutRunningAgain() {
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofMinutes(10), clock::get);
+
+        ResponseEntity<?> first = cache.execute("k1", "/api/counters/A/call-next", this::callNext);
+        ResponseEntity<?> retry = cache.execute("k1", "/api/counters/A/call-next", this::callNext);
+
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getBody()).isEqualTo(first.getBody());
+        assertThat(retry.getHeaders().getFirst(IdempotencyCache.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(cache.execute("k1", "/api/counters/B/call-next", this::callNext).getStatusCode())
+                .isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(cache.execute(null, "/api/counters/A/call-next", this::callNext).getBody()).isEqualTo(2);
+    }
+
+    @Test
+    void doubleClickWaitsForTheRequestInFlight() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofMinutes(10), clock::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<?>> first = CompletableFuture.supplyAsync(() ->
+                cache.execute("k1", "/api/queue/call-next", () -> {
+                    started.countDown();
+                    await(release);
+                    return callNext();
+                }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<ResponseEntity<?>> second = CompletableFuture.supplyAsync(() ->
+                cache.execute("k1", "/api/queue/call-next", this::callNext));
+        release.countDown();
+
+        assertThat(second.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(first.get(5, TimeUnit.SECONDS).getBody());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void entriesExpireAreBoundedAndFailuresAreNotKept() {
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofSeconds(60), clock::get);
+
+        assertThatThrownBy(() -> cache.execute("k1", "/api/tickets", () -> {
+            throw new IllegalArgumentException("Loket tidak ditemukan");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(cache.size()).isZero();
+
+        cache.execute("k1", "/api/tickets", this::callNext);
+        cache.execute("k2", "/api/tickets", this::callNext);
+        cache.execute("k3", "/api/tickets", this::callNext);
+        assertThat(cache.size()).isEqualTo(2);
+        cache.execute("k1", "/api/tickets", this::callNext);
+        assertThat(executions).hasValue(4);
+
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.execute("k3", "/api/tickets", this::callNext);
+        assertThat(executions).hasValue(5);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    private ResponseEntity<?> callNext() {
+        return ResponseEntity.ok(executions.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
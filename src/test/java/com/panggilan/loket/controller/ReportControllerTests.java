@@ -0,0 +1,27 @@
+package com.panggilan.loket.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportControllerTests {
+
+    // Rentang ditolak sebelum rollup atau riwayat disentuh
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ReportController(null, null))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void invalidRangesAreBadRequests() throws Exception {
+        mockMvc.perform(get("/api/reports/daily").param("from", "2026-10-17").param("to", "2026-10-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Rentang tanggal laporan tidak valid: 2026-10-17 s.d. 2026-10-01"));
+        mockMvc.perform(post("/api/reports/rebuild").param("from", "2024-01-01").param("to", "2026-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+}
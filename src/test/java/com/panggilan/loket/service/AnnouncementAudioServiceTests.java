@@ -0,0 +1,140 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.AnnouncementAudioProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnnouncementAudioServiceTests {
+
+    // 8 kHz mono 16 bit: 1 ms = 8 frame.
+    private static final AudioFormat FORMAT = new AudioFormat(8000f, 16, 1, true, false);
+
+    @TempDir
+    Path tempDir;
+
+    private AnnouncementAudioProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new AnnouncementAudioProperties();
+        properties.setSegmentsDir(tempDir.resolve("segments").toString());
+        properties.setCacheDir(tempDir.resolve("cache").toString());
+        properties.setWordGap(Duration.ofMillis(10));
+        properties.setPhraseGap(Duration.ofMillis(50));
+        Files.createDirectories(tempDir.resolve("segments"));
+        for (String word : List.of("nomor-antrean", "menuju", "l", "b", "nol", "satu", "tiga", "loket", "loket-b")) {
+            segment(word, 100);
+        }
+    }
+
+    @Test
+    void clipIsAssembledFromSegmentsAndServedFromCache() throws Exception {
+        AnnouncementAudioService service = new AnnouncementAudioService(properties);
+
+        AnnouncementAudioService.Clip clip = service.clip("L-003", "Loket B");
+        clip.close();
+
+        assertThat(service.sentence("L-003", "Loket B"))
+                .containsExactly("nomor-antrean", "l", ",", "nol", "nol", "tiga", ",", "menuju", "loket-b");
+        try (AudioInputStream audio = AudioSystem.getAudioInputStream(clip.getPath().toFile())) {
+            // 7 segmen @100 ms, 4 jeda kata @10 ms, 2 jeda frasa @50 ms.
+            assertThat(audio.getFrameLength()).isEqualTo((7 * 100 + 4 * 10 + 2 * 50) * 8);
+            assertThat(audio.getFormat().matches(FORMAT)).isTrue();
+        }
+        assertThat(clip.getLength()).isEqualTo(Files.size(clip.getPath()));
+        try (AnnouncementAudioService.Clip again = service.clip("l-003", "LOKET B")) {
+            assertThat(again.getTag()).isEqualTo(clip.getTag());
+            assertThat(again.getPath()).isEqualTo(clip.getPath());
+        }
+        assertThat(service.cachedClips()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedClipIsEvictedFromDisk() throws Exception {
+        properties.setCacheMaxEntries(2);
+        AnnouncementAudioService service = new AnnouncementAudioService(properties);
+
+        AnnouncementAudioService.Clip first = service.clip("L-001", "Loket B");
+        AnnouncementAudioService.Clip second = service.clip("L-003", "Loket B");
+        service.clip("L-001", "Loket B").close();
+        AnnouncementAudioService.Clip third = service.clip("B-001", "Loket B");
+        first.close();
+        second.close();
+        third.close();
+
+        assertThat(service.cachedClips()).isEqualTo(2);
+        assertThat(first.getPath()).exists();
+        assertThat(second.getPath()).doesNotExist();
+        assertThat(third.getPath()).exists();
+    }
+
+    @Test
+    void evictedClipCanStillBeReadByTheResponseThatOpenedIt() throws Exception {
+        properties.setCacheMaxEntries(1);
+        AnnouncementAudioService service = new AnnouncementAudioService(properties);
+
+        try (AnnouncementAudioService.Clip playing = service.clip("L-001", "Loket B")) {
+            service.clip("L-003", "Loket B").close();
+            assertThat(playing.getPath()).doesNotExist();
+
+            byte[] content = Channels.newInputStream(playing.getChannel()).readAllBytes();
+            assertThat(content).hasSize((int) playing.getLength());
+        }
+    }
+
+    @Test
+    void reRecordedSegmentChangesTheTagAndTheAudio() throws Exception {
+        AnnouncementAudioService service = new AnnouncementAudioService(properties);
+        AnnouncementAudioService.Clip before = service.clip("L-003", "Loket B");
+        before.close();
+
+        segment("tiga", 200);
+        Files.setLastModifiedTime(tempDir.resolve("segments").resolve("tiga.wav"),
+                FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        try (AnnouncementAudioService.Clip after = service.clip("L-003", "Loket B")) {
+            assertThat(after.getTag()).isNotEqualTo(before.getTag());
+            assertThat(after.getLength()).isEqualTo(before.getLength() + 100 * 8 * 2);
+        }
+    }
+
+    @Test
+    void counterNameIsSpelledWhenNotRecordedAndMissingSegmentsAreRejected() throws Exception {
+        AnnouncementAudioService service = new AnnouncementAudioService(properties);
+
+        assertThat(service.sentence("B-010", "Loket 1B"))
+                .containsExactly("nomor-antrean", "b", ",", "nol", "satu", "nol", ",", "menuju", "loket", "satu", "b");
+        assertThatThrownBy(() -> service.clip("L-003", "Loket C"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("c.wav");
+        assertThatThrownBy(() -> service.clip("../L-003", "Loket B"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void segment(String word, int millis) throws Exception {
+        int frames = 8 * millis;
+        byte[] samples = new byte[frames * FORMAT.getFrameSize()];
+        for (int i = 0; i < samples.length; i += 2) {
+            samples[i] = (byte) (i % 64);
+        }
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(samples), FORMAT, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, tempDir.resolve("segments").resolve(word + ".wav").toFile());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.config.QueueClusterProperties;
+import com.panggilan.loket.model.CounterSnapshot;
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.repository.QueueClusterStateRepository;
+import com.panggilan.loket.repository.QueueTransitionRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dua instance berbagi satu database: instance pertama adalah bean aplikasi, instance kedua dibangun
+ * manual dengan koordinatornya sendiri. Polling terjadwal dimatikan agar replikasi dipicu eksplisit.
+ */
+@SpringBootTest(properties = {
+        "queue.cluster.enabled=true",
+        "queue.cluster.node-id=node-1",
+        "queue.cluster.poll-interval=0s",
+        "spring.datasource.url=jdbc:h2:mem:cluster;MODE=MYSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;LOCK_TIMEOUT=10000"
+})
+class ClusterQueueCoordinatorTests {
+
+    @Autowired
+    private QueueService node1;
+
+    @Autowired
+    private ClusterQueueCoordinator coordinator1;
+
+    @Autowired
+    private CounterProperties counterProperties;
+
+    @Autowired
+    private QueueClusterStateRepository stateRepository;
+
+    @Autowired
+    private QueueTransitionRepository transitionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ClusterQueueCoordinator coordinator2;
+    private QueueService node2;
+
+    @BeforeEach
+    void setUp() {
+        node1.manualReset();
+        QueueClusterProperties properties = new QueueClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId("node-2");
+        properties.setPollInterval(Duration.ZERO);
+        coordinator2 = new ClusterQueueCoordinator(properties, stateRepository, transitionRepository, transactionManager);
+        node2 = new QueueService(counterProperties, TicketPrinter.noop(), TicketAuditService.noop(),
+                QueueJournal.noop(), null, coordinator2, Clock.systemDefaultZone());
+        node2.initializeCounters();
+    }
+
+    @Test
+    void nodesShareNumberingAndQueue() {
+        Ticket first = node1.issueTicket(PatientType.LAMA);
+        Ticket second = node1.issueTicket(PatientType.LAMA);
+        Ticket third = node2.issueTicket(PatientType.BARU);
+
+        assertThat(sequenceOf(second)).isEqualTo(sequenceOf(first) + 1);
+        assertThat(sequenceOf(third)).isEqualTo(sequenceOf(second) + 1);
+
+        Ticket calledOnNode2 = node2.callNext("B").orElseThrow();
+        assertThat(calledOnNode2.getNumber()).isEqualTo(first.getNumber());
+
+        coordinator1.poll();
+        CounterSnapshot counterB = snapshot(node1, "B");
+        assertThat(counterB.getActiveTickets()).extracting(Ticket::getNumber).containsExactly(first.getNumber());
+        assertThat(node1.getWaitingQueue()).extracting(Ticket::getNumber)
+                .containsExactly(second.getNumber(), third.getNumber());
+
+        Ticket calledOnNode1 = node1.callNext("C").orElseThrow();
+        assertThat(calledOnNode1.getNumber()).isEqualTo(second.getNumber());
+
+        node2.complete("B", calledOnNode2.getId());
+        coordinator2.poll();
+        coordinator1.poll();
+        assertThat(snapshot(node1, "C").getWaitingTickets()).extracting(Ticket::getNumber)
+                .containsExactly(first.getNumber());
+        assertThat(node2.getWaitingQueue()).extracting(Ticket::getNumber).containsExactly(third.getNumber());
+    }
+
+    @Test
+    void concurrentIssuesOnTwoNodesNeverDuplicateNumbers() throws Exception {
+        int perNode = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<Ticket>>> futures = new ArrayList<>();
+            for (QueueService node : List.of(node1, node2)) {
+                Callable<List<Ticket>> task = () -> {
+                    List<Ticket> issued = new ArrayList<>();
+                    for (int i = 0; i < perNode; i++) {
+                        issued.add(node.issueTicket(i % 2 == 0 ? PatientType.LAMA : PatientType.BARU));
+                    }
+                    return issued;
+                };
+                futures.add(executor.submit(task));
+            }
+            List<Ticket> all = new ArrayList<>();
+            for (Future<List<Ticket>> future : futures) {
+                all.addAll(future.get());
+            }
+            Set<Integer> sequences = all.stream().map(this::sequenceOf).collect(Collectors.toSet());
+            assertThat(sequences).hasSize(perNode * 2);
+
+            coordinator1.poll();
+            coordinator2.poll();
+            assertThat(node1.getWaitingQueue()).extracting(Ticket::getId)
+                    .containsExactlyElementsOf(node2.getWaitingQueue().stream().map(Ticket::getId)
+                            .collect(Collectors.toList()))
+                    .hasSize(perNode * 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void manualResetReachesOtherNode() {
+        node2.issueTicket(PatientType.LAMA);
+        coordinator1.poll();
+        assertThat(node1.getWaitingQueue()).hasSize(1);
+
+        node1.manualReset();
+        coordinator2.poll();
+
+        assertThat(node2.getWaitingQueue()).isEmpty();
+    }
+
+    private int sequenceOf(Ticket ticket) {
+        return Integer.parseInt(ticket.getNumber().substring(ticket.getNumber().indexOf('-') + 1));
+    }
+
+    private static CounterSnapshot snapshot(QueueService service, String counterId) {
+        return service.getSnapshot().stream()
+                .filter(counter -> counter.getId().equals(counterId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,45 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefaultTicketPrinterTests {
+
+    private final TicketPrintProperties properties = new TicketPrintProperties();
+    private final DefaultTicketPrinter printer = new DefaultTicketPrinter(properties);
+    private Graphics2D graphics;
+
+    @BeforeEach
+    void setUp() {
+        graphics = new BufferedImage(221, 369, BufferedImage.TYPE_BYTE_GRAY).createGraphics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        graphics.dispose();
+        printer.shutdown();
+    }
+
+    @Test
+    void templateIsReusedUntilSettingsChange() {
+        TicketTemplate first = printer.templateFor(graphics, 221, 369);
+        first.draw(graphics, "L-001", "17 Oktober 2026");
+
+        assertThat(printer.templateFor(graphics, 221, 369)).isSameAs(first);
+
+        new TicketSettingsService(properties).updateSettings("RS Sehat", "Jl. Merdeka No. 1");
+        TicketTemplate renamed = printer.templateFor(graphics, 221, 369);
+        assertThat(renamed).isNotSameAs(first);
+        assertThat(printer.templateFor(graphics, 221, 369)).isSameAs(renamed);
+
+        properties.setTicketFontSize(56);
+        assertThat(printer.templateFor(graphics, 221, 369)).isNotSameAs(renamed);
+    }
+}
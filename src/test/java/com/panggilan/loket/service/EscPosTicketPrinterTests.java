@@ -0,0 +1,109 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.PrinterStatus;
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class EscPosTicketPrinterTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void ticketsAreWrittenAsRawEscPosToTheDevice() throws Exception {
+        Path device = Files.createFile(tempDir.resolve("lp0"));
+        TicketPrintProperties properties = new TicketPrintProperties();
+        properties.setBackend(TicketPrintProperties.Backend.ESCPOS);
+        properties.getEscpos().setDevice(device.toString());
+        EscPosTicketPrinter printer = new EscPosTicketPrinter(properties);
+
+        printer.printTickets(List.of(ticket("L-001"), ticket("B-002")));
+        printer.shutdown();
+
+        byte[] written = Files.readAllBytes(device);
+        String text = new String(written, StandardCharsets.US_ASCII);
+        assertThat(written[0]).isEqualTo((byte) 0x1B);
+        assertThat(written[1]).isEqualTo((byte) '@');
+        assertThat(text).contains("L-001", "B-002", TicketTemplate.CARD_TITLE, "17 Oktober 2026");
+        // Header raster dan potong kertas untuk setiap tiket.
+        assertThat(occurrences(text, "\u001Dv0")).isEqualTo(2);
+        assertThat(occurrences(text, "\u001DVB")).isEqualTo(2);
+    }
+
+    @Test
+    void ticketsAreRoutedToTheNamedKioskPrinter() throws Exception {
+        TicketPrintProperties properties = new TicketPrintProperties();
+        properties.getPrinters().add(printer("kiosk-1", Files.createFile(tempDir.resolve("kiosk-1"))));
+        properties.getPrinters().add(printer("kiosk-2", Files.createFile(tempDir.resolve("kiosk-2"))));
+        EscPosTicketPrinter printer = new EscPosTicketPrinter(properties);
+
+        printer.printTickets(List.of(ticket("L-001")));
+        printer.printTickets(List.of(ticket("B-002")), "KIOSK-2");
+        printer.shutdown();
+
+        assertThat(printer.hasPrinter("kiosk-2")).isTrue();
+        assertThat(printer.hasPrinter("kiosk-3")).isFalse();
+        assertThat(new String(Files.readAllBytes(tempDir.resolve("kiosk-1")), StandardCharsets.US_ASCII))
+                .contains("L-001").doesNotContain("B-002");
+        assertThat(new String(Files.readAllBytes(tempDir.resolve("kiosk-2")), StandardCharsets.US_ASCII))
+                .contains("B-002").doesNotContain("L-001");
+        assertThat(printer.status()).extracting(PrinterStatus::getPrinter, PrinterStatus::getPrintedJobs)
+                .containsExactly(tuple("kiosk-1", 1L), tuple("kiosk-2", 1L));
+    }
+
+    @Test
+    void missingDeviceFailsInsteadOfCreatingAFile() {
+        Path device = tempDir.resolve("lp0");
+        TicketPrintProperties properties = new TicketPrintProperties();
+        properties.setBackend(TicketPrintProperties.Backend.ESCPOS);
+        properties.getEscpos().setDevice(device.toString());
+        properties.getQueue().setMaxRetries(0);
+        EscPosTicketPrinter printer = new EscPosTicketPrinter(properties);
+
+        printer.printTickets(List.of(ticket("L-001")));
+        printer.shutdown();
+
+        assertThat(Files.exists(device)).isFalse();
+        assertThat(printer.status()).singleElement()
+                .satisfies(status -> {
+                    assertThat(status.getPrintedJobs()).isZero();
+                    assertThat(status.getFailedJobs()).isEqualTo(1);
+                });
+    }
+
+    private static TicketPrintProperties.PrinterDefinition printer(String id, Path device) {
+        TicketPrintProperties.EscPos escpos = new TicketPrintProperties.EscPos();
+        escpos.setDevice(device.toString());
+        TicketPrintProperties.PrinterDefinition definition = new TicketPrintProperties.PrinterDefinition();
+        definition.setId(id);
+        definition.setEscpos(escpos);
+        return definition;
+    }
+
+    private static int occurrences(String text, String token) {
+        int count = 0;
+        for (int index = text.indexOf(token); index >= 0; index = text.indexOf(token, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static Ticket ticket(String number) {
+        return Ticket.restore(TicketId.format(TicketId.next()), number, LocalDateTime.of(2026, 10, 17, 8, 0),
+                LocalDate.of(2026, 10, 17), null, null, PatientType.fromString(number));
+    }
+}
@@ -0,0 +1,197 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.AuditProperties;
+import com.panggilan.loket.dto.ReportRowResponse;
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.RollupGranularity;
+import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.repository.DailySequenceRepository;
+import com.panggilan.loket.repository.TicketEventRepository;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class JpaTicketAuditServiceTests {
+
+    @Autowired
+    private JpaTicketAuditService auditService;
+
+    @Autowired
+    private DailySequenceRepository sequenceRepository;
+
+    @Autowired
+    private TicketRollupService rollupService;
+
+    @Autowired
+    private TicketEventRepository eventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void dailySequenceIsStoredWithIssuedEvents() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        auditService.recordIssued(issued("L-005", day));
+        auditService.recordIssued(issued("B-012", day));
+        auditService.recordIssued(issued("L-003", day.plusDays(1)));
+        auditService.flush();
+
+        assertThat(auditService.loadLastSequenceForDate(day)).isEqualTo(12);
+        assertThat(auditService.loadLastSequenceForDate(day.plusDays(1))).isEqualTo(3);
+        assertThat(auditService.loadLastSequenceForDate(day.plusDays(2))).isZero();
+
+        // Batch yang tiba terlambat dengan nomor lebih kecil tidak menurunkan nomor terakhir
+        auditService.recordIssued(issued("L-007", day));
+        assertThat(auditService.loadLastSequenceForDate(day)).isEqualTo(12);
+        assertThat(sequenceRepository.findById(day)).get()
+                .extracting(entity -> entity.getLastNumber()).isEqualTo(12);
+    }
+
+    @Test
+    void rollupsFollowPersistedEventsAndCanBeRebuilt() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalDateTime issuedAt = now.minusSeconds(30).isBefore(today.atStartOfDay()) ? today.atStartOfDay() : now.minusSeconds(30);
+        Ticket lama = Ticket.restore(Ticket.create("L-001").getId(), "L-001", issuedAt, today, null, null, PatientType.LAMA);
+        Ticket baru = Ticket.restore(Ticket.create("B-002", PatientType.BARU).getId(), "B-002", issuedAt, today, null, null,
+                PatientType.BARU);
+        auditService.recordIssued(lama);
+        auditService.recordIssued(baru);
+        Ticket called = baru.assignToCounter("RPT", "Loket Laporan");
+        auditService.recordCalled(called);
+        auditService.recordCalled(called);
+        auditService.recordStopped(called, "RPT");
+        auditService.flush();
+
+        assertReport(rollupService.report(RollupGranularity.DAILY, today, today));
+        assertThat(rollupService.report(RollupGranularity.HOURLY, today, today))
+                .filteredOn(row -> "RPT".equals(row.getCounterId()))
+                .extracting(ReportRowResponse::getCalled)
+                .containsOnly(2L);
+
+        auditService.rebuildRollups(today, today);
+        assertReport(rollupService.report(RollupGranularity.DAILY, today, today));
+    }
+
+    @Test
+    void fullBufferKeepsIssuedBeforeCalled() {
+        AuditProperties properties = new AuditProperties();
+        properties.setCapacity(2);
+        properties.setBatchSize(1);
+        properties.setMaxLatency(Duration.ofMillis(20));
+        JpaTicketAuditService overflowing = new JpaTicketAuditService(eventRepository, sequenceRepository,
+                rollupService, transactionManager, properties);
+        overflowing.startWriter();
+        LocalDateTime now = LocalDateTime.now();
+        int tickets = 20;
+        for (int i = 1; i <= tickets; i++) {
+            // Nomor 0 agar nomor terakhir hari ini di ticket_daily_sequences tidak berubah
+            Ticket ticket = Ticket.restore(Ticket.create("L-000").getId(), "L-000", now.minusSeconds(10L * i),
+                    now.toLocalDate(), null, null, PatientType.LAMA);
+            overflowing.recordIssued(ticket);
+            overflowing.recordCalled(ticket.assignToCounter("OVF", "Loket Penuh"));
+        }
+        overflowing.shutdown();
+
+        // Setiap panggilan menemukan waktu terbitnya: rata-rata tunggu 10..200 detik adalah 105 detik
+        ReportRowResponse counter = rollupService.report(RollupGranularity.DAILY, now.toLocalDate(), now.toLocalDate())
+                .stream()
+                .filter(row -> "OVF".equals(row.getCounterId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(counter.getCalled()).isEqualTo(tickets);
+        assertThat(counter.getAverageWaitSeconds()).isCloseTo(105.0, within(5.0));
+
+        forgetUnnumberedEvents(now.toLocalDate());
+    }
+
+    @Test
+    void retriedBatchStillFindsTheArrivalOfCalledTickets() {
+        AuditProperties properties = new AuditProperties();
+        properties.setEnabled(false);
+        AtomicInteger commits = new AtomicInteger();
+        // Commit kedua (batch CALLED) gagal sekali sehingga batch tersebut dicoba ulang
+        PlatformTransactionManager failingOnce = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                if (commits.incrementAndGet() == 2) {
+                    transactionManager.rollback(status);
+                    throw new TransactionSystemException("Koneksi basis data terputus");
+                }
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        JpaTicketAuditService retrying = new JpaTicketAuditService(eventRepository, sequenceRepository,
+                rollupService, failingOnce, properties);
+        LocalDateTime now = LocalDateTime.now();
+        Ticket ticket = Ticket.restore(Ticket.create("L-000").getId(), "L-000", now.minusSeconds(30),
+                now.toLocalDate(), null, null, PatientType.LAMA);
+
+        retrying.recordIssued(ticket);
+        retrying.recordCalled(ticket.assignToCounter("RTY", "Loket Ulang"));
+
+        assertThat(commits).hasValue(3);
+        ReportRowResponse counter = rollupService.report(RollupGranularity.DAILY, now.toLocalDate(), now.toLocalDate())
+                .stream()
+                .filter(row -> "RTY".equals(row.getCounterId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(counter.getCalled()).isEqualTo(1);
+        assertThat(counter.getAverageWaitSeconds()).isCloseTo(30.0, within(5.0));
+        forgetUnnumberedEvents(now.toLocalDate());
+    }
+
+    // Riwayat bernomor 0 milik uji ini dibuang agar rekap hari ini untuk pengujian lain tetap sama
+    private void forgetUnnumberedEvents(LocalDate day) {
+        eventRepository.deleteAll(eventRepository.findAll().stream()
+                .filter(event -> "L-000".equals(event.getTicketNumber()))
+                .collect(Collectors.toList()));
+        auditService.rebuildRollups(day, day);
+    }
+
+    private static void assertReport(List<ReportRowResponse> rows) {
+        assertThat(rows).filteredOn(row -> row.getCounterId() == null)
+                .extracting(ReportRowResponse::getPatientType, ReportRowResponse::getIssued)
+                .contains(tuple(PatientType.LAMA, 1L),
+                        tuple(PatientType.BARU, 1L));
+        ReportRowResponse counter = rows.stream()
+                .filter(row -> "RPT".equals(row.getCounterId()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(counter.getPatientType()).isEqualTo(PatientType.BARU);
+        // Panggil ulang menambah jumlah panggilan tanpa menambah sampel tunggu
+        assertThat(counter.getCalled()).isEqualTo(2);
+        assertThat(counter.getStopped()).isEqualTo(1);
+        assertThat(counter.getAverageWaitSeconds()).isBetween(0.0, 120.0);
+    }
+
+    private static Ticket issued(String number, LocalDate date) {
+        PatientType type = number.startsWith("B") ? PatientType.BARU : PatientType.LAMA;
+        return Ticket.restore(Ticket.create(number, type).getId(), number, date.atTime(8, 0), date, null, null, type);
+    }
+}
@@ -0,0 +1,181 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.TicketPrintProperties;
+import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.PrintJob;
+import com.panggilan.loket.model.PrintJobState;
+import com.panggilan.loket.model.PrinterStatus;
+import com.panggilan.loket.model.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrintQueueTests {
+
+    @Test
+    void failedJobsAreRetriedWithBackoffUntilPrinted() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<List<String>> printed = new CopyOnWriteArrayList<>();
+        PrintQueue queue = new PrintQueue("test-print-worker", settings(), tickets -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IOException("Kertas macet");
+            }
+            printed.add(numbers(tickets));
+        });
+
+        PrintJob job = queue.submit(List.of(ticket("L-001")));
+        assertThat(job.getState()).isEqualTo(PrintJobState.QUEUED);
+
+        PrinterStatus status = awaitIdle(queue);
+        assertThat(printed).containsExactly(List.of("L-001"));
+        assertThat(status.getPrintedJobs()).isEqualTo(1);
+        assertThat(status.getJobs()).singleElement().satisfies(done -> {
+            assertThat(done.getState()).isEqualTo(PrintJobState.PRINTED);
+            assertThat(done.getAttempts()).isEqualTo(3);
+            assertThat(done.getLastError()).isEqualTo("Kertas macet");
+        });
+        queue.shutdown();
+    }
+
+    @Test
+    void burstsAreCoalescedAndOverflowIsRejected() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<String>> printed = new CopyOnWriteArrayList<>();
+        TicketPrintProperties.Queue settings = settings();
+        settings.setCapacity(3);
+        PrintQueue queue = new PrintQueue("test-print-worker", settings, tickets -> {
+            firstStarted.countDown();
+            release.await();
+            printed.add(numbers(tickets));
+        });
+
+        queue.submit(List.of(ticket("L-001")));
+        assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.submit(List.of(ticket("L-002")));
+        queue.submit(List.of(ticket("B-003"), ticket("B-004")));
+        PrintJob rejected = queue.submit(List.of(ticket("L-005")));
+
+        assertThat(rejected.getState()).isEqualTo(PrintJobState.FAILED);
+        assertThat(queue.status("default", "TEST", true).isAccepting()).isFalse();
+        release.countDown();
+
+        PrinterStatus status = awaitIdle(queue);
+        assertThat(printed).containsExactly(List.of("L-001"), List.of("L-002", "B-003", "B-004"));
+        assertThat(status.getPrintedJobs()).isEqualTo(3);
+        assertThat(status.getFailedJobs()).isEqualTo(1);
+        queue.shutdown();
+    }
+
+    @Test
+    void shutdownDrainsPendingJobs() {
+        List<List<String>> printed = new CopyOnWriteArrayList<>();
+        PrintQueue queue = new PrintQueue("test-print-worker", settings(), tickets -> {
+            Thread.sleep(20);
+            printed.add(numbers(tickets));
+        });
+        for (int i = 1; i <= 5; i++) {
+            queue.submit(List.of(ticket("L-00" + i)));
+        }
+
+        queue.shutdown();
+
+        assertThat(printed.stream().mapToInt(List::size).sum()).isEqualTo(5);
+        assertThat(queue.submit(List.of(ticket("L-006"))).getState()).isEqualTo(PrintJobState.FAILED);
+    }
+
+    @Test
+    void errorFromPrintStackDoesNotKillTheWorker() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<List<String>> printed = new CopyOnWriteArrayList<>();
+        PrintQueue queue = new PrintQueue("test-print-worker", settings(), tickets -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new NoClassDefFoundError("sun/print/PrintServiceLookupProvider");
+            }
+            printed.add(numbers(tickets));
+        });
+
+        queue.submit(List.of(ticket("L-001")));
+        awaitIdle(queue);
+        queue.submit(List.of(ticket("L-002")));
+
+        PrinterStatus status = awaitIdle(queue);
+        assertThat(printed).containsExactly(List.of("L-001"), List.of("L-002"));
+        assertThat(status.getPrintedJobs()).isEqualTo(2);
+        assertThat(status.getFailedJobs()).isZero();
+        queue.shutdown();
+    }
+
+    @Test
+    void jobsAbandonedAtShutdownStayFailedWhenThePrintFinishesLate() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        TicketPrintProperties.Queue settings = settings();
+        settings.setDrainTimeout(Duration.ofMillis(20));
+        PrintQueue queue = new PrintQueue("test-print-late", settings, tickets -> {
+            started.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    break;
+                } catch (InterruptedException ignored) {
+                    // printer tidak peduli interupsi
+                }
+            }
+            returned.countDown();
+        });
+        queue.submit(List.of(ticket("L-001")));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        queue.shutdown();
+        release.countDown();
+        assertThat(returned.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+
+        PrinterStatus status = queue.status("default", "TEST", true);
+        assertThat(status.getPrintedJobs()).isZero();
+        assertThat(status.getFailedJobs()).isEqualTo(1);
+        assertThat(status.getJobs()).singleElement()
+                .satisfies(job -> assertThat(job.getState()).isEqualTo(PrintJobState.FAILED));
+    }
+
+    private static PrinterStatus awaitIdle(PrintQueue queue) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            PrinterStatus status = queue.status("default", "TEST", true);
+            boolean pending = status.getJobs().stream()
+                    .anyMatch(job -> job.getState() == PrintJobState.QUEUED || job.getState() == PrintJobState.PRINTING);
+            if (!pending) {
+                return status;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Antrean cetak tidak selesai");
+    }
+
+    private static TicketPrintProperties.Queue settings() {
+        TicketPrintProperties.Queue settings = new TicketPrintProperties.Queue();
+        settings.setInitialBackoff(Duration.ofMillis(5));
+        settings.setMaxBackoff(Duration.ofMillis(20));
+        settings.setCoalesceWindow(Duration.ofMillis(10));
+        return settings;
+    }
+
+    private static List<String> numbers(List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getNumber).collect(Collectors.toList());
+    }
+
+    private static Ticket ticket(String number) {
+        return Ticket.create(number, PatientType.fromString(number));
+    }
+}
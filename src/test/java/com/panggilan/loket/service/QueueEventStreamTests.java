@@ -0,0 +1,212 @@
+package com.panggilan.loket.service;
+
+import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.controller.QueueStreamController;
+import com.panggilan.loket.model.PatientType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class QueueEventStreamTests {
+
+    private QueueService queueService;
+    private QueueEventStream stream;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        CounterProperties properties = new CounterProperties();
+        List<CounterProperties.CounterDefinition> definitions = new ArrayList<>();
+        for (String id : List.of("A", "B", "C")) {
+            CounterProperties.CounterDefinition definition = new CounterProperties.CounterDefinition();
+            definition.setId(id);
+            definition.setName("Loket " + id);
+            definitions.add(definition);
+        }
+        properties.setCounters(definitions);
+        queueService = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop());
+        queueService.initializeCounters();
+        stream = new QueueEventStream(queueService);
+        stream.register();
+        mockMvc = MockMvcBuilders.standaloneSetup(new QueueStreamController(stream)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void everySubscriberSeesEverySequenceWhenCountersMoveConcurrently() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            queueService.issueTicket(i % 2 == 0 ? PatientType.BARU : PatientType.LAMA);
+        }
+        List<MockHttpServletResponse> subscribers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            subscribers.add(mockMvc.perform(get("/api/stream")).andReturn().getResponse());
+        }
+        long first = queueService.getLastEventSequence();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch done = new CountDownLatch(3);
+        for (String counterId : List.of("A", "B", "C")) {
+            executor.execute(() -> {
+                try {
+                    for (int round = 0; round < 150; round++) {
+                        try {
+                            queueService.callNext(counterId)
+                                    .ifPresent(ticket -> queueService.complete(counterId, ticket.getId()));
+                        } catch (IllegalStateException busy) {
+                            // loket penuh; coba lagi pada putaran berikutnya
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        long last = queueService.getLastEventSequence();
+        assertThat(last).isGreaterThan(first);
+        List<Long> expected = LongStream.rangeClosed(first + 1, last).boxed().collect(Collectors.toList());
+        for (MockHttpServletResponse subscriber : subscribers) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!subscriber.getContentAsString().contains("-" + last + "\n") && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(eventIds(subscriber.getContentAsString(), first)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void counterFilterSeesTicketsTakenFromItsQueue() throws Exception {
+        queueService.issueTicket(PatientType.LAMA);
+        MockHttpServletResponse loketA = mockMvc.perform(get("/api/stream").param("counter", "A"))
+                .andReturn().getResponse();
+        long first = queueService.getLastEventSequence();
+        awaitContent(loketA, "event:resync");
+
+        assertThat(queueService.callNext("B")).isPresent();
+
+        awaitContent(loketA, "\"type\":\"CALLED\"");
+        assertThat(eventIds(loketA.getContentAsString(), first)).containsExactly(first + 1);
+        assertThat(loketA.getContentAsString()).contains("\"counterId\":\"B\"", "\"targetCounterId\":\"A\"");
+    }
+
+    @Test
+    void stalledSubscriberDoesNotHoldBackOthersAndIsDroppedWhenItFallsBehind() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean stalledClosed = new AtomicBoolean();
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("socket macet");
+            }
+
+            @Override
+            public void complete() {
+                stalledClosed.set(true);
+                release.countDown();
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                complete();
+            }
+        };
+        AtomicInteger delivered = new AtomicInteger();
+        SseEmitter healthy = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                delivered.incrementAndGet();
+            }
+        };
+        stream.subscribe(stalled, null, null);
+        stream.subscribe(healthy, null, null);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (delivered.get() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        int events = QueueEventStream.SUBSCRIBER_BUFFER + 100;
+        for (int i = 1; i <= events; i++) {
+            queueService.issueTicket(PatientType.LAMA);
+            // Per 100 event ditunggu hingga klien sehat menerimanya, agar hanya klien macet yang tertinggal
+            while (i % 100 == 0 && delivered.get() < i + 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+        while ((delivered.get() < events + 1 || !stalledClosed.get()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+        // Resync ditambah setiap event, walaupun klien lain macet di kiriman pertamanya
+        assertThat(delivered).hasValue(events + 1);
+        assertThat(stalledClosed).isTrue();
+    }
+
+    @Test
+    void cursorFromAnotherInstanceResyncsInsteadOfSkippingEvents() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            queueService.issueTicket(PatientType.LAMA);
+        }
+        String current = queueService.getStateTag(2);
+
+        MockHttpServletResponse resumed = mockMvc.perform(get("/api/stream").header("Last-Event-ID", current))
+                .andReturn().getResponse();
+        // Nomor 2 dari instance sebelum restart lebih kecil dari nomor terakhir, tetapi tidak dapat dipakai
+        MockHttpServletResponse restarted = mockMvc.perform(get("/api/stream").header("Last-Event-ID", "lama-2"))
+                .andReturn().getResponse();
+        MockHttpServletResponse untagged = mockMvc.perform(get("/api/stream").param("after", "2"))
+                .andReturn().getResponse();
+
+        awaitContent(resumed, queueService.getStateTag(5) + "\n");
+        awaitContent(restarted, "event:resync");
+        awaitContent(untagged, "event:resync");
+        assertThat(eventIds(resumed.getContentAsString(), 0)).containsExactly(3L, 4L, 5L);
+        assertThat(resumed.getContentAsString()).doesNotContain("event:resync");
+        assertThat(restarted.getContentAsString()).startsWith("id:" + queueService.getStateTag(5) + "\nevent:resync");
+        assertThat(untagged.getContentAsString()).startsWith("id:" + queueService.getStateTag(5) + "\nevent:resync");
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String text) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!response.getContentAsString().contains(text) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Long> eventIds(String body, long after) {
+        return body.lines()
+                .filter(line -> line.startsWith("id:"))
+                .map(line -> Long.parseLong(line.substring(line.lastIndexOf('-') + 1).trim()))
+                .filter(id -> id > after)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,25 +1,53 @@
 package com.panggilan.loket.service;
 
 import com.panggilan.loket.config.CounterProperties;
+import com.panggilan.loket.config.QueueJournalProperties;
+import com.panggilan.loket.model.Announcement;
+import com.panggilan.loket.model.AnnouncementFeed;
+import com.panggilan.loket.model.CounterDepth;
+import com.panggilan.loket.model.CounterSnapshot;
 import com.panggilan.loket.model.PatientType;
+import com.panggilan.loket.model.QueueEventType;
+import com.panggilan.loket.model.QueueStatus;
 import com.panggilan.loket.model.Ticket;
+import com.panggilan.loket.model.TicketId;
+import com.panggilan.loket.model.TicketStage;
+import com.panggilan.loket.model.TicketStatus;
 import com.panggilan.loket.service.TicketAuditService;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 class QueueServiceTests {
 
     private QueueService queueService;
+    private CounterProperties properties;
 
     @BeforeEach
     void setUp() {
-        CounterProperties properties = new CounterProperties();
+        properties = new CounterProperties();
         CounterProperties.CounterDefinition definitionA = new CounterProperties.CounterDefinition();
         definitionA.setId("A");
         definitionA.setName("Loket A");
@@ -64,6 +92,116 @@ class QueueServiceTests {
         assertThat(atC.getCounterId()).isEqualTo("C");
     }
 
+    @Test
+    void callsAndRecallsAreKeptInTheAnnouncementLogInOrder() {
+        queueService.issueTicket(PatientType.BARU);
+        queueService.issueTicket(PatientType.BARU);
+        String cursor = queueService.getAnnouncements(null, 50).getCursor();
+
+        Ticket first = queueService.callNext("A").orElseThrow();
+        queueService.complete("A", first.getId());
+        queueService.callNext("B").orElseThrow();
+        Ticket second = queueService.callNext("A").orElseThrow();
+        queueService.recall("B");
+
+        AnnouncementFeed feed = queueService.getAnnouncements(cursor, 50);
+        assertThat(feed.isComplete()).isTrue();
+        assertThat(feed.getAnnouncements())
+                .extracting(Announcement::getType, Announcement::getTicketNumber, Announcement::getCounterName)
+                .containsExactly(
+                        tuple(QueueEventType.CALLED, first.getNumber(), "Loket A"),
+                        tuple(QueueEventType.CALLED, first.getNumber(), "Loket B"),
+                        tuple(QueueEventType.CALLED, second.getNumber(), "Loket A"),
+                        tuple(QueueEventType.RECALLED, first.getNumber(), "Loket B"));
+        assertThat(feed.getSequence()).isEqualTo(feed.getLatestSequence());
+        assertThat(queueService.getAnnouncements(feed.getCursor(), 50).getAnnouncements()).isEmpty();
+
+        AnnouncementFeed page = queueService.getAnnouncements(cursor, 3);
+        assertThat(page.getAnnouncements()).hasSize(3);
+        assertThat(page.getSequence()).isLessThan(page.getLatestSequence());
+
+        // Kursor dari sebelum server dinyalakan ulang dibaca dari awal log, walaupun nomornya masih di bawah
+        // nomor terakhir instance ini.
+        AnnouncementFeed stale = queueService.getAnnouncements("lama-1", 50);
+        assertThat(stale.isComplete()).isFalse();
+        assertThat(stale.getAnnouncements()).hasSize(4);
+        assertThat(queueService.getAnnouncements("1", 50).isComplete()).isFalse();
+    }
+
+    @Test
+    void waitingWindowsCarryCountsOfTheWholeQueue() {
+        for (int i = 0; i < 5; i++) {
+            queueService.issueTicket(i % 2 == 0 ? PatientType.LAMA : PatientType.BARU);
+        }
+        List<Ticket> all = queueService.getQueueStatus().getWaitingQueue();
+
+        QueueStatus window = queueService.getQueueStatus(1, 2);
+        assertThat(window.getWaitingQueue()).extracting(Ticket::getNumber)
+                .containsExactly(all.get(1).getNumber(), all.get(2).getNumber());
+        assertThat(window.getWaitingQueue()).extracting(Ticket::getEstimatedWaitSeconds)
+                .containsExactly(all.get(1).getEstimatedWaitSeconds(), all.get(2).getEstimatedWaitSeconds());
+        assertThat(window.getWaitingCount()).isEqualTo(5);
+
+        QueueStatus counts = queueService.getQueueStatus(0, 0);
+        assertThat(counts.getWaitingQueue()).isEmpty();
+        assertThat(counts.getWaitingCountByType()).containsEntry(PatientType.LAMA, 3).containsEntry(PatientType.BARU, 2);
+        assertThat(queueService.getQueueStatus(10, 5).getWaitingQueue()).isEmpty();
+
+        CounterSnapshot first = queueService.getSnapshot(3).get(0);
+        assertThat(first.getWaitingTickets()).hasSize(3);
+        assertThat(first.getWaitingCount()).isEqualTo(5);
+        assertThat(queueService.getSnapshot().get(0).getWaitingTickets()).hasSize(5);
+    }
+
+    @Test
+    void singleCounterSnapshotFollowsItsCounter() {
+        queueService.issueTicket(PatientType.BARU);
+        queueService.issueTicket(PatientType.BARU);
+        Ticket called = queueService.callNext("A").orElseThrow();
+
+        CounterSnapshot counter = queueService.getCounter("A", 0);
+        assertThat(counter.getId()).isEqualTo("A");
+        assertThat(counter.getActiveTickets()).extracting(Ticket::getId).containsExactly(called.getId());
+        assertThat(counter.getWaitingTickets()).isEmpty();
+        assertThat(counter.getWaitingCount()).isEqualTo(1);
+        assertThat(queueService.getCounter("B", Integer.MAX_VALUE).getActiveTickets()).isEmpty();
+        assertThatThrownBy(() -> queueService.getCounter("Z", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void depthCountersFollowEveryTransition() {
+        queueService.issueTicket(PatientType.BARU);
+        queueService.issueTicket(PatientType.BARU);
+        queueService.issueTicket(PatientType.LAMA);
+        assertThat(depth("A").getWaitingByType()).containsEntry(PatientType.BARU, 2).containsEntry(PatientType.LAMA, 1);
+        assertThat(queueService.getQueueCounts().getWaiting()).isEqualTo(3);
+
+        Ticket called = queueService.callNext("A").orElseThrow();
+        assertThat(depth("A").getWaiting()).isEqualTo(2);
+        assertThat(depth("A").getActive()).isEqualTo(1);
+
+        queueService.complete("A", called.getId());
+        assertThat(depth("A").getActive()).isZero();
+        assertThat(depth("B").getWaitingByType()).containsEntry(PatientType.BARU, 1);
+
+        queueService.callNext("B").orElseThrow();
+        queueService.stop("B");
+        assertThat(depth("B").getWaiting()).isZero();
+        assertThat(depth("B").getActive()).isZero();
+
+        queueService.manualReset();
+        assertThat(queueService.getQueueCounts().getCounters())
+                .allSatisfy(depth -> assertThat(depth.getWaiting() + depth.getActive()).isZero());
+    }
+
+    private CounterDepth depth(String counterId) {
+        return queueService.getQueueCounts().getCounters().stream()
+                .filter(depth -> depth.getCounterId().equals(counterId))
+                .findFirst()
+                .orElseThrow();
+    }
+
     @Test
     void callNextWhileBusyShouldThrow() {
         // Gunakan Pasien Baru agar bisa dipanggil di Loket A
@@ -164,7 +302,252 @@ class QueueServiceTests {
             assertThat(snapshot.getActiveTickets()).isEmpty();
             assertThat(snapshot.getWaitingTickets()).isEmpty();
         });
-        assertThat(queueService.previewNextTicketNumber(PatientType.LAMA)).isEqualTo(1);
+        // Riwayat (noop) belum memuat kedua tiket; reset di hari yang sama tidak boleh memundurkan nomor.
+        assertThat(queueService.previewNextTicketNumber(PatientType.LAMA)).isEqualTo(3);
+    }
+
+    @Test
+    void manualResetTakesTheHigherOfMemoryAndHistory() {
+        TicketAuditService history = new TicketAuditService() {
+            @Override
+            public void recordIssued(Ticket ticket) {
+            }
+
+            @Override
+            public void recordCalled(Ticket ticket) {
+            }
+
+            @Override
+            public void recordCompleted(Ticket ticket, String counterId) {
+            }
+
+            @Override
+            public void recordStopped(Ticket ticket, String counterId) {
+            }
+
+            @Override
+            public int loadLastSequenceForDate(LocalDate date) {
+                return 10;
+            }
+        };
+        QueueService service = new QueueService(properties, TicketPrinter.noop(), history);
+        service.initializeCounters();
+        assertThat(service.issueTicket().getNumber()).isEqualTo("L-011");
+
+        service.manualReset();
+
+        assertThat(service.issueTicket().getNumber()).isEqualTo("L-012");
+    }
+
+    @Test
+    void snapshotIsReusedUntilStateVersionChanges() {
+        queueService.issueTicket(PatientType.BARU);
+        long version = queueService.getStateVersion();
+        List<?> first = queueService.getSnapshot();
+
+        assertThat(queueService.getStateVersion()).isEqualTo(version);
+        assertThat(queueService.getSnapshot()).isSameAs(first);
+        assertThat(queueService.getQueueStatus()).isSameAs(queueService.getQueueStatus());
+
+        queueService.callNext("A");
+
+        assertThat(queueService.getStateVersion()).isGreaterThan(version);
+        assertThat(queueService.getSnapshot()).isNotSameAs(first);
+        assertThat(queueService.getSnapshot().get(0).getActiveTickets()).hasSize(1);
+    }
+
+    @Test
+    void metricsRecordWaitServiceTimeAndDepth() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueueService instrumented = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(),
+                QueueJournal.noop(), registry, QueueCoordinator.local(), Clock.systemDefaultZone());
+        instrumented.initializeCounters();
+
+        instrumented.issueTicket(PatientType.BARU);
+        instrumented.issueTicket(PatientType.LAMA);
+        assertThat(registry.get("queue.waiting").tags("counter", "A", "patientType", "LAMA").gauge().value())
+                .isEqualTo(1.0);
+
+        Ticket called = instrumented.callNext("A").orElseThrow();
+        instrumented.complete("A", called.getId());
+        Ticket stolen = instrumented.callNext("C").orElseThrow();
+        instrumented.stop("C", stolen.getId());
+
+        assertThat(registry.get("queue.wait").tags("counter", "A", "patientType", "BARU").timer().count()).isEqualTo(1);
+        assertThat(registry.get("queue.wait").tags("counter", "C", "patientType", "LAMA").timer().count()).isEqualTo(1);
+        assertThat(registry.get("queue.service").tags("counter", "A", "outcome", "completed").timer().count()).isEqualTo(1);
+        assertThat(registry.get("queue.service").tags("counter", "C", "outcome", "stopped").timer().count()).isEqualTo(1);
+        assertThat(registry.get("queue.waiting").tags("counter", "B", "patientType", "BARU").gauge().value())
+                .isEqualTo(1.0);
+        assertThat(registry.get("queue.active").tags("counter", "A").gauge().value()).isZero();
+        assertThat(registry.get("queue.lock.wait").tags("lock", "A").timer().count()).isPositive();
+    }
+
+    @Test
+    void ticketIdsAreCompactAndIncreasing() {
+        Ticket first = queueService.issueTicket();
+        Ticket second = queueService.issueTicket();
+        Ticket restored = Ticket.restore(TicketId.format(second.getKey() + 1000), "L-999", null, null, null, null,
+                PatientType.LAMA);
+        Ticket third = queueService.issueTicket();
+
+        assertThat(first.getId()).hasSize(11).isLessThan(second.getId());
+        assertThat(second.getKey()).isGreaterThan(first.getKey());
+        assertThat(third.getKey()).isGreaterThan(restored.getKey());
+        assertThat(TicketId.parse(third.getId())).isEqualTo(third.getKey());
+        assertThat(TicketId.parse("0b6b8a52-6a6e-4d0b-9a49-3c1f9e3c2f11")).isEqualTo(TicketId.INVALID);
+    }
+
+    @Test
+    void legacyUuidTicketsCanStillBeCompleted() {
+        Ticket legacy = Ticket.restore("0b6b8a52-6a6e-4d0b-9a49-3c1f9e3c2f11", "L-001", null, null, null, null,
+                PatientType.LAMA);
+        WaitingQueue queue = new WaitingQueue();
+        queue.addLast(queueService.issueTicket(), 0);
+        queue.addLast(legacy, 0);
+
+        assertThat(queue.remove(legacy.getId())).isSameAs(legacy);
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    @Test
+    void ticketLookupReportsStageAndQueuePosition() {
+        for (int i = 0; i < 100; i++) {
+            queueService.issueTicket(PatientType.LAMA);
+        }
+        Ticket baru = queueService.issueTicket(PatientType.BARU);
+        Ticket lastLama = queueService.issueTicket(PatientType.LAMA);
+
+        TicketStatus waiting = queueService.findTicket(baru.getNumber()).orElseThrow();
+        assertThat(waiting.getStage()).isEqualTo(TicketStage.WAITING);
+        assertThat(waiting.getCounterId()).isEqualTo("A");
+        assertThat(waiting.getPosition()).isEqualTo(101);
+        assertThat(waiting.getAhead()).isEqualTo(100);
+        assertThat(waiting.getPositionInType()).isEqualTo(1);
+
+        queueService.callNext("B");
+        queueService.callNext("B");
+        assertThat(queueService.findTicket(lastLama.getId()).orElseThrow().getPosition()).isEqualTo(100);
+        assertThat(queueService.findTicket("l-001").orElseThrow().getStage()).isEqualTo(TicketStage.ACTIVE);
+
+        queueService.callNext("A");
+        TicketStatus active = queueService.findTicket(baru.getId()).orElseThrow();
+        assertThat(active.getStage()).isEqualTo(TicketStage.ACTIVE);
+        assertThat(active.getCounterId()).isEqualTo("A");
+        assertThat(active.getPosition()).isNull();
+        assertThat(queueService.findTicket(lastLama.getNumber()).orElseThrow().getPosition()).isEqualTo(99);
+
+        queueService.complete("A", baru.getId());
+        TicketStatus forwarded = queueService.findTicket(baru.getNumber()).orElseThrow();
+        assertThat(forwarded.getCounterId()).isEqualTo("B");
+        assertThat(forwarded.getPosition()).isEqualTo(1);
+
+        queueService.complete("B");
+        queueService.stop("B");
+        assertThat(queueService.findTicket("L-002").orElseThrow().getStage()).isEqualTo(TicketStage.STOPPED);
+        assertThat(queueService.findTicket("L-001").orElseThrow().getCounterId()).isEqualTo("C");
+        assertThat(queueService.findTicket("X-999")).isEmpty();
+
+        queueService.manualReset();
+        assertThat(queueService.findTicket(baru.getNumber())).isEmpty();
+    }
+
+    @Test
+    void waitEstimatesFollowServiceTimesAndQueueDepth() {
+        MockClock time = new MockClock();
+        QueueService estimating = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(),
+                QueueJournal.noop(), new SimpleMeterRegistry(SimpleConfig.DEFAULT, time), QueueCoordinator.local(),
+                Clock.systemDefaultZone());
+        estimating.initializeCounters();
+
+        estimating.issueTicket(PatientType.BARU);
+        estimating.issueTicket(PatientType.BARU);
+        Ticket third = estimating.issueTicket(PatientType.BARU);
+        // Belum ada sampel: dipakai lama layanan bawaan 3 menit per tiket di depan
+        assertThat(third.getEstimatedWaitSeconds()).isEqualTo(360);
+        assertThat(estimating.getQueueStatus().getEstimatedWaitSeconds().get(PatientType.BARU)).isEqualTo(540);
+
+        estimating.callNext("A");
+        time.add(Duration.ofSeconds(60));
+        estimating.complete("A");
+        assertThat(estimating.findTicket(third.getId()).orElseThrow().getEstimatedWaitSeconds()).isEqualTo(60);
+
+        estimating.callNext("A");
+        assertThat(estimating.findTicket(third.getId()).orElseThrow().getEstimatedWaitSeconds()).isEqualTo(60);
+        time.add(Duration.ofSeconds(120));
+        estimating.complete("A");
+
+        // EWMA 60 + 0.2 * (120 - 60) = 72 detik; persentil 90 dari jendela {60, 120} = 120 detik
+        Ticket fourth = estimating.issueTicket(PatientType.BARU);
+        assertThat(fourth.getEstimatedWaitSeconds()).isEqualTo(72);
+        TicketStatus status = estimating.findTicket(fourth.getNumber()).orElseThrow();
+        assertThat(status.getEstimatedWaitP90Seconds()).isEqualTo(120);
+        // Menunggu 72 + dilayani 72 di A, lalu B (dua menunggu + dirinya) dan C dengan lama bawaan
+        assertThat(status.getEstimatedFinishSeconds()).isEqualTo(72 + 72 + 3 * 180 + 180);
+
+        QueueStatus queueStatus = estimating.getQueueStatus();
+        assertThat(queueStatus.getWaitingQueue()).extracting(Ticket::getEstimatedWaitSeconds).containsExactly(0L, 72L);
+        assertThat(queueStatus.getEstimatedWaitSeconds().get(PatientType.BARU)).isEqualTo(144);
+    }
+
+    @Test
+    void lamaWaitEstimatesUseTheCountersThatTakeThem() {
+        MockClock time = new MockClock();
+        QueueService estimating = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(),
+                QueueJournal.noop(), new SimpleMeterRegistry(SimpleConfig.DEFAULT, time), QueueCoordinator.local(),
+                Clock.systemDefaultZone());
+        estimating.initializeCounters();
+
+        estimating.issueTicket(PatientType.LAMA);
+        estimating.issueTicket(PatientType.LAMA);
+        Ticket baru = estimating.issueTicket(PatientType.BARU);
+        Ticket lama = estimating.issueTicket(PatientType.LAMA);
+        // Dua Pasien Lama di depan dibagi ke B dan C (masing-masing 180 detik); Pasien Baru di A tidak dihitung
+        assertThat(lama.getEstimatedWaitSeconds()).isEqualTo(180);
+        assertThat(baru.getEstimatedWaitSeconds()).isZero();
+
+        estimating.callNext("B");
+        time.add(Duration.ofSeconds(60));
+        estimating.complete("B");
+
+        // L-002 di depan dan L-001 di antrean C; kapasitas gabungan 1/60 + 1/180 tiket per detik
+        TicketStatus status = estimating.findTicket(lama.getId()).orElseThrow();
+        assertThat(status.getEstimatedWaitSeconds()).isEqualTo(90);
+        // Dilayani 60 detik di B, lalu C (satu menunggu + dirinya) dengan lama bawaan
+        assertThat(status.getEstimatedFinishSeconds()).isEqualTo(90 + 60 + 2 * 180);
+        assertThat(estimating.getQueueStatus().getEstimatedWaitSeconds().get(PatientType.LAMA)).isEqualTo(135);
+    }
+
+    @Test
+    void batchIssueUsesContiguousNumbersAndOnePrintJob() {
+        List<List<Ticket>> printJobs = new java.util.ArrayList<>();
+        TicketPrinter printer = new TicketPrinter() {
+            @Override
+            public void printTicket(Ticket ticket) {
+                printJobs.add(List.of(ticket));
+            }
+
+            @Override
+            public void printTickets(List<Ticket> tickets) {
+                printJobs.add(tickets);
+            }
+        };
+        QueueService batching = new QueueService(properties, printer, TicketAuditService.noop());
+        batching.initializeCounters();
+        batching.issueTicket(PatientType.LAMA);
+
+        List<Ticket> group = batching.issueTickets(List.of(PatientType.BARU, PatientType.LAMA, PatientType.BARU));
+
+        assertThat(group).extracting(Ticket::getNumber).containsExactly("B-002", "L-003", "B-004");
+        assertThat(printJobs).hasSize(2);
+        assertThat(printJobs.get(1)).extracting(Ticket::getNumber).containsExactly("B-002", "L-003", "B-004");
+        assertThat(batching.getWaitingQueue()).extracting(Ticket::getNumber)
+                .containsExactly("L-001", "B-002", "L-003", "B-004");
+        assertThat(batching.callNext("A").orElseThrow().getNumber()).isEqualTo("B-002");
+        assertThatThrownBy(() -> batching.issueTickets(List.of())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batching.issueTicket(PatientType.LAMA, "kiosk-9"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(batching.issueTicket(PatientType.LAMA).getNumber()).isEqualTo("L-005");
     }
 
     @Test
@@ -217,4 +600,98 @@ class QueueServiceTests {
         assertThat(calledAtB.getId()).isEqualTo(lama1.getId());
         assertThat(calledAtB.getPatientType()).isEqualTo(PatientType.LAMA);
     }
+
+    @Test
+    void loketAReachesPasienBaruBehindManyPasienLama() {
+        for (int i = 0; i < 500; i++) {
+            queueService.issueTicket(PatientType.LAMA);
+        }
+        Ticket baru = queueService.issueTicket(PatientType.BARU);
+        Ticket lamaAfter = queueService.issueTicket(PatientType.LAMA);
+
+        assertThat(queueService.callNext("A").orElseThrow().getId()).isEqualTo(baru.getId());
+        assertThat(queueService.callNext("A")).isEmpty();
+
+        // Urutan kedatangan global tetap terjaga untuk loket yang mengambil tiket apa pun
+        List<Ticket> waiting = queueService.getWaitingQueue();
+        assertThat(waiting).hasSize(501);
+        assertThat(waiting.get(0).getNumber()).isEqualTo("L-001");
+        assertThat(waiting.get(500).getId()).isEqualTo(lamaAfter.getId());
+        assertThat(queueService.callNext("B").orElseThrow().getNumber()).isEqualTo("L-001");
+    }
+
+    @Test
+    void restartRestoresQueueFromJournal(@TempDir Path tempDir) throws Exception {
+        QueueJournalProperties journalProperties = new QueueJournalProperties();
+        journalProperties.setPath(tempDir.resolve("queue-journal.log").toString());
+        journalProperties.setCheckpointInterval(3);
+        QueueService beforeCrash = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(),
+                new FileQueueJournal(journalProperties), Clock.systemDefaultZone());
+        beforeCrash.initializeCounters();
+
+        Ticket lama = beforeCrash.issueTicket(PatientType.LAMA);
+        Ticket baru = beforeCrash.issueTicket(PatientType.BARU);
+        beforeCrash.issueTicket(PatientType.LAMA);
+        beforeCrash.callNext("A").orElseThrow();
+        beforeCrash.complete("A", baru.getId());
+        Ticket atB = beforeCrash.callNext("B").orElseThrow();
+        beforeCrash.createCounter("D", "Loket D");
+        Ticket atC = beforeCrash.callNext("C").orElseThrow();
+        beforeCrash.recall("B", atB.getId());
+        // Simulasikan tulisan terakhir yang terpotong saat crash
+        Files.writeString(tempDir.resolve("queue-journal.log"), "deadbeef\tISS",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        QueueService afterRestart = new QueueService(properties, TicketPrinter.noop(), TicketAuditService.noop(),
+                new FileQueueJournal(journalProperties), Clock.systemDefaultZone());
+        afterRestart.initializeCounters();
+
+        assertThat(afterRestart.previewNextTicketNumber()).isEqualTo(4);
+        assertThat(afterRestart.getWaitingQueue()).extracting(Ticket::getNumber).containsExactly("L-003");
+        List<com.panggilan.loket.model.CounterSnapshot> snapshots = afterRestart.getSnapshot();
+        assertThat(snapshots).extracting(com.panggilan.loket.model.CounterSnapshot::getId)
+                .containsExactly("A", "B", "C", "D");
+        assertThat(snapshots.get(0).getActiveTickets()).isEmpty();
+        assertThat(snapshots.get(1).getActiveTickets()).extracting(Ticket::getId).containsExactly(baru.getId());
+        assertThat(snapshots.get(1).getLastCalledTicket().getId()).isEqualTo(atB.getId());
+        assertThat(snapshots.get(2).getActiveTickets()).extracting(Ticket::getId).containsExactly(lama.getId());
+        assertThat(atC.getId()).isEqualTo(lama.getId());
+        assertThat(afterRestart.issueTicket().getNumber()).isEqualTo("L-004");
+    }
+
+    @Test
+    void concurrentIssueAndCallKeepTicketsConsistent() throws Exception {
+        int tickets = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        Set<String> called = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(tickets);
+        for (int i = 0; i < tickets; i++) {
+            PatientType type = i % 2 == 0 ? PatientType.BARU : PatientType.LAMA;
+            executor.execute(() -> {
+                try {
+                    numbers.add(queueService.issueTicket(type).getNumber());
+                    for (String counterId : List.of("A", "B")) {
+                        try {
+                            queueService.callNext(counterId).ifPresent(ticket -> {
+                                called.add(ticket.getId());
+                                queueService.complete(counterId, ticket.getId());
+                            });
+                        } catch (IllegalStateException busy) {
+                            // loket sedang penuh oleh thread lain
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(numbers).hasSize(tickets);
+        assertThat(queueService.previewNextTicketNumber()).isEqualTo(tickets + 1);
+        // Setiap tiket harus masih menunggu di loket pertama atau sudah pernah dipanggil tepat satu kali dari sana.
+        assertThat(queueService.getWaitingQueue().size() + called.size()).isEqualTo(tickets);
+    }
 }